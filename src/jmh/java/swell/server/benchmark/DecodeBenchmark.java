@@ -0,0 +1,81 @@
+package swell.server.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import swell.server.codec.SurfForecastDecoder;
+import swell.server.model.OpenMateoOceanicWaveDataDTO;
+import swell.server.model.SurfForecast;
+
+/**
+ * Decoding an Open-Mateo marine response, streamed into a {@link SurfForecast}
+ * as the client does, against binding it to
+ * {@link OpenMateoOceanicWaveDataDTO} as it used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodeBenchmark {
+
+    /**
+     * The size of the chunks the response arrives in, that of a Netty buffer.
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    @Param({ MarinePayloads.HOURS_24, MarinePayloads.HOURS_7_DAYS, MarinePayloads.HOURS_16_DAYS })
+    public int hours;
+
+    private byte[] body;
+    private SurfForecastDecoder decoder;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setup() {
+        Services.quietLogging();
+        body = MarinePayloads.marineResponse(hours).getBytes(StandardCharsets.UTF_8);
+        decoder = new SurfForecastDecoder(new SimpleMeterRegistry());
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public SurfForecast surfForecastDecoder() {
+        var chunks = Flux.fromStream(IntStream.iterate(0, i -> i < body.length, i -> i + CHUNK_SIZE)
+                .mapToObj(i -> (DataBuffer) DefaultDataBufferFactory.sharedInstance
+                        .wrap(Arrays.copyOfRange(body, i, Math.min(body.length, i + CHUNK_SIZE)))));
+
+        return decoder.decodeToMono(chunks, ResolvableType.forClass(SurfForecast.class), MediaType.APPLICATION_JSON,
+                Map.of()).block();
+    }
+
+    @Benchmark
+    public OpenMateoOceanicWaveDataDTO openMateoOceanicWaveDataDTO() throws Exception {
+        return objectMapper.readValue(body, OpenMateoOceanicWaveDataDTO.class);
+    }
+}
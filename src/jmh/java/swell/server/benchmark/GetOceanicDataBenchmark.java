@@ -0,0 +1,49 @@
+package swell.server.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import swell.server.model.OceanicDataDTO;
+import swell.server.service.SurfSwellService;
+
+/**
+ * The whole {@link SurfSwellService#getOceanicData(String, String)} path,
+ * through the guarded {@link org.springframework.web.reactive.function.client.WebClient}
+ * and its decoder, against a stub answering every request with the recorded
+ * response at once. The forecast cache is disabled so every call decodes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GetOceanicDataBenchmark {
+
+    @Param({ MarinePayloads.HOURS_24, MarinePayloads.HOURS_7_DAYS, MarinePayloads.HOURS_16_DAYS })
+    public int hours;
+
+    private SurfSwellService surfSwellService;
+
+    @Setup
+    public void setup() {
+        Services.quietLogging();
+        surfSwellService = Services.surfSwellService(MarinePayloads.marineResponse(hours));
+    }
+
+    @Benchmark
+    public OceanicDataDTO getOceanicData() {
+        return surfSwellService.getOceanicData("54.5", "10.0");
+    }
+}
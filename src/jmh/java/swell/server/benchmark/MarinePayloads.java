@@ -0,0 +1,82 @@
+package swell.server.benchmark;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Open-Mateo marine responses shaped like the recorded ones, an hourly series
+ * per forecast variable given to two decimals, generated from a fixed seed so
+ * every run decodes the same bytes.
+ */
+final class MarinePayloads {
+
+    /**
+     * The forecast horizons benchmarked, a day, a week and Open-Mateo's longest.
+     */
+    static final String HOURS_24 = "24";
+    static final String HOURS_7_DAYS = "168";
+    static final String HOURS_16_DAYS = "384";
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 0, 0);
+    private static final long SEED = 54;
+
+    private MarinePayloads() {
+    }
+
+    /**
+     * @return the body of a single location response of the given number of
+     *         hours.
+     */
+    static String marineResponse(int hours) {
+        var random = new Random(SEED);
+        var body = new StringBuilder(hours * 64);
+
+        body.append("{\"latitude\":54.5,\"longitude\":10.0,\"generationtime_ms\":0.05,\"utc_offset_seconds\":0,")
+                .append("\"timezone\":\"GMT\",\"timezone_abbreviation\":\"GMT\",\"elevation\":0.0,")
+                .append("\"hourly_units\":{\"time\":\"iso8601\",\"wave_height\":\"m\",\"wave_period\":\"s\",")
+                .append("\"swell_wave_height\":\"m\",\"swell_wave_period\":\"s\"},\"hourly\":{\"time\":[");
+
+        for (int i = 0; i < hours; i++) {
+            body.append(i == 0 ? "\"" : ",\"").append(START.plusHours(i)).append('"');
+        }
+
+        appendSeries(body, "wave_height", hours, random, 0.5, 3);
+        appendSeries(body, "wave_period", hours, random, 4, 8);
+        appendSeries(body, "swell_wave_height", hours, random, 0.2, 2);
+        appendSeries(body, "swell_wave_period", hours, random, 8, 8);
+
+        return body.append("]}}").toString();
+    }
+
+    /**
+     * @return a series of the given number of hours with values between the
+     *         minimum and the minimum plus the range, to two decimals.
+     */
+    static List<BigDecimal> series(int hours, double minimum, double range) {
+        var random = new Random(SEED + hours);
+        var series = new ArrayList<BigDecimal>(hours);
+
+        for (int i = 0; i < hours; i++) {
+            series.add(value(random, minimum, range));
+        }
+
+        return series;
+    }
+
+    private static void appendSeries(StringBuilder body, String name, int hours, Random random, double minimum,
+            double range) {
+        body.append("],\"").append(name).append("\":[");
+
+        for (int i = 0; i < hours; i++) {
+            body.append(i == 0 ? "" : ",").append(value(random, minimum, range).toPlainString());
+        }
+    }
+
+    private static BigDecimal value(Random random, double minimum, double range) {
+        return BigDecimal.valueOf(minimum + random.nextDouble() * range).setScale(2, RoundingMode.HALF_UP);
+    }
+}
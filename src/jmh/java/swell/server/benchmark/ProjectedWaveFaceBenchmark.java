@@ -0,0 +1,63 @@
+package swell.server.benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import swell.server.model.SurfForecast;
+import swell.server.service.SurfSwellService;
+
+/**
+ * The projected wave face over boxed decimals, as
+ * {@link SurfSwellService#calculateProjectedWaveFace(List, List)} computes it,
+ * against the primitive series of {@link SurfForecast}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectedWaveFaceBenchmark {
+
+    @Param({ MarinePayloads.HOURS_24, MarinePayloads.HOURS_7_DAYS, MarinePayloads.HOURS_16_DAYS })
+    public int hours;
+
+    private SurfSwellService surfSwellService;
+    private List<BigDecimal> waveHeight;
+    private List<BigDecimal> swellHeight;
+    private double[] waveHeightSeries;
+    private double[] swellHeightSeries;
+
+    @Setup
+    public void setup() {
+        Services.quietLogging();
+        surfSwellService = Services.surfSwellService(MarinePayloads.marineResponse(hours));
+        waveHeight = MarinePayloads.series(hours, 0.5, 3);
+        swellHeight = MarinePayloads.series(hours, 0.2, 2);
+        waveHeightSeries = waveHeight.stream().mapToDouble(BigDecimal::doubleValue).toArray();
+        swellHeightSeries = swellHeight.stream().mapToDouble(BigDecimal::doubleValue).toArray();
+    }
+
+    @Benchmark
+    public List<BigDecimal> calculateProjectedWaveFace() {
+        return surfSwellService.calculateProjectedWaveFace(waveHeight, swellHeight);
+    }
+
+    @Benchmark
+    public double[] surfForecastProjectedWaveFace() {
+        return SurfForecast.projectedWaveFace(waveHeightSeries, swellHeightSeries);
+    }
+}
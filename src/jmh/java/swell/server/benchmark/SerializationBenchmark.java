@@ -0,0 +1,68 @@
+package swell.server.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import swell.server.codec.SurfForecastJsonSerializer;
+import swell.server.model.OceanicDataDTO;
+import swell.server.model.OpenMateoOceanicWaveDataDTO;
+import swell.server.model.SurfForecast;
+
+/**
+ * Writing a forecast as JSON, by Jackson from an {@link OceanicDataDTO} against
+ * {@link SurfForecastJsonSerializer} straight from a {@link SurfForecast}, both
+ * producing the same document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({ MarinePayloads.HOURS_24, MarinePayloads.HOURS_7_DAYS, MarinePayloads.HOURS_16_DAYS })
+    public int hours;
+
+    private ObjectMapper objectMapper;
+    private SurfForecast forecast;
+    private OceanicDataDTO oceanicData;
+
+    @Setup
+    public void setup() throws Exception {
+        Services.quietLogging();
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .serializerByType(SurfForecast.class, new SurfForecastJsonSerializer(new SimpleMeterRegistry()))
+                .build();
+        forecast = SurfForecast.from(objectMapper.readValue(
+                MarinePayloads.marineResponse(hours).getBytes(StandardCharsets.UTF_8),
+                OpenMateoOceanicWaveDataDTO.class));
+        oceanicData = forecast.toOceanicDataDTO();
+    }
+
+    @Benchmark
+    public byte[] oceanicDataDTO() throws Exception {
+        return objectMapper.writeValueAsBytes(oceanicData);
+    }
+
+    @Benchmark
+    public byte[] surfForecastJsonSerializer() throws Exception {
+        return objectMapper.writeValueAsBytes(forecast);
+    }
+}
@@ -0,0 +1,81 @@
+package swell.server.benchmark;
+
+import java.util.Map;
+
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Mono;
+import swell.server.cache.ForecastCache;
+import swell.server.cache.ForecastPopularity;
+import swell.server.cache.ForecastStore;
+import swell.server.codec.SurfForecastDecoder;
+import swell.server.config.SurfSwellProperties;
+import swell.server.peer.ForecastPeers;
+import swell.server.resilience.UpstreamGuard;
+import swell.server.search.LocationIndex;
+import swell.server.service.SurfSwellService;
+
+/**
+ * Wires the services benchmarked without starting the application.
+ */
+final class Services {
+
+    /**
+     * Settings letting every call through to the stub, uncached.
+     */
+    private static final Map<String, String> PROPERTIES = Map.of(
+            "cache.enabled", "false",
+            "resilience.permits-per-second", "1000000000",
+            "resilience.burst", "1000000",
+            "resilience.maximum-retries", "0",
+            "resilience.hedge-delay", "0");
+
+    private Services() {
+    }
+
+    /**
+     * Turns logging down to warnings, since without the application setting it up
+     * every debug message would be written and measured.
+     */
+    static void quietLogging() {
+        LoggingSystem.get(Services.class.getClassLoader()).setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.WARN);
+    }
+
+    /**
+     * @return a {@link SurfSwellService} whose Open-Mateo calls are all answered
+     *         with the response body.
+     */
+    static SurfSwellService surfSwellService(String responseBody) {
+        var source = new MapConfigurationPropertySource();
+        PROPERTIES.forEach((name, value) -> source.put("swell.server." + name, value));
+
+        var properties = new Binder(source).bindOrCreate("swell.server", SurfSwellProperties.class);
+        var meterRegistry = new SimpleMeterRegistry();
+        var exchangeStrategies = ExchangeStrategies.builder()
+                .codecs(configurer -> configurer.customCodecs().register(new SurfForecastDecoder(meterRegistry)))
+                .build();
+        var webClient = WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK, exchangeStrategies)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(responseBody)
+                        .build()))
+                .build();
+
+        return new SurfSwellService(webClient,
+                new ForecastCache(properties, new ForecastStore(properties), meterRegistry),
+                new ForecastPopularity(properties), new LocationIndex(properties),
+                new UpstreamGuard(properties, ObservationRegistry.NOOP, meterRegistry),
+                new ForecastPeers(properties, webClient, meterRegistry), properties, meterRegistry);
+    }
+}
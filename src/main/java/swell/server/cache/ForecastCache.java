@@ -0,0 +1,273 @@
+package swell.server.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import swell.server.config.SurfSwellProperties;
+import swell.server.constant.SurfSwellConstants;
+import swell.server.model.SurfForecast;
+
+/**
+ * Size bounded in-memory cache of Open-Mateo forecasts. Entries go stale at the
+ * next hourly model update and may then be served for a short while longer
+ * while a fresh forecast is fetched in the background. Past that window they
+ * are kept until the stale-if-error window ends, to be served marked as stale
+ * when a fresh forecast cannot be fetched. When enabled, the
+ * {@link ForecastStore} keeps a copy of every entry on disk.
+ */
+@Slf4j
+@Component
+public class ForecastCache {
+
+    private final SurfSwellProperties.Cache properties;
+    private final Clock clock;
+    private final ForecastStore store;
+    private final Cache<ForecastKey, CachedForecast> cache;
+    private final Set<ForecastKey> revalidating = ConcurrentHashMap.newKeySet();
+    private final Counter staleCounter;
+    private final Counter staleIfErrorCounter;
+    private final Counter prefetchHitCounter;
+    private final LongAdder lookups = new LongAdder();
+
+    @Autowired
+    public ForecastCache(SurfSwellProperties properties, ForecastStore store, MeterRegistry meterRegistry) {
+        this(properties.cache(), store, meterRegistry, Clock.systemUTC());
+    }
+
+    public ForecastCache(SurfSwellProperties.Cache properties, ForecastStore store, MeterRegistry meterRegistry,
+            Clock clock) {
+        this.properties = properties;
+        this.clock = clock;
+        this.store = store;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfter(new UntilStaleWindowEnds())
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .recordStats()
+                .build();
+        this.staleCounter = meterRegistry.counter(SurfSwellConstants.Metrics.FORECAST_CACHE_STALE);
+        this.staleIfErrorCounter = meterRegistry.counter(SurfSwellConstants.Metrics.FORECAST_CACHE_STALE_IF_ERROR);
+        this.prefetchHitCounter = meterRegistry.counter(SurfSwellConstants.Metrics.FORECAST_PREFETCH_HITS);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, SurfSwellConstants.Metrics.FORECAST_CACHE);
+        Gauge.builder(SurfSwellConstants.Metrics.FORECAST_PREFETCH_HIT_RATIO, this, ForecastCache::prefetchHitRatio)
+                .description("Share of forecast lookups answered by a prefetched forecast")
+                .register(meterRegistry);
+        Gauge.builder(SurfSwellConstants.Metrics.FORECAST_CACHE_REVALIDATING, revalidating, Set::size)
+                .description("Stale forecasts being fetched again in the background")
+                .register(meterRegistry);
+        Gauge.builder(SurfSwellConstants.Metrics.FORECAST_STORE_ENTRIES, store, ForecastStore::size)
+                .description("Forecasts held by the forecast store")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the key of the cached forecast for the coordinates and variables.
+     */
+    public ForecastKey key(String latitude, String longitude, String variables) {
+        return ForecastKey.of(latitude, longitude, variables,
+                properties.enabled() ? properties.gridResolution() : 0);
+    }
+
+    /**
+     * Looks up the forecast of the key, falling back to the loader on a miss. A
+     * stale forecast is returned as is while the loader refreshes it in the
+     * background. Past the stale-while-revalidate window the loader is waited
+     * for, and the stale forecast is only returned, marked as such, when the
+     * loader fails.
+     * 
+     * @param key    of the desired forecast.
+     * @param loader fetching the forecast from Open-Mateo.
+     * 
+     * @return a {@link Mono} of the cached or freshly loaded forecast.
+     */
+    public Mono<SurfForecast> get(ForecastKey key, Function<ForecastKey, Mono<SurfForecast>> loader) {
+        if (!properties.enabled()) {
+            return loader.apply(key);
+        }
+
+        var cached = lookup(key);
+        lookups.increment();
+
+        if (cached == null) {
+            return load(key, loader);
+        }
+
+        // Only the first hit is owed to the prefetch, the entry was requested anyway
+        // from then on.
+        if (cached.prefetched()
+                && cache.asMap().replace(key, cached, new CachedForecast(cached.forecast(), cached.staleAt(), false))) {
+            prefetchHitCounter.increment();
+        }
+
+        if (!clock.instant().isBefore(cached.staleAt().plus(properties.staleWhileRevalidate()))) {
+            return load(key, loader).onErrorResume(e -> {
+                log.warn("Serving the stale forecast of {} as it could not be fetched: {}", key, e.getMessage());
+                staleIfErrorCounter.increment();
+
+                return Mono.just(cached.forecast().withStale(true));
+            });
+        }
+
+        if (!clock.instant().isBefore(cached.staleAt())) {
+            staleCounter.increment();
+            revalidate(key, loader);
+        }
+
+        return Mono.just(cached.forecast());
+    }
+
+    /**
+     * @return whether the forecast of the key can be served without waiting for
+     *         Open-Mateo, fresh or within the stale-while-revalidate window. The
+     *         check is not counted as a lookup.
+     */
+    public boolean contains(ForecastKey key) {
+        var cached = properties.enabled() ? cache.asMap().get(key) : null;
+
+        return cached != null && clock.instant().isBefore(cached.staleAt().plus(properties.staleWhileRevalidate()));
+    }
+
+    /**
+     * @return the cached forecast of the key, or {@code null} when it is missing or
+     *         stale.
+     */
+    public SurfForecast getIfFresh(ForecastKey key) {
+        var cached = properties.enabled() ? lookup(key) : null;
+
+        return cached == null || !clock.instant().isBefore(cached.staleAt()) ? null : cached.forecast();
+    }
+
+    /**
+     * @return the last forecast cached for the key marked as stale, for when a
+     *         fresh one could not be fetched, or {@code null} when none is kept.
+     */
+    public SurfForecast getIfError(ForecastKey key) {
+        var cached = properties.enabled() ? lookup(key) : null;
+
+        if (cached == null) {
+            return null;
+        }
+
+        staleIfErrorCounter.increment();
+
+        return cached.forecast().withStale(true);
+    }
+
+    /**
+     * Caches a forecast fetched outside of {@link #get(ForecastKey, Function)}.
+     * 
+     * @param prefetched whether the forecast was fetched ahead of demand rather
+     *                   than for a request.
+     */
+    public void put(ForecastKey key, SurfForecast forecast, boolean prefetched) {
+        if (properties.enabled()) {
+            var staleAt = nextModelUpdate();
+
+            cache.put(key, new CachedForecast(forecast, staleAt, prefetched));
+            store.put(key, forecast, staleAt);
+        }
+    }
+
+    /**
+     * @return the cached forecast of the key, restored from the
+     *         {@link ForecastStore} when it is only held there.
+     */
+    private CachedForecast lookup(ForecastKey key) {
+        var cached = cache.getIfPresent(key);
+
+        if (cached == null) {
+            var stored = store.get(key);
+
+            if (stored != null) {
+                cached = new CachedForecast(stored.forecast(), stored.staleAt(), false);
+                cache.put(key, cached);
+            }
+        }
+
+        return cached;
+    }
+
+    private double prefetchHitRatio() {
+        var lookupCount = lookups.sum();
+
+        return lookupCount == 0 ? 0 : prefetchHitCounter.count() / lookupCount;
+    }
+
+    private Mono<SurfForecast> load(ForecastKey key, Function<ForecastKey, Mono<SurfForecast>> loader) {
+        return loader.apply(key).doOnNext(forecast -> put(key, forecast, false));
+    }
+
+    private void revalidate(ForecastKey key, Function<ForecastKey, Mono<SurfForecast>> loader) {
+        if (!revalidating.add(key)) {
+            return;
+        }
+
+        load(key, loader)
+                .doFinally(signal -> revalidating.remove(key))
+                .subscribe(forecast -> {
+                }, e -> log.warn("Could not revalidate the forecast of {}", key, e));
+    }
+
+    /**
+     * @return the start of the next hour, when Open-Mateo publishes new model
+     *         data.
+     */
+    private Instant nextModelUpdate() {
+        return clock.instant().truncatedTo(ChronoUnit.HOURS).plus(1, ChronoUnit.HOURS);
+    }
+
+    /**
+     * A cached forecast along with the moment it stops being fresh, and whether it
+     * was prefetched and not requested since.
+     */
+    private record CachedForecast(SurfForecast forecast, Instant staleAt, boolean prefetched) {
+    }
+
+    /**
+     * Evicts forecasts once both the stale-while-revalidate and stale-if-error
+     * windows after their model update have passed.
+     */
+    private class UntilStaleWindowEnds implements Expiry<ForecastKey, CachedForecast> {
+
+        @Override
+        public long expireAfterCreate(ForecastKey key, CachedForecast value, long currentTime) {
+            var untilEviction = Duration.between(clock.instant(), value.staleAt())
+                    .plus(properties.retention());
+
+            return Math.max(0, untilEviction.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(ForecastKey key, CachedForecast value, long currentTime,
+                long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ForecastKey key, CachedForecast value, long currentTime,
+                long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package swell.server.cache;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+/**
+ * Identifies a cached forecast by its grid snapped coordinates and the hourly
+ * variables requested from Open-Mateo.
+ */
+public record ForecastKey(String latitude, String longitude, String variables) {
+
+    /**
+     * @param gridResolution the size in degrees of the grid cells, or {@code 0} to
+     *                       keep the coordinates as they are.
+     * 
+     * @return the {@link ForecastKey} of the grid cell the coordinates fall in.
+     */
+    public static ForecastKey of(String latitude, String longitude, String variables, double gridResolution) {
+        return new ForecastKey(snap(latitude, gridResolution), snap(longitude, gridResolution), variables);
+    }
+
+    /**
+     * @return the coordinate rounded to the nearest multiple of the grid
+     *         resolution. Values that are not numbers are returned untouched.
+     */
+    static String snap(String coordinate, double gridResolution) {
+        if (gridResolution <= 0 || !NumberUtils.isParsable(coordinate)) {
+            return coordinate;
+        }
+
+        var resolution = BigDecimal.valueOf(gridResolution);
+
+        return new BigDecimal(coordinate).divide(resolution, 0, RoundingMode.HALF_UP).multiply(resolution)
+                .stripTrailingZeros().toPlainString();
+    }
+}
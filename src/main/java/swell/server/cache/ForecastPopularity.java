@@ -0,0 +1,72 @@
+package swell.server.cache;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import swell.server.config.SurfSwellProperties;
+
+/**
+ * Counts how often each {@link ForecastKey} is requested, so the most popular
+ * forecasts can be refreshed ahead of demand. Counts are halved every time the
+ * hottest keys are taken, letting interest in a location fade over time.
+ */
+@Component
+public class ForecastPopularity {
+
+    private final SurfSwellProperties.Prefetch properties;
+    private final ConcurrentMap<ForecastKey, LongAdder> requestCounts = new ConcurrentHashMap<>();
+
+    public ForecastPopularity(SurfSwellProperties properties) {
+        this.properties = properties.prefetch();
+    }
+
+    /**
+     * Counts a request for the key. New keys are ignored once the maximum number
+     * of tracked keys is reached, until older ones have faded.
+     */
+    public void record(ForecastKey key) {
+        var count = requestCounts.get(key);
+
+        if (count == null) {
+            if (requestCounts.size() >= properties.maximumTracked()) {
+                return;
+            }
+
+            count = requestCounts.computeIfAbsent(key, k -> new LongAdder());
+        }
+
+        count.increment();
+    }
+
+    /**
+     * @param limit the maximum number of keys returned.
+     * 
+     * @return the most requested keys, most popular first, after which every count
+     *         is halved and keys no longer requested are forgotten.
+     */
+    public List<ForecastKey> takeHottest(int limit) {
+        var hottest = requestCounts.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<ForecastKey, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+
+        requestCounts.entrySet().removeIf(entry -> {
+            var count = entry.getValue();
+            var halved = count.sumThenReset() / 2;
+
+            count.add(halved);
+            return halved == 0;
+        });
+
+        return hottest;
+    }
+}
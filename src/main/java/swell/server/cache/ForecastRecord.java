@@ -0,0 +1,195 @@
+package swell.server.cache;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import swell.server.model.SurfForecast;
+
+/**
+ * Binary, columnar layout of a forecast in a {@link ForecastStore} segment:
+ *
+ * <pre>
+ * int    length of the rest of the record, written last so a torn write reads as 0
+ * long   epoch millisecond the forecast goes stale
+ * string key latitude, key longitude, key variables
+ * string latitude, longitude, elevation
+ * long   epoch second of the first hour
+ * int    step in seconds
+ * int    number of hours
+ * byte   bit set of the variables present
+ * float  one series of hours per variable present
+ * </pre>
+ *
+ * Strings are a {@code short} byte count, {@code -1} for {@code null}, followed
+ * by their UTF-8 bytes. The projected wave face is derived again when read.
+ */
+final class ForecastRecord {
+
+    /**
+     * Size of the length prefix of every record.
+     */
+    static final int LENGTH_BYTES = Integer.BYTES;
+
+    private static final int WAVE_HEIGHT = 1;
+    private static final int WAVE_PERIOD = 1 << 1;
+    private static final int SWELL_WAVE_HEIGHT = 1 << 2;
+    private static final int SWELL_WAVE_PERIOD = 1 << 3;
+
+    private ForecastRecord() {
+    }
+
+    /**
+     * The header of a record, read without decoding its series.
+     */
+    record Header(ForecastKey key, long staleAtEpochMilli, int length) {
+    }
+
+    /**
+     * @return the encoded record, length prefix included.
+     */
+    static byte[] encode(ForecastKey key, SurfForecast forecast, long staleAtEpochMilli) {
+        var strings = new byte[][] { utf8(key.latitude()), utf8(key.longitude()), utf8(key.variables()),
+                utf8(forecast.latitude()), utf8(forecast.longitude()),
+                utf8(forecast.elevation() == null ? null : forecast.elevation().toPlainString()) };
+        var series = new double[][] { forecast.waveHeight(), forecast.wavePeriod(), forecast.swellWaveHeight(),
+                forecast.swellWavePeriod() };
+        var size = LENGTH_BYTES + Long.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES + Byte.BYTES;
+
+        for (var string : strings) {
+            size += Short.BYTES + (string == null ? 0 : string.length);
+        }
+
+        var present = 0;
+
+        for (int i = 0; i < series.length; i++) {
+            if (series[i] != null) {
+                present |= 1 << i;
+                size += forecast.length() * Float.BYTES;
+            }
+        }
+
+        var buffer = ByteBuffer.allocate(size);
+        buffer.putInt(size - LENGTH_BYTES).putLong(staleAtEpochMilli);
+
+        for (var string : strings) {
+            putString(buffer, string);
+        }
+
+        buffer.putLong(forecast.startEpochSecond()).putInt(forecast.stepSeconds()).putInt(forecast.length())
+                .put((byte) present);
+
+        for (var values : series) {
+            if (values != null) {
+                for (int i = 0; i < forecast.length(); i++) {
+                    buffer.putFloat(i < values.length ? (float) values[i] : Float.NaN);
+                }
+            }
+        }
+
+        return buffer.array();
+    }
+
+    /**
+     * @param record positioned at the start of a record.
+     *
+     * @return the header of the record, or {@code null} when no complete record
+     *         starts there.
+     */
+    static Header readHeader(ByteBuffer record) {
+        if (record.remaining() < LENGTH_BYTES) {
+            return null;
+        }
+
+        var length = record.getInt();
+
+        if (length <= 0 || length > record.remaining()) {
+            return null;
+        }
+
+        var staleAt = record.getLong();
+        var key = new ForecastKey(getString(record), getString(record), getString(record));
+
+        return new Header(key, staleAt, length);
+    }
+
+    /**
+     * @param record positioned at the start of a record.
+     *
+     * @return the forecast held by the record.
+     */
+    static SurfForecast decode(ByteBuffer record) {
+        readHeader(record);
+
+        var latitude = getString(record);
+        var longitude = getString(record);
+        var elevation = getString(record);
+        var startEpochSecond = record.getLong();
+        var stepSeconds = record.getInt();
+        var length = record.getInt();
+        var present = record.get();
+        var waveHeight = getSeries(record, present, WAVE_HEIGHT, length);
+        var wavePeriod = getSeries(record, present, WAVE_PERIOD, length);
+        var swellWaveHeight = getSeries(record, present, SWELL_WAVE_HEIGHT, length);
+        var swellWavePeriod = getSeries(record, present, SWELL_WAVE_PERIOD, length);
+
+        return SurfForecast.builder()
+                .latitude(latitude)
+                .longitude(longitude)
+                .elevation(elevation == null ? null : new BigDecimal(elevation))
+                .startEpochSecond(startEpochSecond)
+                .stepSeconds(stepSeconds)
+                .length(length)
+                .waveHeight(waveHeight)
+                .wavePeriod(wavePeriod)
+                .swellWaveHeight(swellWaveHeight)
+                .swellWavePeriod(swellWavePeriod)
+                .projectedWaveFace(SurfForecast.projectedWaveFace(waveHeight, swellWaveHeight))
+                .build();
+    }
+
+    /**
+     * Widens the stored floats back to the shortest decimal they stand for, so a
+     * value such as {@code 1.23} reads back as exactly the {@code double} it was
+     * written from.
+     */
+    private static double[] getSeries(ByteBuffer record, int present, int variable, int length) {
+        if ((present & variable) == 0) {
+            return null;
+        }
+
+        var series = new double[length];
+
+        for (int i = 0; i < length; i++) {
+            var value = record.getFloat();
+            series[i] = Float.isNaN(value) ? Double.NaN : Double.parseDouble(Float.toString(value));
+        }
+
+        return series;
+    }
+
+    private static byte[] utf8(String string) {
+        return string == null ? null : string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] string) {
+        if (string == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) string.length).put(string);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        var length = buffer.getShort();
+
+        if (length < 0) {
+            return null;
+        }
+
+        var bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,289 @@
+package swell.server.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import swell.server.config.SurfSwellProperties;
+import swell.server.model.SurfForecast;
+
+/**
+ * Optional persistence under the {@link ForecastCache}, so a restarted server
+ * starts warm. Forecasts are appended as {@link ForecastRecord}s to memory
+ * mapped segment files. At startup only the record headers are scanned to
+ * rebuild the index of where the latest forecast of each key lives, and the
+ * series are decoded when first requested. Segments left mostly holding
+ * expired or overwritten forecasts are compacted in the background.
+ */
+@Slf4j
+@Component
+public class ForecastStore {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private final SurfSwellProperties.Store properties;
+    private final Duration retention;
+    private final Clock clock;
+    private final ConcurrentMap<ForecastKey, Location> index = new ConcurrentHashMap<>();
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment active;
+
+    @Autowired
+    public ForecastStore(SurfSwellProperties properties) {
+        this(properties.store(), properties.cache().retention(), Clock.systemUTC());
+    }
+
+    /**
+     * @param retention how long forecasts are kept once stale, the same as the
+     *                  {@link ForecastCache} keeps them.
+     */
+    ForecastStore(SurfSwellProperties.Store properties, Duration retention, Clock clock) {
+        this.properties = properties;
+        this.retention = retention;
+        this.clock = clock;
+
+        if (properties.enabled()) {
+            open();
+        }
+    }
+
+    /**
+     * A stored forecast along with the moment it stops being fresh.
+     */
+    public record StoredForecast(SurfForecast forecast, Instant staleAt) {
+    }
+
+    /**
+     * @return the stored forecast of the key, or {@code null} when none is stored
+     *         or it has expired.
+     */
+    public StoredForecast get(ForecastKey key) {
+        var location = index.get(key);
+
+        if (location == null || isExpired(location.staleAtEpochMilli())) {
+            return null;
+        }
+
+        var record = location.segment().buffer.duplicate().position(location.offset());
+
+        return new StoredForecast(ForecastRecord.decode(record), Instant.ofEpochMilli(location.staleAtEpochMilli()));
+    }
+
+    /**
+     * @return the number of forecasts stored and not yet expired or compacted.
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Appends the forecast, superseding any forecast stored for the key.
+     */
+    public void put(ForecastKey key, SurfForecast forecast, Instant staleAt) {
+        if (!properties.enabled()) {
+            return;
+        }
+
+        var record = ForecastRecord.encode(key, forecast, staleAt.toEpochMilli());
+
+        if (record.length > properties.segmentSize().toBytes()) {
+            log.debug("The forecast of {} is too large to be stored", key);
+            return;
+        }
+
+        synchronized (this) {
+            index.put(key, append(record, staleAt.toEpochMilli()));
+        }
+    }
+
+    /**
+     * Forgets expired forecasts and rewrites the live forecasts of segments that
+     * are less than half live into the active segment, deleting the old ones.
+     */
+    @Scheduled(fixedDelayString = "${swell.server.store.compaction-interval:PT10M}")
+    public synchronized void compact() {
+        if (!properties.enabled()) {
+            return;
+        }
+
+        index.values().removeIf(location -> isExpired(location.staleAtEpochMilli()));
+
+        for (var segment : List.copyOf(segments)) {
+            if (segment == active) {
+                continue;
+            }
+
+            var live = index.entrySet().stream().filter(entry -> entry.getValue().segment() == segment).toList();
+            var liveBytes = live.stream().mapToLong(entry -> entry.getValue().length()).sum();
+
+            if (liveBytes * 2 >= segment.position) {
+                continue;
+            }
+
+            for (var entry : live) {
+                var location = entry.getValue();
+                var record = new byte[location.length()];
+
+                segment.buffer.get(location.offset(), record);
+                index.replace(entry.getKey(), location, append(record, location.staleAtEpochMilli()));
+            }
+
+            delete(segment);
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (active != null) {
+            active.buffer.force();
+        }
+    }
+
+    private static boolean isSegment(Path file) {
+        var name = file.getFileName().toString();
+
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private boolean isExpired(long staleAtEpochMilli) {
+        return !clock.instant().isBefore(Instant.ofEpochMilli(staleAtEpochMilli).plus(retention));
+    }
+
+    private void open() {
+        var start = System.nanoTime();
+
+        try {
+            Files.createDirectories(properties.directory());
+
+            try (var files = Files.list(properties.directory())) {
+                files.filter(ForecastStore::isSegment)
+                        .map(Segment::new)
+                        .sorted(Comparator.comparingLong(segment -> segment.id))
+                        .forEach(this::scan);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the forecast store " + properties.directory(), e);
+        }
+
+        if (segments.isEmpty()) {
+            roll();
+        } else {
+            active = segments.get(segments.size() - 1);
+        }
+
+        log.info("Indexed {} stored forecasts in {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Indexes the records of the segment up to the first incomplete one, where
+     * appending resumes.
+     */
+    private void scan(Segment segment) {
+        var buffer = segment.buffer.duplicate();
+
+        try {
+            ForecastRecord.Header header;
+
+            while ((header = ForecastRecord.readHeader(buffer.duplicate().position(segment.position))) != null) {
+                var recordLength = ForecastRecord.LENGTH_BYTES + header.length();
+
+                if (!isExpired(header.staleAtEpochMilli())) {
+                    index.put(header.key(), new Location(segment, segment.position, recordLength,
+                            header.staleAtEpochMilli()));
+                }
+
+                segment.position += recordLength;
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("Ignoring the corrupt end of {}", segment.path, e);
+        }
+
+        segments.add(segment);
+    }
+
+    private Location append(byte[] record, long staleAtEpochMilli) {
+        if (active.position + record.length > active.buffer.capacity()) {
+            roll();
+        }
+
+        var offset = active.position;
+
+        // The length prefix is written last, so a torn record reads as the end.
+        active.buffer.put(offset + ForecastRecord.LENGTH_BYTES, record, ForecastRecord.LENGTH_BYTES,
+                record.length - ForecastRecord.LENGTH_BYTES);
+        active.buffer.put(offset, record, 0, ForecastRecord.LENGTH_BYTES);
+        active.position += record.length;
+
+        return new Location(active, offset, record.length, staleAtEpochMilli);
+    }
+
+    private void roll() {
+        var id = active == null ? 0 : active.id + 1;
+
+        active = new Segment(properties.directory().resolve(SEGMENT_PREFIX + id + SEGMENT_SUFFIX));
+        segments.add(active);
+    }
+
+    private void delete(Segment segment) {
+        segments.remove(segment);
+
+        try {
+            // The mapping stays readable until it is garbage collected.
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            log.warn("Could not delete the compacted segment {}", segment.path, e);
+        }
+    }
+
+    /**
+     * Where the latest record of a key lives.
+     */
+    private record Location(Segment segment, int offset, int length, long staleAtEpochMilli) {
+    }
+
+    /**
+     * A segment file mapped in full, appended to up to its position.
+     */
+    private class Segment {
+
+        private final Path path;
+        private final long id;
+        private final MappedByteBuffer buffer;
+        private int position;
+
+        Segment(Path path) {
+            var name = path.getFileName().toString();
+
+            this.path = path;
+            this.id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+
+            try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        Math.max(channel.size(), properties.segmentSize().toBytes()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not map the forecast store segment " + path, e);
+            }
+        }
+    }
+}
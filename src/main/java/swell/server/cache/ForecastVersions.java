@@ -0,0 +1,122 @@
+package swell.server.cache;
+
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import swell.server.config.SurfSwellProperties;
+import swell.server.model.SurfForecast;
+
+/**
+ * Recently served forecasts by ETag, kept so that a client holding one of them
+ * can be sent only what changed since. The ETag of a response is the
+ * {@link SurfForecast#version()} of the forecast it was cut from followed by a
+ * hash of how it was cut, and the forecast kept is the one the client received.
+ */
+@Component
+public class ForecastVersions {
+
+    private static final String WEAK_PREFIX = "W/";
+    private static final String QUOTE = "\"";
+    private static final char SEPARATOR = '.';
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final Cache<String, SurfForecast> versions;
+
+    public ForecastVersions(SurfSwellProperties properties) {
+        this.versions = Caffeine.newBuilder()
+                .maximumWeight(properties.cache().maximumVersionValues())
+                .weigher((String etag, SurfForecast forecast) -> values(forecast))
+                .expireAfterWrite(properties.cache().versionRetention())
+                .build();
+    }
+
+    /**
+     * Keeps the forecast sent with the ETag as the base of later changes.
+     */
+    public void register(String etag, SurfForecast forecast) {
+        versions.asMap().putIfAbsent(tag(etag), forecast);
+    }
+
+    /**
+     * @param since the ETag, quoted or not.
+     *
+     * @return the forecast sent with the ETag, or {@code null} when it is unknown
+     *         or no longer kept.
+     */
+    public SurfForecast get(String since) {
+        return versions.getIfPresent(tag(since));
+    }
+
+    /**
+     * @param version of the forecast the response is cut from.
+     * @param variant whatever else shapes the response, e.g. its hours, variables
+     *                and media type, each with a stable {@code toString()}.
+     *
+     * @return the weak ETag of the response. Weak since the embedded server does
+     *         not compress responses with a strong one, gzip changing their bytes.
+     */
+    public static String etag(String version, Object... variant) {
+        var hash = FNV_OFFSET_BASIS;
+
+        for (var character : Arrays.deepToString(variant).toCharArray()) {
+            hash = (hash ^ character) * FNV_PRIME;
+        }
+
+        return WEAK_PREFIX + QUOTE + version + SEPARATOR + HexFormat.of().toHexDigits(hash) + QUOTE;
+    }
+
+    /**
+     * @return whether the {@code If-None-Match} header lists the ETag, weak
+     *         comparison applying as for {@code GET} requests.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (var candidate : StringUtils.split(ifNoneMatch, ',')) {
+            var tag = tag(candidate);
+
+            if (tag.equals("*") || tag.equals(tag(etag))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the number of hourly values held by the forecast, which is what its
+     *         size grows with, at least one for the entry itself.
+     */
+    static int values(SurfForecast forecast) {
+        var values = 1;
+
+        for (var series : new double[][] { forecast.waveHeight(), forecast.wavePeriod(),
+                forecast.swellWaveHeight(), forecast.swellWavePeriod(), forecast.projectedWaveFace() }) {
+            values += series == null ? 0 : series.length;
+        }
+
+        if (forecast.metrics() != null) {
+            for (var metric : forecast.metrics().values()) {
+                values += metric.length;
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * @return the ETag without its weak prefix and quotes.
+     */
+    private static String tag(String etag) {
+        return StringUtils.strip(StringUtils.removeStart(etag.strip(), WEAK_PREFIX), QUOTE);
+    }
+}
@@ -0,0 +1,59 @@
+package swell.server.codec;
+
+import java.util.regex.Pattern;
+
+import org.springframework.core.convert.converter.Converter;
+
+import swell.server.model.LocationDTO;
+
+/**
+ * Reads a {@link LocationDTO} passed as a single request parameter, either
+ * {@code latitude,longitude} or {@code name,latitude,longitude}. The name may
+ * itself hold commas, the coordinates are always the last two values. They are
+ * plain decimal degrees, latitudes within 90 and longitudes within 180 either
+ * way.
+ */
+public class LocationConverter implements Converter<String, LocationDTO> {
+
+    private static final String FORMAT = "A location is given as [name,]latitude,longitude: ";
+    private static final String RANGE = "Latitudes are within -90 and 90, longitudes within -180 and 180: ";
+
+    /**
+     * Decimal degrees, unlike {@link Double#parseDouble(String)} leaving out
+     * {@code NaN}, {@code Infinity}, exponents, hexadecimal values and type
+     * suffixes.
+     */
+    private static final Pattern DECIMAL = Pattern.compile("-?\\d{1,3}(\\.\\d+)?");
+
+    @Override
+    public LocationDTO convert(String source) {
+        var longitudeStart = source.lastIndexOf(',');
+
+        if (longitudeStart < 0) {
+            throw new IllegalArgumentException(FORMAT + source);
+        }
+
+        var latitudeStart = source.lastIndexOf(',', longitudeStart - 1);
+
+        var name = latitudeStart < 0 ? null : source.substring(0, latitudeStart).strip();
+        var latitude = source.substring(latitudeStart + 1, longitudeStart).strip();
+        var longitude = source.substring(longitudeStart + 1).strip();
+
+        if (!DECIMAL.matcher(latitude).matches() || !DECIMAL.matcher(longitude).matches()) {
+            throw new IllegalArgumentException(FORMAT + source);
+        }
+
+        if (!isWithin(latitude, 90) || !isWithin(longitude, 180)) {
+            throw new IllegalArgumentException(RANGE + source);
+        }
+
+        return new LocationDTO(name == null || name.isEmpty() ? null : name, latitude, longitude);
+    }
+
+    /**
+     * @param bound the largest coordinate allowed, either way.
+     */
+    private static boolean isWithin(String decimal, double bound) {
+        return Math.abs(Double.parseDouble(decimal)) <= bound;
+    }
+}
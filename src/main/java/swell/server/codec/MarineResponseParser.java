@@ -0,0 +1,306 @@
+package swell.server.codec;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.core.codec.DecodingException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+
+import io.micrometer.core.instrument.Timer;
+import swell.server.constant.SurfSwellConstants;
+import swell.server.model.SurfForecast;
+
+/**
+ * Incrementally parses an Open-Mateo marine response into {@link SurfForecast}s
+ * as chunks of it arrive. The response is either a single location object or,
+ * when several coordinates were requested, an array of them. Hourly series are
+ * read straight into primitive columns, and every field that is not part of a
+ * {@link SurfForecast} is skipped without being materialized. Forecasts
+ * relayed by another replica may also be marked {@code stale} in their hourly
+ * object.
+ */
+class MarineResponseParser {
+
+    private static final String HOURLY = "hourly";
+    private static final String ELEVATION = "elevation";
+    private static final int DEFAULT_STEP_SECONDS = 3600;
+    private static final int INITIAL_CAPACITY = 7 * 24;
+
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private final Timer waveFaceTimer;
+    private final List<SurfForecast> completed = new ArrayList<>();
+    private long busyNanos;
+
+    private int depth;
+    /**
+     * Depth of the location objects, {@code 2} when the response is an array of
+     * them.
+     */
+    private int locationDepth = 1;
+    private String field;
+    private boolean inHourly;
+    private boolean inTime;
+    private Column column;
+    private Location location;
+
+    /**
+     * @param waveFaceTimer timing the projected wave face of each location.
+     */
+    MarineResponseParser(JsonFactory jsonFactory, Timer waveFaceTimer) {
+        this.waveFaceTimer = waveFaceTimer;
+
+        try {
+            this.parser = jsonFactory.createNonBlockingByteBufferParser();
+            this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        } catch (IOException e) {
+            throw new DecodingException("Could not create the Open-Mateo response parser", e);
+        }
+    }
+
+    /**
+     * Parses every complete token of the chunk. The chunk may be reused by the
+     * caller once this returns.
+     *
+     * @return the forecasts of the locations completed by the chunk.
+     */
+    List<SurfForecast> feed(ByteBuffer chunk) {
+        var start = System.nanoTime();
+
+        try {
+            feeder.feedInput(chunk);
+            drain();
+        } catch (IOException e) {
+            throw new DecodingException("Could not parse the Open-Mateo response", e);
+        } finally {
+            busyNanos += System.nanoTime() - start;
+        }
+
+        return takeCompleted();
+    }
+
+    /**
+     * Signals the end of the response.
+     *
+     * @return the forecasts of the locations completed by the remaining input.
+     */
+    List<SurfForecast> finish() {
+        var start = System.nanoTime();
+
+        try {
+            feeder.endOfInput();
+            drain();
+            parser.close();
+        } catch (IOException e) {
+            throw new DecodingException("Could not parse the Open-Mateo response", e);
+        } finally {
+            busyNanos += System.nanoTime() - start;
+        }
+
+        return takeCompleted();
+    }
+
+    /**
+     * @return the time spent parsing so far, leaving out the time spent waiting
+     *         for chunks.
+     */
+    long busyNanos() {
+        return busyNanos;
+    }
+
+    private List<SurfForecast> takeCompleted() {
+        if (completed.isEmpty()) {
+            return List.of();
+        }
+
+        var forecasts = List.copyOf(completed);
+        completed.clear();
+
+        return forecasts;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            switch (token) {
+                case START_OBJECT -> {
+                    depth++;
+                    if (depth == locationDepth) {
+                        location = new Location();
+                    } else if (depth == locationDepth + 1) {
+                        inHourly = HOURLY.equals(field);
+                    }
+                }
+                case END_OBJECT -> {
+                    if (depth == locationDepth) {
+                        completed.add(location.build(waveFaceTimer));
+                        location = null;
+                    } else if (depth == locationDepth + 1) {
+                        inHourly = false;
+                    }
+                    depth--;
+                }
+                case START_ARRAY -> {
+                    depth++;
+                    if (depth == 1) {
+                        locationDepth = 2;
+                    } else if (inHourly && depth == locationDepth + 2) {
+                        startColumn();
+                    }
+                }
+                case END_ARRAY -> {
+                    if (depth == locationDepth + 2) {
+                        column = null;
+                        inTime = false;
+                    }
+                    depth--;
+                }
+                case FIELD_NAME -> field = parser.currentName();
+                default -> readValue(token);
+            }
+        }
+    }
+
+    private void startColumn() {
+        var capacity = location.length > 0 ? location.length : INITIAL_CAPACITY;
+
+        switch (field) {
+            case SurfSwellConstants.Parameters.TIME -> inTime = true;
+            case SurfSwellConstants.Parameters.WAVE_HEIGHT -> column = location.waveHeight = new Column(capacity);
+            case SurfSwellConstants.Parameters.WAVE_PERIOD -> column = location.wavePeriod = new Column(capacity);
+            case SurfSwellConstants.Parameters.SWELL_WAVE_HEIGHT ->
+                column = location.swellWaveHeight = new Column(capacity);
+            case SurfSwellConstants.Parameters.SWELL_WAVE_PERIOD ->
+                column = location.swellWavePeriod = new Column(capacity);
+            default -> column = null;
+        }
+    }
+
+    private void readValue(JsonToken token) throws IOException {
+        if (depth == locationDepth) {
+            readMetadata(token);
+        } else if (depth == locationDepth + 1 && inHourly && SurfSwellConstants.Parameters.STALE.equals(field)) {
+            location.stale = token == JsonToken.VALUE_TRUE;
+        } else if (depth == locationDepth + 2 && inTime) {
+            readTime(token);
+        } else if (depth == locationDepth + 2 && column != null) {
+            column.add(token == JsonToken.VALUE_NULL ? Double.NaN : parser.getDoubleValue());
+        }
+    }
+
+    private void readMetadata(JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return;
+        }
+
+        switch (field) {
+            case SurfSwellConstants.Parameters.LATITUDE -> location.latitude = parser.getText();
+            case SurfSwellConstants.Parameters.LONGITUDE -> location.longitude = parser.getText();
+            case ELEVATION -> location.elevation = parser.getDecimalValue();
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Only the first two timestamps are parsed, the rest of the axis follows from
+     * their step.
+     */
+    private void readTime(JsonToken token) throws IOException {
+        if (location.length < 2) {
+            var epochSecond = token == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue()
+                    : LocalDateTime.parse(parser.getText()).toEpochSecond(ZoneOffset.UTC);
+
+            if (location.length == 0) {
+                location.startEpochSecond = epochSecond;
+            } else {
+                location.secondEpochSecond = epochSecond;
+            }
+        }
+
+        location.length++;
+    }
+
+    /**
+     * The forecast of a location while it is being parsed.
+     */
+    private static class Location {
+
+        private String latitude;
+        private String longitude;
+        private BigDecimal elevation;
+        private long startEpochSecond;
+        private long secondEpochSecond;
+        private int length;
+        private Column waveHeight;
+        private Column wavePeriod;
+        private Column swellWaveHeight;
+        private Column swellWavePeriod;
+        private boolean stale;
+
+        SurfForecast build(Timer waveFaceTimer) {
+            if (waveHeight == null && wavePeriod == null && swellWaveHeight == null && swellWavePeriod == null) {
+                throw new DecodingException("The Open-Mateo response has no hourly forecast");
+            }
+
+            var waveHeightSeries = Column.toSeries(waveHeight);
+            var swellWaveHeightSeries = Column.toSeries(swellWaveHeight);
+
+            return SurfForecast.builder()
+                    .latitude(latitude)
+                    .longitude(longitude)
+                    .elevation(elevation)
+                    .startEpochSecond(startEpochSecond)
+                    .stepSeconds(length < 2 ? DEFAULT_STEP_SECONDS : (int) (secondEpochSecond - startEpochSecond))
+                    .length(length)
+                    .waveHeight(waveHeightSeries)
+                    .wavePeriod(Column.toSeries(wavePeriod))
+                    .swellWaveHeight(swellWaveHeightSeries)
+                    .swellWavePeriod(Column.toSeries(swellWavePeriod))
+                    .projectedWaveFace(waveFaceTimer.record(
+                            () -> SurfForecast.projectedWaveFace(waveHeightSeries, swellWaveHeightSeries)))
+                    .stale(stale)
+                    .build();
+        }
+    }
+
+    /**
+     * Growable {@code double} series.
+     */
+    private static class Column {
+
+        private double[] values;
+        private int size;
+
+        Column(int capacity) {
+            this.values = new double[capacity];
+        }
+
+        void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(INITIAL_CAPACITY, size * 2));
+            }
+
+            values[size++] = value;
+        }
+
+        static double[] toSeries(Column column) {
+            if (column == null) {
+                return null;
+            }
+
+            return column.size == column.values.length ? column.values : Arrays.copyOf(column.values, column.size);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package swell.server.codec;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import swell.server.constant.SurfSwellConstants;
+import swell.server.model.SurfForecast;
+import swell.server.observation.ForecastStage;
+
+/**
+ * Writes a {@link SurfForecast} as a compact binary message for clients sending
+ * {@code Accept: application/vnd.swell.forecast}. The time axis is sent as its
+ * origin and step, and every series as a column of either hundredths in a
+ * {@code short} when that holds each value exactly, or {@code float}s
+ * otherwise. All numbers are big endian:
+ *
+ * <pre>
+ * byte[4] magic "SWF" followed by the format version 1
+ * string  latitude, longitude, elevation
+ * long    epoch second of the first hour
+ * int     step in seconds
+ * int     number of hours
+ * byte    flags, bit 0 set when the forecast is stale
+ * byte    number of columns, each being:
+ *   string  name, e.g. wave_height or a derived metric
+ *   byte    0 for float32, 1 for int16 hundredths with -32768 as missing
+ *   values  one per hour, missing float32 values being NaN
+ * </pre>
+ *
+ * Strings are a {@code short} byte count, {@code -1} for {@code null}, followed
+ * by their UTF-8 bytes. Series that are {@code null} are left out.
+ */
+public class SurfForecastBinaryConverter extends AbstractHttpMessageConverter<SurfForecast> {
+
+    public static final MediaType SURF_FORECAST_BINARY = MediaType
+            .parseMediaType(SurfSwellConstants.MediaTypes.SURF_FORECAST_BINARY);
+
+    private static final byte[] MAGIC = { 'S', 'W', 'F', 1 };
+    private static final byte FLOAT32 = 0;
+    private static final byte INT16_HUNDREDTHS = 1;
+    private static final short MISSING = Short.MIN_VALUE;
+    private static final int STALE = 1;
+    private static final double HUNDREDTHS = 100;
+
+    private final Timer serializeTimer;
+
+    public SurfForecastBinaryConverter() {
+        this(Metrics.globalRegistry);
+    }
+
+    public SurfForecastBinaryConverter(MeterRegistry meterRegistry) {
+        super(SURF_FORECAST_BINARY);
+        this.serializeTimer = ForecastStage.SERIALIZE.timer(meterRegistry);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return SurfForecast.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected SurfForecast readInternal(Class<? extends SurfForecast> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Forecasts are only written as binary", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(SurfForecast forecast, HttpOutputMessage outputMessage) throws IOException {
+        var start = System.nanoTime();
+
+        try {
+            write(forecast, outputMessage);
+        } finally {
+            serializeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void write(SurfForecast forecast, HttpOutputMessage outputMessage) throws IOException {
+        var output = new DataOutputStream(new BufferedOutputStream(outputMessage.getBody()));
+        var columns = new LinkedHashMap<String, double[]>();
+
+        columns.put(SurfSwellConstants.Parameters.WAVE_HEIGHT, forecast.waveHeight());
+        columns.put(SurfSwellConstants.Parameters.WAVE_PERIOD, forecast.wavePeriod());
+        columns.put(SurfSwellConstants.Parameters.SWELL_WAVE_HEIGHT, forecast.swellWaveHeight());
+        columns.put(SurfSwellConstants.Parameters.SWELL_WAVE_PERIOD, forecast.swellWavePeriod());
+        columns.put(SurfSwellConstants.Parameters.PROJECTED_WAVE_FACE, forecast.projectedWaveFace());
+
+        if (forecast.metrics() != null) {
+            columns.putAll(forecast.metrics());
+        }
+
+        columns.values().removeIf(series -> series == null);
+
+        output.write(MAGIC);
+        writeString(output, forecast.latitude());
+        writeString(output, forecast.longitude());
+        writeString(output, forecast.elevation() == null ? null : forecast.elevation().toPlainString());
+        output.writeLong(forecast.startEpochSecond());
+        output.writeInt(forecast.stepSeconds());
+        output.writeInt(forecast.length());
+        output.writeByte(forecast.stale() ? STALE : 0);
+        output.writeByte(columns.size());
+
+        for (var column : columns.entrySet()) {
+            writeString(output, column.getKey());
+            writeColumn(output, column.getValue(), forecast.length());
+        }
+
+        output.flush();
+    }
+
+    private static void writeColumn(DataOutputStream output, double[] series, int length) throws IOException {
+        if (fitsHundredths(series)) {
+            output.writeByte(INT16_HUNDREDTHS);
+
+            for (int i = 0; i < length; i++) {
+                var value = i < series.length ? series[i] : Double.NaN;
+                output.writeShort(Double.isNaN(value) ? MISSING : (short) Math.rint(value * HUNDREDTHS));
+            }
+        } else {
+            output.writeByte(FLOAT32);
+
+            for (int i = 0; i < length; i++) {
+                output.writeFloat(i < series.length ? (float) series[i] : Float.NaN);
+            }
+        }
+    }
+
+    /**
+     * @return whether every value is a whole number of hundredths within the
+     *         range of a {@code short}, so quantizing it loses nothing.
+     */
+    private static boolean fitsHundredths(double[] series) {
+        for (var value : series) {
+            if (Double.isNaN(value)) {
+                continue;
+            }
+
+            var hundredths = Math.rint(value * HUNDREDTHS);
+
+            if (hundredths <= MISSING || hundredths > Short.MAX_VALUE || hundredths / HUNDREDTHS != value) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        if (string == null) {
+            output.writeShort(-1);
+        } else {
+            var bytes = string.getBytes(StandardCharsets.UTF_8);
+            output.writeShort(bytes.length);
+            output.write(bytes);
+        }
+    }
+}
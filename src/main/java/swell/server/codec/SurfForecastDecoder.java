@@ -0,0 +1,87 @@
+package swell.server.codec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import swell.server.model.SurfForecast;
+import swell.server.observation.ForecastStage;
+
+/**
+ * Decodes Open-Mateo marine responses into a {@link SurfForecast} while the
+ * body streams in, without buffering the whole payload or building an
+ * {@link swell.server.model.OpenMateoOceanicWaveDataDTO} first. The time spent
+ * parsing each response is recorded as its {@link ForecastStage#DECODE} stage.
+ */
+public class SurfForecastDecoder extends AbstractDecoder<SurfForecast> {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final Timer decodeTimer;
+    private final Timer waveFaceTimer;
+
+    public SurfForecastDecoder() {
+        this(Metrics.globalRegistry);
+    }
+
+    public SurfForecastDecoder(MeterRegistry meterRegistry) {
+        super(MediaType.APPLICATION_JSON);
+        this.decodeTimer = ForecastStage.DECODE.timer(meterRegistry);
+        this.waveFaceTimer = ForecastStage.PROJECTED_WAVE_FACE.timer(meterRegistry);
+    }
+
+    @Override
+    public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+        return SurfForecast.class.equals(elementType.toClass()) && super.canDecode(elementType, mimeType);
+    }
+
+    /**
+     * Emits the forecast of each location as soon as its part of the response has
+     * been parsed.
+     */
+    @Override
+    public Flux<SurfForecast> decode(Publisher<DataBuffer> inputStream, ResolvableType elementType,
+            MimeType mimeType, Map<String, Object> hints) {
+        return Flux.defer(() -> {
+            var parser = new MarineResponseParser(jsonFactory, waveFaceTimer);
+
+            return Flux.from(inputStream)
+                    .concatMapIterable(dataBuffer -> feed(parser, dataBuffer))
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(parser.finish())))
+                    .doOnComplete(() -> decodeTimer.record(parser.busyNanos(), TimeUnit.NANOSECONDS));
+        }).doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    @Override
+    public Mono<SurfForecast> decodeToMono(Publisher<DataBuffer> inputStream, ResolvableType elementType,
+            MimeType mimeType, Map<String, Object> hints) {
+        return decode(inputStream, elementType, mimeType, hints).singleOrEmpty();
+    }
+
+    private static List<SurfForecast> feed(MarineResponseParser parser, DataBuffer dataBuffer) {
+        var forecasts = new ArrayList<SurfForecast>();
+
+        try (var byteBuffers = dataBuffer.readableByteBuffers()) {
+            byteBuffers.forEachRemaining(byteBuffer -> forecasts.addAll(parser.feed(byteBuffer)));
+        } finally {
+            DataBufferUtils.release(dataBuffer);
+        }
+
+        return forecasts;
+    }
+}
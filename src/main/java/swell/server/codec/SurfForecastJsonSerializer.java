@@ -0,0 +1,202 @@
+package swell.server.codec;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jackson.JsonComponent;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import swell.server.constant.SurfSwellConstants;
+import swell.server.model.OceanicDataDTO;
+import swell.server.model.SurfForecast;
+import swell.server.observation.ForecastStage;
+
+/**
+ * Streams a {@link SurfForecast} straight from its primitive series, producing
+ * the same JSON as serializing its {@link OceanicDataDTO} without building the
+ * boxed lists first. Derived metrics, when present, follow as extra series, and
+ * stale forecasts end with {@code "stale":true}.
+ */
+@JsonComponent
+public class SurfForecastJsonSerializer extends JsonSerializer<SurfForecast> {
+
+    private static final SerializableString TIME = new SerializedString(SurfSwellConstants.Parameters.TIME);
+    private static final SerializableString WAVE_HEIGHT = new SerializedString(
+            SurfSwellConstants.Parameters.WAVE_HEIGHT);
+    private static final SerializableString WAVE_PERIOD = new SerializedString(
+            SurfSwellConstants.Parameters.WAVE_PERIOD);
+    private static final SerializableString SWELL_WAVE_HEIGHT = new SerializedString(
+            SurfSwellConstants.Parameters.SWELL_WAVE_HEIGHT);
+    private static final SerializableString SWELL_WAVE_PERIOD = new SerializedString(
+            SurfSwellConstants.Parameters.SWELL_WAVE_PERIOD);
+    private static final SerializableString PROJECTED_WAVE_FACE = new SerializedString(
+            SurfSwellConstants.Parameters.PROJECTED_WAVE_FACE);
+    private static final SerializableString STALE = new SerializedString(SurfSwellConstants.Parameters.STALE);
+
+    private static final int SECONDS_PER_DAY = 86400;
+    /**
+     * Length of an ISO local date time without fraction, e.g.
+     * {@code 2024-06-01T00:00:00}.
+     */
+    private static final int TIME_STAMP_LENGTH = 19;
+
+    private final Timer serializeTimer;
+
+    public SurfForecastJsonSerializer() {
+        this(Metrics.globalRegistry);
+    }
+
+    @Autowired
+    public SurfForecastJsonSerializer(MeterRegistry meterRegistry) {
+        this.serializeTimer = ForecastStage.SERIALIZE.timer(meterRegistry);
+    }
+
+    @Override
+    public void serialize(SurfForecast forecast, JsonGenerator generator, SerializerProvider serializers)
+            throws IOException {
+        var start = System.nanoTime();
+
+        try {
+            write(forecast, generator, serializers);
+        } finally {
+            serializeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void write(SurfForecast forecast, JsonGenerator generator, SerializerProvider serializers)
+            throws IOException {
+        generator.writeStartObject(forecast);
+        generator.writeFieldName(TIME);
+
+        if (serializers.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            serializers.defaultSerializeValue(forecast.toOceanicDataDTO().time(), generator);
+        } else {
+            writeTimeStamps(forecast, generator);
+        }
+
+        writeSeries(generator, WAVE_HEIGHT, forecast.waveHeight());
+        writeSeries(generator, WAVE_PERIOD, forecast.wavePeriod());
+        writeSeries(generator, SWELL_WAVE_HEIGHT, forecast.swellWaveHeight());
+        writeSeries(generator, SWELL_WAVE_PERIOD, forecast.swellWavePeriod());
+        writeSeries(generator, PROJECTED_WAVE_FACE, forecast.projectedWaveFace());
+
+        if (forecast.metrics() != null) {
+            for (var metric : forecast.metrics().entrySet()) {
+                writeSeries(generator, new SerializedString(metric.getKey()), metric.getValue());
+            }
+        }
+
+        if (forecast.stale()) {
+            generator.writeFieldName(STALE);
+            generator.writeBoolean(true);
+        }
+
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes the time axis as ISO local date times, reusing one buffer and only
+     * resolving the date when the day changes.
+     */
+    private void writeTimeStamps(SurfForecast forecast, JsonGenerator generator) throws IOException {
+        var buffer = new char[TIME_STAMP_LENGTH];
+        var currentDay = Long.MIN_VALUE;
+
+        generator.writeStartArray(forecast, forecast.length());
+
+        for (int i = 0; i < forecast.length(); i++) {
+            var epochSecond = forecast.epochSecondAt(i);
+            var day = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+
+            if (day != currentDay) {
+                var date = LocalDate.ofEpochDay(day);
+
+                if (date.getYear() < 1000 || date.getYear() > 9999) {
+                    generator.writeString(LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC)
+                            .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                    continue;
+                }
+
+                writeDate(buffer, date);
+                currentDay = day;
+            }
+
+            writeTimeOfDay(buffer, Math.floorMod(epochSecond, SECONDS_PER_DAY));
+            generator.writeString(buffer, 0, TIME_STAMP_LENGTH);
+        }
+
+        generator.writeEndArray();
+    }
+
+    private static void writeDate(char[] buffer, LocalDate date) {
+        writeDigits(buffer, 0, date.getYear(), 4);
+        buffer[4] = '-';
+        writeDigits(buffer, 5, date.getMonthValue(), 2);
+        buffer[7] = '-';
+        writeDigits(buffer, 8, date.getDayOfMonth(), 2);
+        buffer[10] = 'T';
+    }
+
+    private static void writeTimeOfDay(char[] buffer, int secondOfDay) {
+        writeDigits(buffer, 11, secondOfDay / 3600, 2);
+        buffer[13] = ':';
+        writeDigits(buffer, 14, secondOfDay / 60 % 60, 2);
+        buffer[16] = ':';
+        writeDigits(buffer, 17, secondOfDay % 60, 2);
+    }
+
+    private static void writeDigits(char[] buffer, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static void writeSeries(JsonGenerator generator, SerializableString name, double[] series)
+            throws IOException {
+        generator.writeFieldName(name);
+
+        if (series == null) {
+            generator.writeNull();
+            return;
+        }
+
+        generator.writeStartArray(series, series.length);
+
+        for (var value : series) {
+            writeValue(generator, value);
+        }
+
+        generator.writeEndArray();
+    }
+
+    /**
+     * Writes the value the way its {@link BigDecimal} would be written. Within the
+     * range where {@link Double#toString(double)} does not switch to scientific
+     * notation both produce the same text, so only values outside of it are boxed.
+     */
+    static void writeValue(JsonGenerator generator, double value) throws IOException {
+        if (Double.isNaN(value)) {
+            generator.writeNull();
+        } else if (value == 0 || Math.abs(value) >= 1e-3 && Math.abs(value) < 1e7) {
+            generator.writeNumber(value + 0.0);
+        } else {
+            generator.writeNumber(BigDecimal.valueOf(value));
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package swell.server.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import swell.server.constant.SurfSwellConstants;
+
+/**
+ * Configurable settings of the swell-server, bound from the {@code swell.server}
+ * prefix of the application configuration.
+ */
+@ConfigurationProperties(prefix = "swell.server")
+public record SurfSwellProperties(@DefaultValue Cache cache, @DefaultValue Bulk bulk, @DefaultValue Client client,
+        @DefaultValue Prefetch prefetch, @DefaultValue Search search, @DefaultValue Store store,
+        @DefaultValue Resilience resilience, @DefaultValue Subscription subscription, @DefaultValue Peers peers,
+        @DefaultValue Admission admission, @DefaultValue Nearby nearby) {
+
+    /**
+     * Settings of the in-memory forecast cache.
+     * 
+     * @param enabled              whether forecasts are cached at all.
+     * @param maximumSize          the maximum number of cached forecasts.
+     * @param gridResolution       the size in degrees of the grid coordinates are
+     *                             snapped to, so nearby requests share an entry.
+     * @param staleWhileRevalidate how long an expired forecast may still be served
+     *                             while a fresh one is fetched in the background.
+     * @param staleIfError         how long the last known forecast is kept to be
+     *                             served, marked as stale, when Open-Mateo cannot
+     *                             be reached.
+     * @param maximumVersionValues the maximum number of hourly values, each series
+     *                             of each hour counting once, across the served
+     *                             forecasts kept for clients to ask for changes
+     *                             since.
+     * @param versionRetention     how long a served forecast is kept.
+     */
+    public record Cache(@DefaultValue("true") boolean enabled, @DefaultValue("10000") long maximumSize,
+            @DefaultValue("0.05") double gridResolution, @DefaultValue("10m") Duration staleWhileRevalidate,
+            @DefaultValue("24h") Duration staleIfError, @DefaultValue("4000000") long maximumVersionValues,
+            @DefaultValue("6h") Duration versionRetention) {
+
+        /**
+         * @return how long a forecast is kept once stale, to be served while it is
+         *         revalidated or when Open-Mateo cannot be reached.
+         */
+        public Duration retention() {
+            return staleWhileRevalidate.compareTo(staleIfError) >= 0 ? staleWhileRevalidate : staleIfError;
+        }
+    }
+
+    /**
+     * Settings of multi-location forecast requests.
+     * 
+     * @param chunkSize        the maximum number of locations requested from
+     *                         Open-Mateo in a single call.
+     * @param concurrency      the maximum number of chunks requested at once.
+     * @param maximumLocations how many locations a single request may ask for.
+     */
+    public record Bulk(@DefaultValue("50") int chunkSize, @DefaultValue("4") int concurrency,
+            @DefaultValue("1000") int maximumLocations) {
+    }
+
+    /**
+     * Settings of the HTTP client calling Open-Mateo.
+     * 
+     * @param maxConnections         the maximum number of pooled connections.
+     * @param pendingAcquireMaxCount the maximum number of requests waiting for a
+     *                               pooled connection.
+     * @param pendingAcquireTimeout  how long a request waits for a pooled
+     *                               connection before failing.
+     * @param maxIdleTime            how long a connection may be idle before it is
+     *                               closed.
+     * @param maxLifeTime            how long a connection may be used in total.
+     * @param evictionInterval       how often idle and expired connections are
+     *                               evicted in the background.
+     * @param connectTimeout         how long establishing a connection may take.
+     * @param responseTimeout        how long to wait for a response once the
+     *                               request is sent.
+     * @param http2                  whether HTTP/2 is negotiated when the server
+     *                               supports it.
+     * @param compress               whether gzip compressed responses are
+     *                               requested.
+     * @param maxInMemorySize        the maximum size of a response body buffered in
+     *                               memory.
+     * @param metrics                whether connection pool and client metrics are
+     *                               published.
+     * @param baseUrl                the Open-Mateo API called, replaced by a local
+     *                               simulator in load tests.
+     */
+    public record Client(@DefaultValue("200") int maxConnections, @DefaultValue("1000") int pendingAcquireMaxCount,
+            @DefaultValue("5s") Duration pendingAcquireTimeout, @DefaultValue("30s") Duration maxIdleTime,
+            @DefaultValue("5m") Duration maxLifeTime, @DefaultValue("30s") Duration evictionInterval,
+            @DefaultValue("2s") Duration connectTimeout, @DefaultValue("10s") Duration responseTimeout,
+            @DefaultValue("true") boolean http2, @DefaultValue("true") boolean compress,
+            @DefaultValue("2MB") DataSize maxInMemorySize, @DefaultValue("true") boolean metrics,
+            @DefaultValue(SurfSwellConstants.Paths.MARINE_OPEN_API_BASE_URL) String baseUrl) {
+    }
+
+    /**
+     * Settings of the background refresh of popular forecasts. The schedule is
+     * read from {@code swell.server.prefetch.cron}.
+     * 
+     * @param enabled        whether popular forecasts are refreshed ahead of
+     *                       demand.
+     * @param cron           when to refresh, shortly after Open-Mateo publishes
+     *                       its hourly update.
+     * @param topN           how many of the most requested locations are
+     *                       refreshed.
+     * @param concurrency    the maximum number of chunks refreshed at once.
+     * @param jitter         the maximum random delay before a refresh starts, so
+     *                       replicas do not refresh at the same instant.
+     * @param maximumTracked the maximum number of locations whose popularity is
+     *                       tracked.
+     */
+    public record Prefetch(@DefaultValue("true") boolean enabled, @DefaultValue("0 1 * * * *") String cron,
+            @DefaultValue("100") int topN, @DefaultValue("2") int concurrency, @DefaultValue("30s") Duration jitter,
+            @DefaultValue("10000") int maximumTracked) {
+    }
+
+    /**
+     * Settings of the local location search index.
+     * 
+     * @param enabled        whether searches are answered from the index before
+     *                       asking Open-Mateo.
+     * @param gazetteer      an optional tab separated file of {@code name},
+     *                       {@code latitude}, {@code longitude} and
+     *                       {@code population} lines loaded into the index at
+     *                       startup.
+     * @param maximumResults the maximum number of locations returned by a search.
+     * @param maximumEntries the maximum number of locations held by the index.
+     */
+    public record Search(@DefaultValue("true") boolean enabled, Path gazetteer,
+            @DefaultValue("10") int maximumResults, @DefaultValue("100000") int maximumEntries) {
+    }
+
+    /**
+     * Settings of the on-disk forecast store under the cache. The compaction
+     * schedule is read from {@code swell.server.store.compaction-interval}, in
+     * ISO-8601 form since it is also parsed by the scheduler.
+     * 
+     * @param enabled            whether cached forecasts are persisted and
+     *                           restored after a restart.
+     * @param directory          where the segment files are kept.
+     * @param segmentSize        the size of each memory mapped segment file.
+     * @param compactionInterval how often segments mostly holding expired
+     *                           forecasts are compacted.
+     */
+    public record Store(@DefaultValue("false") boolean enabled, @DefaultValue("data/forecasts") Path directory,
+            @DefaultValue("64MB") DataSize segmentSize, @DefaultValue("PT10M") Duration compactionInterval) {
+    }
+
+    /**
+     * Settings protecting Open-Mateo, and the swell-server from it.
+     * 
+     * @param permitsPerSecond          the sustained rate of Open-Mateo requests.
+     * @param burst                     how many requests may be made at once
+     *                                  after a quiet period.
+     * @param maximumPermitWait         how long a request may wait for a permit
+     *                                  before failing.
+     * @param failureRateThreshold      the percentage of failed calls opening the
+     *                                  circuit.
+     * @param slowCallDuration          how long a call may take before it counts
+     *                                  as slow.
+     * @param slowCallRateThreshold     the percentage of slow calls opening the
+     *                                  circuit.
+     * @param slidingWindowSize         how many of the latest calls the rates are
+     *                                  computed over.
+     * @param minimumCalls              how many calls are needed before the
+     *                                  circuit may open.
+     * @param openDuration              how long the circuit stays open before
+     *                                  trial calls are let through.
+     * @param halfOpenCalls             how many trial calls decide whether the
+     *                                  circuit closes again.
+     * @param maximumRetries            how many times a failed request is retried.
+     * @param retryBackoff              the delay before the first retry, doubled
+     *                                  and jittered for each further one.
+     * @param hedgeDelay                how long a request may take before a second
+     *                                  identical one is sent, {@code 0} disables
+     *                                  hedging.
+     * @param hedgePercentage           the percentage of the latest requests which
+     *                                  may be hedged, saved up over the sliding
+     *                                  window.
+     */
+    public record Resilience(@DefaultValue("10") double permitsPerSecond, @DefaultValue("20") int burst,
+            @DefaultValue("1s") Duration maximumPermitWait, @DefaultValue("50") int failureRateThreshold,
+            @DefaultValue("3s") Duration slowCallDuration, @DefaultValue("80") int slowCallRateThreshold,
+            @DefaultValue("20") int slidingWindowSize, @DefaultValue("10") int minimumCalls,
+            @DefaultValue("30s") Duration openDuration, @DefaultValue("3") int halfOpenCalls,
+            @DefaultValue("2") int maximumRetries, @DefaultValue("200ms") Duration retryBackoff,
+            @DefaultValue("2s") Duration hedgeDelay, @DefaultValue("10") int hedgePercentage) {
+    }
+
+    /**
+     * Settings of the streams of forecast updates clients subscribe to.
+     * 
+     * @param maximumLocations how many locations a single subscription may
+     *                         follow.
+     * @param updateInterval   how often Open-Mateo updates its forecasts.
+     * @param updateDelay      how long after each Open-Mateo update the
+     *                         subscribed forecasts are fetched again.
+     * @param heartbeat        how often an otherwise quiet stream sends a
+     *                         heartbeat.
+     * @param idleTimeout      how long a client may take no events before its
+     *                         subscription is ended.
+     */
+    public record Subscription(@DefaultValue("20") int maximumLocations, @DefaultValue("1h") Duration updateInterval,
+            @DefaultValue("1m") Duration updateDelay, @DefaultValue("15s") Duration heartbeat,
+            @DefaultValue("1m") Duration idleTimeout) {
+    }
+
+    /**
+     * Settings of the replicas sharing their forecasts, each fetching from
+     * Open-Mateo and caching only the locations it owns on a consistent hash ring.
+     * 
+     * @param enabled       whether forecasts of locations owned by another replica
+     *                      are fetched from it.
+     * @param self          the base URL of this replica, as listed in members.
+     * @param members       the base URLs of every replica, this one included.
+     * @param virtualNodes  how many points each replica has on the hash ring.
+     * @param timeout       how long another replica may take to answer.
+     * @param nearCacheSize the maximum number of forecasts owned by other replicas
+     *                      kept locally.
+     * @param nearCacheTtl  how long a forecast owned by another replica is kept
+     *                      locally.
+     */
+    public record Peers(@DefaultValue("false") boolean enabled, @DefaultValue("") String self,
+            @DefaultValue List<String> members, @DefaultValue("128") int virtualNodes,
+            @DefaultValue("2s") Duration timeout, @DefaultValue("1000") long nearCacheSize,
+            @DefaultValue("1m") Duration nearCacheTtl) {
+    }
+
+    /**
+     * Settings of the admission control in front of the forecast and search
+     * endpoints.
+     * 
+     * @param enabled          whether requests may be rejected at all.
+     * @param initialLimit     how many requests of an endpoint may be in flight
+     *                         until latency has been observed.
+     * @param minimumLimit     the lowest the limit may adapt to.
+     * @param maximumLimit     the highest the limit may adapt to.
+     * @param interactiveShare the share of the limit uncached requests for a
+     *                         single forecast or search may use.
+     * @param bulkShare        the share of the limit requests for many forecasts
+     *                         may use.
+     * @param retryAfter       how long rejected clients are told to wait before
+     *                         trying again.
+     */
+    public record Admission(@DefaultValue("true") boolean enabled, @DefaultValue("20") int initialLimit,
+            @DefaultValue("4") int minimumLimit, @DefaultValue("200") int maximumLimit,
+            @DefaultValue("0.9") double interactiveShare, @DefaultValue("0.5") double bulkShare,
+            @DefaultValue("1s") Duration retryAfter) {
+    }
+
+    /**
+     * Settings of the ranking of the spots around a location.
+     * 
+     * @param gridResolution the size in degrees of the cells known spots are
+     *                       indexed by.
+     * @param defaultRadius  the radius searched in kilometres when none is
+     *                       given.
+     * @param maximumRadius  the largest radius that may be searched, in
+     *                       kilometres.
+     * @param maximumSpots   how many of the nearest spots are ranked at most.
+     * @param defaultHours   how many hours from now are ranked when no window
+     *                       is given.
+     * @param defaultResults how many spots are returned when not told.
+     * @param maximumResults the most spots that may be returned.
+     * @param parallelSpots  how many spots are scored by a single task before
+     *                       the work is split across the fork-join pool.
+     */
+    public record Nearby(@DefaultValue("0.5") double gridResolution, @DefaultValue("50") double defaultRadius,
+            @DefaultValue("200") double maximumRadius, @DefaultValue("100") int maximumSpots,
+            @DefaultValue("24") int defaultHours, @DefaultValue("5") int defaultResults,
+            @DefaultValue("20") int maximumResults, @DefaultValue("16") int parallelSpots) {
+    }
+}
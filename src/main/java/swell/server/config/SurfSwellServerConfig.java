@@ -1,21 +1,123 @@
 package swell.server.config;
 
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import swell.server.codec.LocationConverter;
+import swell.server.codec.SurfForecastBinaryConverter;
+import swell.server.codec.SurfForecastDecoder;
 import swell.server.constant.SurfSwellConstants;
 
 /**
  * Configuration class for the server.
  */
 @Configuration
-public class SurfSwellServerConfig {
+@EnableConfigurationProperties(SurfSwellProperties.class)
+@EnableScheduling
+public class SurfSwellServerConfig implements WebMvcConfigurer {
 
     public static final String SURF_SWELL_WEB_CLIENT = "surfSwellWebClient";
+    public static final String SURF_SWELL_CONNECTION_PROVIDER = "surfSwellConnectionProvider";
+    public static final String SURF_SWELL_PEER_WEB_CLIENT = "surfSwellPeerWebClient";
+
+    private final MeterRegistry meterRegistry;
+
+    public SurfSwellServerConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return the connection pool dedicated to Open-Mateo, whose metrics are
+     *         published under {@code reactor.netty.connection.provider}.
+     */
+    @Bean(name = SURF_SWELL_CONNECTION_PROVIDER, destroyMethod = "dispose")
+    ConnectionProvider surfSwellConnectionProvider(SurfSwellProperties properties) {
+        var client = properties.client();
+
+        return ConnectionProvider.builder(SurfSwellConstants.Metrics.OPEN_MATEO_CLIENT)
+                .maxConnections(client.maxConnections())
+                .pendingAcquireMaxCount(client.pendingAcquireMaxCount())
+                .pendingAcquireTimeout(client.pendingAcquireTimeout())
+                .maxIdleTime(client.maxIdleTime())
+                .maxLifeTime(client.maxLifeTime())
+                .evictInBackground(client.evictionInterval())
+                .metrics(client.metrics())
+                .build();
+    }
 
     @Bean(SURF_SWELL_WEB_CLIENT)
-    WebClient surfSwellWebClient() {
-        return WebClient.builder().baseUrl(SurfSwellConstants.Paths.MARINE_OPEN_API_BASE_URL).build();
+    WebClient surfSwellWebClient(SurfSwellProperties properties,
+            @Qualifier(SURF_SWELL_CONNECTION_PROVIDER) ConnectionProvider connectionProvider) {
+        var client = properties.client();
+        var httpClient = HttpClient.create(connectionProvider)
+                .protocol(client.http2() ? new HttpProtocol[] { HttpProtocol.H2, HttpProtocol.HTTP11 }
+                        : new HttpProtocol[] { HttpProtocol.HTTP11 })
+                .compress(client.compress())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) client.connectTimeout().toMillis())
+                .responseTimeout(client.responseTimeout())
+                // Tag by path only, the query string would create a meter per location.
+                .metrics(client.metrics(), uri -> StringUtils.substringBefore(uri, '?'));
+
+        return WebClient.builder().baseUrl(client.baseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(configurer -> {
+                    configurer.defaultCodecs().maxInMemorySize((int) client.maxInMemorySize().toBytes());
+                    configurer.customCodecs().register(new SurfForecastDecoder(meterRegistry));
+                })
+                .build();
+    }
+
+    /**
+     * @return the client fetching forecasts from the other replicas, which answer
+     *         in the Open-Mateo format so that the same decoder applies.
+     */
+    @Bean(SURF_SWELL_PEER_WEB_CLIENT)
+    WebClient surfSwellPeerWebClient(SurfSwellProperties properties) {
+        var httpClient = HttpClient.create()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.peers().timeout().toMillis())
+                .responseTimeout(properties.peers().timeout());
+
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(configurer -> {
+                    configurer.defaultCodecs()
+                            .maxInMemorySize((int) properties.client().maxInMemorySize().toBytes());
+                    configurer.customCodecs().register(new SurfForecastDecoder(meterRegistry));
+                })
+                .build();
+    }
+
+    /**
+     * Lets a location be passed as a single {@code [name,]latitude,longitude}
+     * request parameter.
+     */
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(new LocationConverter());
+    }
+
+    /**
+     * Adds the binary forecast encoding after the JSON converters, so clients not
+     * asking for it explicitly keep receiving JSON.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new SurfForecastBinaryConverter(meterRegistry));
     }
 }
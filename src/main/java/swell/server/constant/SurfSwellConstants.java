@@ -12,6 +12,10 @@ public interface SurfSwellConstants {
         public static final String MARINE_OPEN_API_BASE_URL = "https://marine-api.open-meteo.com";
         public static final String MARINE_OPEN_API_SWELL_PATH = "/v1/marine";
         public static final String SURF_DATA = "/surf";
+        public static final String SURF_DATA_BULK = "/surf/bulk";
+        public static final String SURF_DATA_SUBSCRIBE = "/surf/subscribe";
+        public static final String SURF_DATA_NEARBY = "/surf/nearby";
+        public static final String PEER_FORECAST = "/internal/forecast";
 
         public static final String MARINE = "/v1/marine";
         public static final String SEARCH_LOCATION = "/v1/search";
@@ -28,8 +32,71 @@ public interface SurfSwellConstants {
         public static final String WAVE_PERIOD = "wave_period";
         public static final String SWELL_WAVE_HEIGHT = "swell_wave_height";
         public static final String SWELL_WAVE_PERIOD = "swell_wave_period";
+        public static final String PROJECTED_WAVE_FACE = "projectedWaveFace";
+        public static final String TIME = "time";
+        public static final String STALE = "stale";
+
+        /**
+         * Every hourly variable needed for a forecast, requested from Open-Mateo in a
+         * single call.
+         */
+        public static final String FORECAST_VARIABLES = String.join(",", WAVE_HEIGHT, WAVE_PERIOD,
+                SWELL_WAVE_HEIGHT, SWELL_WAVE_PERIOD);
 
         public static final String NAME = "name";
+        public static final String COUNT = "count";
         public static final String LOCATION = "location";
+        public static final String METRICS = "metrics";
+        public static final String START_HOUR = "start_hour";
+        public static final String END_HOUR = "end_hour";
+        public static final String FORECAST_HOURS = "forecast_hours";
+        public static final String FORECAST_DAYS = "forecast_days";
+        public static final String STEP = "step";
+        public static final String SINCE = "since";
+        public static final String FRESH = "fresh";
+        public static final String RADIUS = "radius";
+        public static final String WEIGHTS = "weights";
+        public static final String RESULTS = "results";
+    }
+
+    /**
+     * Media types served besides JSON.
+     */
+    public class MediaTypes {
+        public static final String SURF_FORECAST_BINARY = "application/vnd.swell.forecast";
+    }
+
+    /**
+     * Names of the metrics published through the actuator.
+     */
+    public class Metrics {
+        public static final String FORECAST_CACHE = "swell.forecast.cache";
+        public static final String FORECAST_CACHE_STALE = "swell.forecast.cache.stale";
+        public static final String FORECAST_CACHE_STALE_IF_ERROR = "swell.forecast.cache.stale.if.error";
+        public static final String FORECAST_PREFETCH_HITS = "swell.forecast.prefetch.hits";
+        public static final String FORECAST_PREFETCH_HIT_RATIO = "swell.forecast.prefetch.hit.ratio";
+        public static final String OPEN_MATEO_CLIENT = "open-mateo";
+        public static final String OPEN_MATEO_REQUESTS = "swell.open-mateo.requests";
+        public static final String OPEN_MATEO_CIRCUIT_STATE = "swell.open-mateo.circuit.state";
+        public static final String FORECAST_STAGE = "swell.forecast.stage";
+        public static final String FORECAST_IN_FLIGHT = "swell.forecast.in.flight";
+        public static final String FORECAST_CACHE_REVALIDATING = "swell.forecast.cache.revalidating";
+        public static final String FORECAST_STORE_ENTRIES = "swell.forecast.store.entries";
+        public static final String FORECAST_SUBSCRIBED_SPOTS = "swell.forecast.subscriptions.spots";
+        public static final String FORECAST_SUBSCRIBERS = "swell.forecast.subscriptions.clients";
+        public static final String FORECAST_NEAR_CACHE = "swell.forecast.near.cache";
+        public static final String PEER_REQUESTS = "swell.peer.requests";
+        public static final String ADMISSION_LIMIT = "swell.admission.limit";
+        public static final String ADMISSION_IN_FLIGHT = "swell.admission.in.flight";
+        public static final String ADMISSION_REJECTED = "swell.admission.rejected";
+
+        public static final String TAG_STAGE = "stage";
+        public static final String TAG_ENDPOINT = "endpoint";
+        public static final String TAG_HOURLY = "hourly";
+        public static final String TAG_OUTCOME = "outcome";
+        public static final String TAG_PEER = "peer";
+        public static final String TAG_PRIORITY = "priority";
+        public static final String TAG_REQUEST = "request";
+        public static final String NONE = "none";
     }
 }
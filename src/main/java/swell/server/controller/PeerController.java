@@ -0,0 +1,46 @@
+package swell.server.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import reactor.core.publisher.Mono;
+import swell.server.constant.SurfSwellConstants;
+import swell.server.model.ForecastProjection;
+import swell.server.model.PeerForecastDTO;
+import swell.server.peer.ForecastPeers;
+import swell.server.service.SurfSwellService;
+
+/**
+ * Controller for the other replicas to fetch the forecasts of the locations
+ * owned by this one, see {@link ForecastPeers}. Only exposed when peers are
+ * enabled.
+ */
+@RestController
+@ConditionalOnProperty(prefix = "swell.server.peers", name = "enabled")
+public class PeerController {
+
+    private final SurfSwellService surfSwellService;
+
+    public PeerController(SurfSwellService surfSwellService) {
+        this.surfSwellService = surfSwellService;
+    }
+
+    /**
+     * @param latitude  of the desired location, as snapped by the caller.
+     * @param longitude of the desired location, as snapped by the caller.
+     * @param hourly    the comma separated hourly variables to fetch, some of the
+     *                  forecast variables in their fixed order.
+     * @param fresh     whether the forecast must be as of the latest Open-Mateo
+     *                  update.
+     * 
+     * @return a {@link Mono} of the forecast in the Open-Mateo format.
+     */
+    @GetMapping(SurfSwellConstants.Paths.PEER_FORECAST)
+    public Mono<PeerForecastDTO> getPeerForecast(@RequestParam String latitude, @RequestParam String longitude,
+            @RequestParam String hourly, @RequestParam(defaultValue = "false") boolean fresh) {
+        return surfSwellService.fetchPeerForecast(latitude, longitude,
+                ForecastProjection.requireFetchedVariables(hourly), fresh).map(PeerForecastDTO::of);
+    }
+}
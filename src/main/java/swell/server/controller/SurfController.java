@@ -1,50 +1,237 @@
 package swell.server.controller;
 
+import java.time.Clock;
+import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import swell.server.cache.ForecastVersions;
+import swell.server.codec.SurfForecastJsonSerializer;
 import swell.server.constant.SurfSwellConstants;
+import swell.server.metric.DerivedMetric;
+import swell.server.metric.DerivedMetrics;
+import swell.server.model.ForecastDelta;
+import swell.server.model.ForecastDeltaDTO;
+import swell.server.model.ForecastProjection;
 import swell.server.model.LocationDTO;
+import swell.server.model.LocationForecastDTO;
 import swell.server.model.OceanicDataDTO;
+import swell.server.model.SpotScoreDTO;
+import swell.server.observation.ForecastStage;
+import swell.server.resilience.AdmissionControl;
+import swell.server.service.ForecastSubscriptions;
+import swell.server.service.SpotRanking;
 import swell.server.service.SurfSwellService;
 
 /**
  * Controller for external clients to be used to get summarised data for surf
- * forecasting.
+ * forecasting. Forecasts and searches go through the {@link AdmissionControl},
+ * and may be rejected with a {@code Retry-After} header when overloaded.
  */
 @RestController
 public class SurfController {
 
     private final SurfSwellService surfSwellService;
+    private final ForecastSubscriptions forecastSubscriptions;
+    private final ForecastVersions forecastVersions;
+    private final AdmissionControl admissionControl;
+    private final SpotRanking spotRanking;
+    private final DerivedMetrics derivedMetrics;
+    private final Timer deriveTimer;
 
-    public SurfController(SurfSwellService surfSwellService) {
+    public SurfController(SurfSwellService surfSwellService, ForecastSubscriptions forecastSubscriptions,
+            ForecastVersions forecastVersions, AdmissionControl admissionControl, SpotRanking spotRanking,
+            DerivedMetrics derivedMetrics, MeterRegistry meterRegistry) {
         this.surfSwellService = surfSwellService;
+        this.forecastSubscriptions = forecastSubscriptions;
+        this.forecastVersions = forecastVersions;
+        this.admissionControl = admissionControl;
+        this.spotRanking = spotRanking;
+        this.derivedMetrics = derivedMetrics;
+        this.deriveTimer = ForecastStage.DERIVE.timer(meterRegistry);
     }
 
     /**
      * Used to search for known locations and to get their latitudes and longitudes.
      * 
      * @param name the place's name
-     * @return a {@link List} of locations that match the name
+     * @return a {@link Mono} of the locations that match the name
      */
     @GetMapping(SurfSwellConstants.Paths.SEARCH_LOCATION)
-    public List<LocationDTO> searchLocations(String name) {
-        return surfSwellService.searchLocations(name);
+    public Mono<List<LocationDTO>> searchLocations(String name) {
+        var known = surfSwellService.findKnownLocations(name);
+        var priority = known.isEmpty() ? AdmissionControl.Priority.INTERACTIVE : AdmissionControl.Priority.CACHED;
+
+        return admissionControl.admit(AdmissionControl.Endpoint.SEARCH, priority,
+                () -> surfSwellService.fetchLocations(name, known));
     }
 
     /**
+     * Every parameter besides the location is optional, narrowing down the
+     * forecast returned. Responses carry an ETag, answered with
+     * {@code 304 Not Modified} when it matches {@code If-None-Match}, and that may
+     * be passed back in {@code since} to only receive what changed.
      * 
-     * @param latitude  of the desired location.
-     * @param longitude of the desired location.
+     * @param location      of the desired forecast.
+     * @param hourly        the hourly variables wanted, all of them by default.
+     * @param startHour     the first hour wanted, in UTC.
+     * @param endHour       the last hour wanted, in UTC.
+     * @param forecastHours how many hours are wanted from the start hour, or the
+     *                      current hour.
+     * @param forecastDays  how many days are wanted from the start hour, or the
+     *                      current hour.
+     * @param step          keeps every {@code step}th hour only, e.g. {@code 3}
+     *                      for a 3-hourly forecast.
+     * @param metrics       the names of the {@link DerivedMetric}s to add, if any.
+     * @param since         the ETag of the forecast the client holds, asking for
+     *                      a {@link ForecastDeltaDTO} instead of the whole
+     *                      forecast when it is still known. JSON only.
+     * @param ifNoneMatch   the ETags of the forecasts the client holds.
+     * @param accept        the media types the client accepts.
      * 
-     * @return the {@link OceanicDataDTO} of the specified location.
+     * @return a {@link Mono} of the forecast of the specified location, serialized
+     *         as an {@link OceanicDataDTO} by {@link SurfForecastJsonSerializer},
+     *         or of its changes since the given version.
      */
     @GetMapping(SurfSwellConstants.Paths.SURF_DATA)
-    public OceanicDataDTO getSurfData(@RequestParam(SurfSwellConstants.Parameters.LOCATION) LocationDTO location) {
-        return surfSwellService.getOceanicData(location.latitude(), location.longitude());
+    public Mono<ResponseEntity<?>> getSurfData(
+            @RequestParam(SurfSwellConstants.Parameters.LOCATION) LocationDTO location,
+            @RequestParam(name = SurfSwellConstants.Parameters.HOURLY, required = false) List<String> hourly,
+            @RequestParam(name = SurfSwellConstants.Parameters.START_HOUR, required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startHour,
+            @RequestParam(name = SurfSwellConstants.Parameters.END_HOUR, required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endHour,
+            @RequestParam(name = SurfSwellConstants.Parameters.FORECAST_HOURS, required = false) Integer forecastHours,
+            @RequestParam(name = SurfSwellConstants.Parameters.FORECAST_DAYS, required = false) Integer forecastDays,
+            @RequestParam(name = SurfSwellConstants.Parameters.STEP, required = false) Integer step,
+            @RequestParam(name = SurfSwellConstants.Parameters.METRICS, required = false) List<String> metrics,
+            @RequestParam(name = SurfSwellConstants.Parameters.SINCE, required = false) String since,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        var projection = ForecastProjection.of(hourly, startHour, endHour, forecastHours, forecastDays, step,
+                Clock.systemUTC());
+        var requestedMetrics = derivedMetrics.resolve(metrics);
+        // Derived metrics may need variables the client did not ask for.
+        var variables = requestedMetrics.isEmpty() ? projection.fetchedVariables()
+                : SurfSwellConstants.Parameters.FORECAST_VARIABLES;
+        var binary = accept != null && accept.contains(SurfSwellConstants.MediaTypes.SURF_FORECAST_BINARY);
+        var priority = surfSwellService.isCached(location, variables) ? AdmissionControl.Priority.CACHED
+                : AdmissionControl.Priority.INTERACTIVE;
+
+        return admissionControl.admit(AdmissionControl.Endpoint.FORECAST, priority,
+                () -> surfSwellService.fetchForecast(location, variables)).map(forecast -> {
+            projection.requireWithin(forecast);
+
+            var etag = ForecastVersions.etag(forecast.version(), projection.variables(),
+                    projection.startEpochSecond(), projection.endEpochSecond(), projection.step(), metrics, binary,
+                    forecast.stale());
+
+            if (ForecastVersions.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+
+            var projected = deriveTimer.record(
+                    () -> projection.apply(derivedMetrics.apply(forecast, requestedMetrics)));
+            var base = since == null || binary ? null : forecastVersions.get(since);
+
+            forecastVersions.register(etag, projected);
+
+            if (base == null) {
+                return ResponseEntity.ok().eTag(etag).body(projected);
+            }
+
+            return ResponseEntity.ok().eTag(etag).body(ForecastDelta.between(base, projected, since, etag));
+        });
     }
 
+    /**
+     * Used to get the forecasts of many locations at once. Requested with
+     * {@code Accept: application/x-ndjson}, each forecast is streamed as soon as
+     * it is available.
+     * 
+     * @param locations the desired locations.
+     * @param metrics   the names of the {@link DerivedMetric}s to add, if any.
+     * 
+     * @return a {@link Flux} of the forecast of every location.
+     */
+    @PostMapping(SurfSwellConstants.Paths.SURF_DATA_BULK)
+    public Flux<LocationForecastDTO> getBulkSurfData(@RequestBody List<LocationDTO> locations,
+            @RequestParam(name = SurfSwellConstants.Parameters.METRICS, required = false) List<String> metrics) {
+        var requestedMetrics = derivedMetrics.resolve(metrics);
+
+        return admissionControl.admitMany(AdmissionControl.Endpoint.FORECAST, AdmissionControl.Priority.BULK,
+                () -> surfSwellService.fetchForecasts(locations))
+                .map(located -> located.withForecast(
+                        deriveTimer.record(() -> derivedMetrics.apply(located.forecast(), requestedMetrics))));
+    }
+
+    /**
+     * Used to find the known spots around a location with the best surf over the
+     * coming hours, instead of asking for the forecast of each of them.
+     * 
+     * @param location      to search around.
+     * @param radius        in kilometres.
+     * @param startHour     the first hour scored, in UTC.
+     * @param endHour       the last hour scored, in UTC.
+     * @param forecastHours how many hours are scored from the start hour, or the
+     *                      current hour.
+     * @param forecastDays  how many days are scored from the start hour, or the
+     *                      current hour.
+     * @param weights       {@code name:weight} pairs overriding how much each
+     *                      hourly series adds to the score, see
+     *                      {@link SpotRanking.Weights}.
+     * @param results       how many spots are wanted.
+     * 
+     * @return a {@link Mono} of the best spots, best first.
+     */
+    @GetMapping(SurfSwellConstants.Paths.SURF_DATA_NEARBY)
+    public Mono<List<SpotScoreDTO>> getNearbySurfData(
+            @RequestParam(SurfSwellConstants.Parameters.LOCATION) LocationDTO location,
+            @RequestParam(name = SurfSwellConstants.Parameters.RADIUS, required = false) Double radius,
+            @RequestParam(name = SurfSwellConstants.Parameters.START_HOUR, required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startHour,
+            @RequestParam(name = SurfSwellConstants.Parameters.END_HOUR, required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endHour,
+            @RequestParam(name = SurfSwellConstants.Parameters.FORECAST_HOURS, required = false) Integer forecastHours,
+            @RequestParam(name = SurfSwellConstants.Parameters.FORECAST_DAYS, required = false) Integer forecastDays,
+            @RequestParam(name = SurfSwellConstants.Parameters.WEIGHTS, required = false) List<String> weights,
+            @RequestParam(name = SurfSwellConstants.Parameters.RESULTS, required = false) Integer results) {
+        var window = spotRanking.window(startHour, endHour, forecastHours, forecastDays);
+        var scoreWeights = SpotRanking.Weights.of(weights);
+
+        return admissionControl.admit(AdmissionControl.Endpoint.FORECAST, AdmissionControl.Priority.BULK,
+                () -> spotRanking.rank(location, radius, window, scoreWeights, results));
+    }
+
+    /**
+     * Used to follow the forecasts of locations as Server-Sent Events instead of
+     * polling them. The current forecast of every location is sent right away and
+     * again whenever Open-Mateo publishes an update, with heartbeat comments in
+     * between.
+     * 
+     * @param locations the desired locations.
+     * 
+     * @return a {@link Flux} of {@value ForecastSubscriptions#FORECAST_EVENT}
+     *         events, each carrying the forecast of a location.
+     */
+    @PostMapping(path = SurfSwellConstants.Paths.SURF_DATA_SUBSCRIBE, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<LocationForecastDTO>> subscribeSurfData(@RequestBody List<LocationDTO> locations) {
+        return forecastSubscriptions.subscribe(locations);
+    }
 }
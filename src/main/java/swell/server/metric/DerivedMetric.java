@@ -0,0 +1,27 @@
+package swell.server.metric;
+
+import swell.server.model.SurfForecast;
+
+/**
+ * A series derived from the hourly columns of a {@link SurfForecast}, which
+ * clients ask for by name. Further metrics are plugged in by declaring them as
+ * beans.
+ */
+public interface DerivedMetric {
+
+    /**
+     * @return the name clients ask for the metric by, also the name of its series
+     *         in the response.
+     */
+    String metricName();
+
+    /**
+     * Computes the metric in a single pass over the primitive series of the
+     * forecast. The result is memoized with the forecast, so it must depend on
+     * nothing else and must not be modified afterwards.
+     *
+     * @return one value per hour, {@link Double#NaN} where it cannot be derived,
+     *         or {@code null} when the forecast lacks the series it needs.
+     */
+    double[] compute(SurfForecast forecast);
+}
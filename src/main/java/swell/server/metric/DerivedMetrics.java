@@ -0,0 +1,102 @@
+package swell.server.metric;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import swell.server.model.SurfForecast;
+
+/**
+ * Registry of the {@link DerivedMetric}s clients may ask for. Each metric is
+ * computed at most once per forecast instance: results are memoized for as
+ * long as the forecast itself is referenced, typically by the
+ * {@link swell.server.cache.ForecastCache}.
+ */
+@Component
+public class DerivedMetrics {
+
+    /**
+     * Memoized in place of {@code null}, which a {@link ConcurrentMap} cannot
+     * hold, for metrics the forecast lacks the series for.
+     */
+    private static final double[] NOT_DERIVABLE = {};
+
+    private final Map<String, DerivedMetric> metrics = new LinkedHashMap<>();
+    private final Cache<SurfForecast, ConcurrentMap<String, double[]>> computed = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
+
+    public DerivedMetrics(ObjectProvider<DerivedMetric> additionalMetrics) {
+        for (var metric : StandardMetric.values()) {
+            metrics.put(metric.metricName(), metric);
+        }
+
+        additionalMetrics.orderedStream().forEach(metric -> metrics.put(metric.metricName(), metric));
+    }
+
+    /**
+     * @param names of the metrics asked for, may be {@code null}.
+     *
+     * @return the metrics of the names.
+     *
+     * @throws ResponseStatusException with {@link HttpStatus#BAD_REQUEST} when a
+     *                                 name is unknown.
+     */
+    public List<DerivedMetric> resolve(List<String> names) {
+        if (names == null || names.isEmpty()) {
+            return List.of();
+        }
+
+        var resolved = new ArrayList<DerivedMetric>(names.size());
+
+        for (var name : names) {
+            var metric = metrics.get(name);
+
+            if (metric == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown metric " + name + ", expected one of " + metrics.keySet());
+            }
+
+            resolved.add(metric);
+        }
+
+        return resolved;
+    }
+
+    /**
+     * @return the forecast carrying the series of the metrics, or the forecast
+     *         itself when none are asked for.
+     */
+    public SurfForecast apply(SurfForecast forecast, List<DerivedMetric> requested) {
+        if (requested.isEmpty()) {
+            return forecast;
+        }
+
+        var memoized = computed.get(forecast, key -> new ConcurrentHashMap<>());
+        var series = new LinkedHashMap<String, double[]>();
+
+        for (var metric : requested) {
+            var values = memoized.computeIfAbsent(metric.metricName(), name -> compute(metric, forecast));
+            series.put(metric.metricName(), values == NOT_DERIVABLE ? null : values);
+        }
+
+        return forecast.withMetrics(series);
+    }
+
+    private static double[] compute(DerivedMetric metric, SurfForecast forecast) {
+        var series = metric.compute(forecast);
+
+        return series == null ? NOT_DERIVABLE : series;
+    }
+}
@@ -0,0 +1,212 @@
+package swell.server.metric;
+
+import swell.server.model.SurfForecast;
+
+/**
+ * The derived metrics every swell-server offers.
+ */
+enum StandardMetric implements DerivedMetric {
+
+    /**
+     * Deep water wave power in kW per metre of wave crest,
+     * {@code 0.49 * H² * T}.
+     */
+    WAVE_POWER("wavePower") {
+        @Override
+        public double[] compute(SurfForecast forecast) {
+            var height = forecast.waveHeight();
+            var period = forecast.wavePeriod();
+
+            if (height == null || period == null) {
+                return null;
+            }
+
+            var power = new double[Math.min(height.length, period.length)];
+
+            for (int i = 0; i < power.length; i++) {
+                power[i] = round(wavePower(height[i], period[i]));
+            }
+
+            return power;
+        }
+    },
+
+    /**
+     * Share of the wave height made up by swell rather than wind waves.
+     */
+    SWELL_DOMINANCE("swellDominance") {
+        @Override
+        public double[] compute(SurfForecast forecast) {
+            var height = forecast.waveHeight();
+            var swellHeight = forecast.swellWaveHeight();
+
+            if (height == null || swellHeight == null) {
+                return null;
+            }
+
+            var dominance = new double[Math.min(height.length, swellHeight.length)];
+
+            for (int i = 0; i < dominance.length; i++) {
+                dominance[i] = height[i] > 0 ? round(Math.min(1, swellHeight[i] / height[i])) : Double.NaN;
+            }
+
+            return dominance;
+        }
+    },
+
+    WAVE_HEIGHT_MAX_3H("waveHeightMax3h") {
+        @Override
+        public double[] compute(SurfForecast forecast) {
+            return rollingMax(forecast.waveHeight(), 3);
+        }
+    },
+
+    WAVE_HEIGHT_MAX_6H("waveHeightMax6h") {
+        @Override
+        public double[] compute(SurfForecast forecast) {
+            return rollingMax(forecast.waveHeight(), 6);
+        }
+    },
+
+    WAVE_HEIGHT_MEAN_3H("waveHeightMean3h") {
+        @Override
+        public double[] compute(SurfForecast forecast) {
+            return rollingMean(forecast.waveHeight(), 3);
+        }
+    },
+
+    WAVE_HEIGHT_MEAN_6H("waveHeightMean6h") {
+        @Override
+        public double[] compute(SurfForecast forecast) {
+            return rollingMean(forecast.waveHeight(), 6);
+        }
+    },
+
+    /**
+     * Marks with {@code 1} the hours of the three hour window with the most wave
+     * power, every other hour is {@code 0}.
+     */
+    BEST_WINDOW("bestWindow") {
+        @Override
+        public double[] compute(SurfForecast forecast) {
+            var height = forecast.waveHeight();
+            var period = forecast.wavePeriod();
+
+            if (height == null || period == null) {
+                return null;
+            }
+
+            var window = new double[Math.min(height.length, period.length)];
+            var best = -1;
+            var bestPower = Double.NEGATIVE_INFINITY;
+            var power = 0.0;
+
+            for (int i = 0; i < window.length; i++) {
+                power += nanToZero(wavePower(height[i], period[i]));
+
+                if (i >= BEST_WINDOW_HOURS) {
+                    power -= nanToZero(wavePower(height[i - BEST_WINDOW_HOURS], period[i - BEST_WINDOW_HOURS]));
+                }
+
+                if (i >= BEST_WINDOW_HOURS - 1 && power > bestPower) {
+                    bestPower = power;
+                    best = i;
+                }
+            }
+
+            for (int i = Math.max(0, best - BEST_WINDOW_HOURS + 1); i <= best; i++) {
+                window[i] = 1;
+            }
+
+            return window;
+        }
+    };
+
+    private static final double WAVE_POWER_COEFFICIENT = 0.49;
+    private static final int BEST_WINDOW_HOURS = 3;
+    /**
+     * Derived values are rounded to two decimals, like Open-Mateo's heights.
+     */
+    private static final double PRECISION = 100;
+
+    private final String metricName;
+
+    StandardMetric(String metricName) {
+        this.metricName = metricName;
+    }
+
+    @Override
+    public String metricName() {
+        return metricName;
+    }
+
+    private static double wavePower(double height, double period) {
+        return WAVE_POWER_COEFFICIENT * height * height * period;
+    }
+
+    /**
+     * @return the largest value of each trailing window of hours, ignoring missing
+     *         values.
+     */
+    private static double[] rollingMax(double[] series, int hours) {
+        if (series == null) {
+            return null;
+        }
+
+        var max = new double[series.length];
+
+        for (int i = 0; i < series.length; i++) {
+            var windowMax = Double.NEGATIVE_INFINITY;
+
+            for (int j = Math.max(0, i - hours + 1); j <= i; j++) {
+                // Comparisons with NaN are false, skipping missing values.
+                if (series[j] > windowMax) {
+                    windowMax = series[j];
+                }
+            }
+
+            max[i] = windowMax == Double.NEGATIVE_INFINITY ? Double.NaN : windowMax;
+        }
+
+        return max;
+    }
+
+    /**
+     * @return the mean of each trailing window of hours, ignoring missing values,
+     *         kept as a running sum.
+     */
+    private static double[] rollingMean(double[] series, int hours) {
+        if (series == null) {
+            return null;
+        }
+
+        var mean = new double[series.length];
+        var sum = 0.0;
+        var count = 0;
+
+        for (int i = 0; i < series.length; i++) {
+            if (!Double.isNaN(series[i])) {
+                sum += series[i];
+                count++;
+            }
+
+            if (i >= hours && !Double.isNaN(series[i - hours])) {
+                sum -= series[i - hours];
+                count--;
+            }
+
+            mean[i] = count == 0 ? Double.NaN : round(sum / count);
+        }
+
+        return mean;
+    }
+
+    private static double nanToZero(double value) {
+        return Double.isNaN(value) ? 0 : value;
+    }
+
+    private static double round(double value) {
+        // Adding 0.0 turns -0.0 into 0.0.
+        return Math.rint(value * PRECISION) / PRECISION + 0.0;
+    }
+}
@@ -0,0 +1,17 @@
+package swell.server.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.With;
+
+/**
+ * Encapsulates the hours of a series that changed, as the indexes of the hours
+ * in the new time axis along with their new values.
+ */
+@Builder
+@With
+public record ColumnDeltaDTO(int[] index, List<BigDecimal> values) {
+
+}
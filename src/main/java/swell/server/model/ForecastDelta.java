@@ -0,0 +1,145 @@
+package swell.server.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import swell.server.constant.SurfSwellConstants;
+
+/**
+ * Diffs a forecast against an earlier version of it, as held by a client. Hours
+ * are matched by time stamp, so a window that moved on keeps the hours both
+ * versions have in common, and hours the client never had count as changed.
+ * Series the client has but the current forecast lacks are removed, given as
+ * {@code null}.
+ */
+public final class ForecastDelta {
+
+    private ForecastDelta() {
+    }
+
+    /**
+     * Compares every series of both forecasts in a single pass over the hours of
+     * the current one.
+     *
+     * @param base    the forecast the client holds.
+     * @param current the forecast the client should end up with.
+     * @param since   the version of the base.
+     * @param version the ETag of the current forecast.
+     *
+     * @return the {@link ForecastDeltaDTO} turning the base into the current
+     *         forecast.
+     */
+    public static ForecastDeltaDTO between(SurfForecast base, SurfForecast current, String since, String version) {
+        var baseSeries = series(base);
+        var currentSeries = series(current);
+        var columns = new ArrayList<Column>(currentSeries.size());
+
+        currentSeries.forEach((name, values) -> columns.add(new Column(name, baseSeries.get(name), values)));
+        var baseStep = Math.max(1, base.stepSeconds());
+
+        for (int i = 0; i < current.length(); i++) {
+            var offset = current.epochSecondAt(i) - base.startEpochSecond();
+            var baseIndex = offset % baseStep == 0 ? offset / baseStep : -1;
+
+            for (var column : columns) {
+                column.compare(i, baseIndex);
+            }
+        }
+
+        var changes = new LinkedHashMap<String, ColumnDeltaDTO>();
+
+        for (var column : columns) {
+            if (column.count > 0) {
+                changes.put(column.name, column.toColumnDeltaDTO());
+            }
+        }
+
+        for (var name : baseSeries.keySet()) {
+            if (!currentSeries.containsKey(name)) {
+                changes.put(name, null);
+            }
+        }
+
+        return ForecastDeltaDTO.builder()
+                .version(version)
+                .since(since)
+                .start(LocalDateTime.ofEpochSecond(current.startEpochSecond(), 0, ZoneOffset.UTC))
+                .step(current.stepSeconds())
+                .length(current.length())
+                .changes(changes)
+                .stale(current.stale())
+                .build();
+    }
+
+    /**
+     * @return every series the forecast has, variables then metrics, by name.
+     */
+    private static Map<String, double[]> series(SurfForecast forecast) {
+        var series = new LinkedHashMap<String, double[]>();
+
+        add(series, SurfSwellConstants.Parameters.WAVE_HEIGHT, forecast.waveHeight());
+        add(series, SurfSwellConstants.Parameters.WAVE_PERIOD, forecast.wavePeriod());
+        add(series, SurfSwellConstants.Parameters.SWELL_WAVE_HEIGHT, forecast.swellWaveHeight());
+        add(series, SurfSwellConstants.Parameters.SWELL_WAVE_PERIOD, forecast.swellWavePeriod());
+        add(series, SurfSwellConstants.Parameters.PROJECTED_WAVE_FACE, forecast.projectedWaveFace());
+
+        if (forecast.metrics() != null) {
+            forecast.metrics().forEach((name, values) -> add(series, name, values));
+        }
+
+        return series;
+    }
+
+    private static void add(Map<String, double[]> series, String name, double[] values) {
+        if (values != null) {
+            series.put(name, values);
+        }
+    }
+
+    /**
+     * The changed hours of a series found so far.
+     */
+    private static class Column {
+
+        private final String name;
+        private final double[] base;
+        private final double[] current;
+        private final int[] index;
+        private int count;
+
+        Column(String name, double[] base, double[] current) {
+            this.name = name;
+            this.base = base;
+            this.current = current;
+            this.index = new int[current.length];
+        }
+
+        void compare(int currentIndex, long baseIndex) {
+            if (currentIndex >= current.length) {
+                return;
+            }
+
+            // Comparing the bits treats missing values alike.
+            if (base == null || baseIndex < 0 || baseIndex >= base.length || Double
+                    .doubleToLongBits(base[(int) baseIndex]) != Double.doubleToLongBits(current[currentIndex])) {
+                index[count++] = currentIndex;
+            }
+        }
+
+        ColumnDeltaDTO toColumnDeltaDTO() {
+            var changed = Arrays.copyOf(index, count);
+            var values = new ArrayList<BigDecimal>(count);
+
+            for (var i : changed) {
+                values.add(Double.isNaN(current[i]) ? null : BigDecimal.valueOf(current[i]));
+            }
+
+            return new ColumnDeltaDTO(changed, values);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package swell.server.model;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import lombok.Builder;
+import lombok.With;
+
+/**
+ * Encapsulates the changes of a forecast since a version the client already
+ * holds. The time axis is given by its first hour, step and length, and every
+ * hour of a series missing from {@code changes} keeps the value the client has
+ * for the same hour.
+ * 
+ * @param version the ETag of the forecast the changes lead to.
+ * @param since   the version the changes apply to.
+ * @param start   the first hour of the time axis.
+ * @param step    the seconds between two hours.
+ * @param length  the number of hours.
+ * @param changes the changed hours of each series, by series name, or
+ *                {@code null} for a series no longer part of the forecast.
+ * @param stale   whether the forecast was served because Open-Mateo could not
+ *                be reached.
+ */
+@Builder
+@With
+public record ForecastDeltaDTO(String version, String since, LocalDateTime start, int step, int length,
+        Map<String, ColumnDeltaDTO> changes, boolean stale) {
+
+}
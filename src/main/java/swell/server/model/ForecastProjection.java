@@ -0,0 +1,204 @@
+package swell.server.model;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import swell.server.constant.SurfSwellConstants;
+
+/**
+ * The part of a forecast a client asks for: which hourly variables, which hours
+ * and how densely. Only the variables needed are fetched from Open-Mateo, while
+ * the hours are cut from the cached forecast so every window of a location
+ * shares one cache entry.
+ *
+ * @param variables        the requested variables, {@code null} for all of them.
+ * @param startEpochSecond the first hour wanted, {@code null} for the first
+ *                         hour forecast.
+ * @param endEpochSecond   the last hour wanted, {@code null} for the last hour
+ *                         forecast.
+ * @param step             keeps every {@code step}th hour only.
+ */
+public record ForecastProjection(Set<String> variables, Long startEpochSecond, Long endEpochSecond, int step) {
+
+    /**
+     * The whole forecast.
+     */
+    public static final ForecastProjection ALL = new ForecastProjection(null, null, null, 1);
+
+    private static final int HOURS_PER_DAY = 24;
+    private static final long SECONDS_PER_HOUR = 3600;
+    private static final List<String> FETCHED_VARIABLES = List.of(SurfSwellConstants.Parameters.WAVE_HEIGHT,
+            SurfSwellConstants.Parameters.WAVE_PERIOD, SurfSwellConstants.Parameters.SWELL_WAVE_HEIGHT,
+            SurfSwellConstants.Parameters.SWELL_WAVE_PERIOD);
+    private static final Set<String> VARIABLES = Stream.concat(FETCHED_VARIABLES.stream(),
+            Stream.of(SurfSwellConstants.Parameters.PROJECTED_WAVE_FACE)).collect(Collectors.toUnmodifiableSet());
+
+    /**
+     * @param hourly        the variables wanted, all of them when {@code null}.
+     * @param startHour     the first hour wanted, in UTC.
+     * @param endHour       the last hour wanted, in UTC.
+     * @param forecastHours how many hours are wanted from the start hour, or the
+     *                      current hour when there is none.
+     * @param forecastDays  like {@code forecastHours}, in days.
+     * @param step          keeps every {@code step}th hour only.
+     *
+     * @throws ResponseStatusException with {@link HttpStatus#BAD_REQUEST} when no
+     *                                 or an unknown variable is given, or the hours
+     *                                 contradict each other.
+     */
+    public static ForecastProjection of(List<String> hourly, LocalDateTime startHour, LocalDateTime endHour,
+            Integer forecastHours, Integer forecastDays, Integer step, Clock clock) {
+        if (hourly != null && hourly.isEmpty()) {
+            throw badRequest("At least one hourly variable must be given, expected some of " + VARIABLES);
+        }
+
+        if (hourly != null && !VARIABLES.containsAll(hourly)) {
+            throw badRequest("Unknown hourly variable in " + hourly + ", expected some of " + VARIABLES);
+        }
+
+        if (step != null && step < 1 || forecastHours != null && forecastHours < 1
+                || forecastDays != null && forecastDays < 1) {
+            throw badRequest("The step and forecast length must be positive");
+        }
+
+        // In longs, since days in hours and hours in seconds may not fit an int.
+        var hours = forecastHours != null ? Long.valueOf(forecastHours)
+                : forecastDays != null ? Long.valueOf((long) forecastDays * HOURS_PER_DAY) : null;
+
+        if (hours != null && endHour != null) {
+            throw badRequest("Only one of the end hour or forecast length may be given");
+        }
+
+        var start = startHour != null ? Long.valueOf(startHour.toEpochSecond(ZoneOffset.UTC))
+                : hours != null ? Long.valueOf(clock.instant().truncatedTo(ChronoUnit.HOURS).getEpochSecond()) : null;
+        var end = endHour != null ? Long.valueOf(endHour.toEpochSecond(ZoneOffset.UTC))
+                : hours != null ? Long.valueOf(start + (hours - 1) * SECONDS_PER_HOUR) : null;
+
+        if (start != null && end != null && end < start) {
+            throw badRequest("The end hour must not be before the start hour");
+        }
+
+        return new ForecastProjection(hourly == null ? null : new LinkedHashSet<>(hourly), start, end,
+                step == null ? 1 : step);
+    }
+
+    /**
+     * @return the comma separated variables to fetch from Open-Mateo, in a fixed
+     *         order so equal projections share a cache entry. The projected wave
+     *         face needs both heights.
+     */
+    public String fetchedVariables() {
+        if (variables == null) {
+            return SurfSwellConstants.Parameters.FORECAST_VARIABLES;
+        }
+
+        var projectedWaveFace = variables.contains(SurfSwellConstants.Parameters.PROJECTED_WAVE_FACE);
+
+        return FETCHED_VARIABLES.stream()
+                .filter(variable -> variables.contains(variable) || projectedWaveFace
+                        && (variable.equals(SurfSwellConstants.Parameters.WAVE_HEIGHT)
+                                || variable.equals(SurfSwellConstants.Parameters.SWELL_WAVE_HEIGHT)))
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * @param fetchedVariables the comma separated variables to fetch from
+     *                         Open-Mateo, as another replica passes its
+     *                         {@link #fetchedVariables()}.
+     *
+     * @return the variables, unchanged.
+     *
+     * @throws ResponseStatusException with {@link HttpStatus#BAD_REQUEST} unless
+     *                                 they are some of the fetched variables, in
+     *                                 their fixed order.
+     */
+    public static String requireFetchedVariables(String fetchedVariables) {
+        var requested = Arrays.asList(fetchedVariables.split(",", -1));
+        var ordered = FETCHED_VARIABLES.stream().filter(requested::contains).collect(Collectors.joining(","));
+
+        if (ordered.isEmpty() || !ordered.equals(fetchedVariables)) {
+            throw badRequest("Unknown hourly variables " + fetchedVariables + ", expected some of "
+                    + SurfSwellConstants.Parameters.FORECAST_VARIABLES + " in that order");
+        }
+
+        return fetchedVariables;
+    }
+
+    /**
+     * Checks that the requested hours are all forecast, since {@link #apply} would
+     * otherwise cut the window short without the client knowing.
+     *
+     * @throws ResponseStatusException with {@link HttpStatus#BAD_REQUEST} when the
+     *                                 window starts or ends outside the hours of
+     *                                 the forecast.
+     */
+    public void requireWithin(SurfForecast forecast) {
+        if (forecast.length() == 0) {
+            return;
+        }
+
+        var first = forecast.startEpochSecond();
+        var last = forecast.epochSecondAt(forecast.length() - 1);
+
+        if (startEpochSecond != null && (startEpochSecond < first || startEpochSecond > last)
+                || endEpochSecond != null && endEpochSecond > last) {
+            throw badRequest("Only the hours from " + LocalDateTime.ofEpochSecond(first, 0, ZoneOffset.UTC)
+                    + " to " + LocalDateTime.ofEpochSecond(last, 0, ZoneOffset.UTC) + " are forecast");
+        }
+    }
+
+    /**
+     * @return the requested hours and variables of the forecast, every other
+     *         variable being {@code null}.
+     */
+    public SurfForecast apply(SurfForecast forecast) {
+        var from = 0;
+        var to = forecast.length();
+        var stepSeconds = Math.max(1, forecast.stepSeconds());
+
+        if (startEpochSecond != null) {
+            from = clamp(Math.ceilDiv(startEpochSecond - forecast.startEpochSecond(), stepSeconds), forecast);
+        }
+
+        if (endEpochSecond != null) {
+            to = clamp(Math.floorDiv(endEpochSecond - forecast.startEpochSecond(), stepSeconds) + 1, forecast);
+        }
+
+        var window = forecast.window(from, Math.max(from, to), step);
+
+        if (variables == null) {
+            return window;
+        }
+
+        return window
+                .withWaveHeight(keep(SurfSwellConstants.Parameters.WAVE_HEIGHT, window.waveHeight()))
+                .withWavePeriod(keep(SurfSwellConstants.Parameters.WAVE_PERIOD, window.wavePeriod()))
+                .withSwellWaveHeight(keep(SurfSwellConstants.Parameters.SWELL_WAVE_HEIGHT, window.swellWaveHeight()))
+                .withSwellWavePeriod(keep(SurfSwellConstants.Parameters.SWELL_WAVE_PERIOD, window.swellWavePeriod()))
+                .withProjectedWaveFace(
+                        keep(SurfSwellConstants.Parameters.PROJECTED_WAVE_FACE, window.projectedWaveFace()));
+    }
+
+    private double[] keep(String variable, double[] series) {
+        return variables.contains(variable) ? series : null;
+    }
+
+    private static int clamp(long index, SurfForecast forecast) {
+        return (int) Math.max(0, Math.min(index, forecast.length()));
+    }
+
+    private static ResponseStatusException badRequest(String reason) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, reason);
+    }
+}
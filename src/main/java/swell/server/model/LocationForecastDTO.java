@@ -0,0 +1,14 @@
+package swell.server.model;
+
+import lombok.Builder;
+import lombok.With;
+
+/**
+ * Encapsulates the forecast of a location, serialized as an
+ * {@link OceanicDataDTO}.
+ */
+@Builder
+@With
+public record LocationForecastDTO(LocationDTO location, SurfForecast forecast) {
+
+}
@@ -0,0 +1,23 @@
+package swell.server.model;
+
+import java.math.BigDecimal;
+
+import lombok.Builder;
+import lombok.With;
+
+/**
+ * Encapsulates a forecast shaped like an Open-Mateo response, for replicas to
+ * fetch forecasts from each other with the same decoder. The hourly forecast
+ * is serialized as an {@link OceanicDataDTO}.
+ */
+@Builder
+@With
+public record PeerForecastDTO(String latitude, String longitude, BigDecimal elevation, SurfForecast hourly) {
+
+    /**
+     * @return the {@link PeerForecastDTO} of the forecast.
+     */
+    public static PeerForecastDTO of(SurfForecast forecast) {
+        return new PeerForecastDTO(forecast.latitude(), forecast.longitude(), forecast.elevation(), forecast);
+    }
+}
@@ -0,0 +1,25 @@
+package swell.server.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import lombok.Builder;
+import lombok.With;
+
+/**
+ * Encapsulates how good the surf of a spot is expected to be over a window of
+ * hours.
+ *
+ * @param location  the spot.
+ * @param distance  from the location searched around, in kilometres.
+ * @param score     the average score of the hours of the window.
+ * @param bestHour  the hour of the window scoring highest, in UTC.
+ * @param bestScore the score of that hour.
+ * @param stale     whether the forecast of the spot could not be refreshed.
+ */
+@Builder
+@With
+public record SpotScoreDTO(LocationDTO location, BigDecimal distance, BigDecimal score, LocalDateTime bestHour,
+        BigDecimal bestScore, boolean stale) {
+
+}
@@ -0,0 +1,260 @@
+package swell.server.model;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Builder;
+import lombok.With;
+
+/**
+ * Columnar, primitive representation of a forecast used internally instead of
+ * {@link OceanicDataDTO}. The time axis is stored as the epoch second of the
+ * first hour plus a fixed step, and each variable as a {@code double[]} series
+ * where missing values are {@link Double#NaN}. Variables that were not
+ * requested are {@code null}. Derived metrics asked for by a client are carried
+ * by name in {@code metrics}, which is otherwise {@code null}. A forecast served
+ * because Open-Mateo could not be reached is marked {@code stale}.
+ * <p>
+ * The arrays are shared, not copied, and must not be modified once built.
+ */
+@Builder
+@With
+public record SurfForecast(String latitude, String longitude, BigDecimal elevation, long startEpochSecond,
+        int stepSeconds, int length, double[] waveHeight, double[] wavePeriod, double[] swellWaveHeight,
+        double[] swellWavePeriod, double[] projectedWaveFace, Map<String, double[]> metrics, boolean stale) {
+
+    /**
+     * Open-Mateo reports heights in metres with two decimals.
+     */
+    private static final double HEIGHT_PRECISION = 100;
+    private static final int DEFAULT_STEP_SECONDS = 3600;
+    private static final long VERSION_SEED = 0x9E3779B97F4A7C15L;
+    private static final long VERSION_MULTIPLIER = 0xBF58476D1CE4E5B9L;
+
+    /**
+     * @return the {@link SurfForecast} of the Open-Mateo response, with its
+     *         projected wave face computed.
+     */
+    public static SurfForecast from(OpenMateoOceanicWaveDataDTO openMateoOceanicWaveDataDTO) {
+        var hourly = openMateoOceanicWaveDataDTO.hourly();
+        var time = hourly.time();
+        var waveHeight = toSeries(hourly.wave_height());
+        var swellWaveHeight = toSeries(hourly.swell_wave_height());
+
+        return SurfForecast.builder()
+                .latitude(openMateoOceanicWaveDataDTO.latitude())
+                .longitude(openMateoOceanicWaveDataDTO.longitude())
+                .elevation(openMateoOceanicWaveDataDTO.elevation())
+                .startEpochSecond(time.isEmpty() ? 0 : time.get(0).toEpochSecond(ZoneOffset.UTC))
+                .stepSeconds(time.size() < 2 ? DEFAULT_STEP_SECONDS
+                        : (int) Duration.between(time.get(0), time.get(1)).toSeconds())
+                .length(time.size())
+                .waveHeight(waveHeight)
+                .wavePeriod(toSeries(hourly.wave_period()))
+                .swellWaveHeight(swellWaveHeight)
+                .swellWavePeriod(toSeries(hourly.swell_wave_period()))
+                .projectedWaveFace(projectedWaveFace(waveHeight, swellWaveHeight))
+                .build();
+    }
+
+    /**
+     * @return the projected wave face size by subtracting the swell height from the
+     *         wave height, or {@code null} when either series is missing.
+     */
+    public static double[] projectedWaveFace(double[] waveHeight, double[] swellHeight) {
+        if (waveHeight == null || swellHeight == null) {
+            return null;
+        }
+
+        var projectedWaveFace = new double[Math.min(waveHeight.length, swellHeight.length)];
+
+        for (int i = 0; i < projectedWaveFace.length; i++) {
+            // Rounded back to the input precision, adding 0.0 turns -0.0 into 0.0.
+            projectedWaveFace[i] = Math.rint((waveHeight[i] - swellHeight[i]) * HEIGHT_PRECISION)
+                    / HEIGHT_PRECISION + 0.0;
+        }
+
+        return projectedWaveFace;
+    }
+
+    /**
+     * @param from the index of the first hour kept.
+     * @param to   the index after the last hour kept.
+     * @param step keeps every {@code step}th hour only.
+     * 
+     * @return the forecast of the hours between the indexes, this forecast itself
+     *         when every hour is kept.
+     */
+    public SurfForecast window(int from, int to, int step) {
+        if (from == 0 && to == length && step == 1) {
+            return this;
+        }
+
+        var windowLength = to <= from ? 0 : (to - from + step - 1) / step;
+        Map<String, double[]> windowMetrics = null;
+
+        if (metrics != null) {
+            windowMetrics = new LinkedHashMap<>();
+
+            for (var metric : metrics.entrySet()) {
+                windowMetrics.put(metric.getKey(), window(metric.getValue(), from, windowLength, step));
+            }
+        }
+
+        return SurfForecast.builder()
+                .latitude(latitude)
+                .longitude(longitude)
+                .elevation(elevation)
+                .startEpochSecond(epochSecondAt(from))
+                .stepSeconds(stepSeconds * step)
+                .length(windowLength)
+                .waveHeight(window(waveHeight, from, windowLength, step))
+                .wavePeriod(window(wavePeriod, from, windowLength, step))
+                .swellWaveHeight(window(swellWaveHeight, from, windowLength, step))
+                .swellWavePeriod(window(swellWavePeriod, from, windowLength, step))
+                .projectedWaveFace(window(projectedWaveFace, from, windowLength, step))
+                .metrics(windowMetrics)
+                .stale(stale)
+                .build();
+    }
+
+    /**
+     * @return the epoch second of the hour at the index.
+     */
+    public long epochSecondAt(int index) {
+        return startEpochSecond + (long) index * stepSeconds;
+    }
+
+    /**
+     * @return a hash of the time axis, series and metrics of the forecast as 16
+     *         hex digits, the same for equal forecasts in any JVM. Whether it is
+     *         stale does not count.
+     */
+    public String version() {
+        var hash = mix(mix(mix(VERSION_SEED, startEpochSecond), stepSeconds), length);
+
+        for (var series : new double[][] { waveHeight, wavePeriod, swellWaveHeight, swellWavePeriod,
+                projectedWaveFace }) {
+            hash = mix(hash, series);
+        }
+
+        if (metrics != null) {
+            for (var metric : metrics.entrySet()) {
+                hash = mix(mix(hash, metric.getKey().hashCode()), metric.getValue());
+            }
+        }
+
+        return HexFormat.of().toHexDigits(hash);
+    }
+
+    /**
+     * @return the {@link OceanicDataDTO} returned to clients.
+     */
+    public OceanicDataDTO toOceanicDataDTO() {
+        return OceanicDataDTO.builder()
+                .time(toTimeStamps())
+                .wave_height(toBigDecimals(waveHeight))
+                .wave_period(toBigDecimals(wavePeriod))
+                .swell_wave_height(toBigDecimals(swellWaveHeight))
+                .swell_wave_period(toBigDecimals(swellWavePeriod))
+                .projectedWaveFace(toBigDecimals(projectedWaveFace))
+                .build();
+    }
+
+    /**
+     * @return the {@link OpenMateoOceanicWaveDataDTO} holding the same hourly
+     *         variables as this forecast.
+     */
+    public OpenMateoOceanicWaveDataDTO toOpenMateoOceanicWaveDataDTO() {
+        return OpenMateoOceanicWaveDataDTO.builder()
+                .latitude(latitude)
+                .longitude(longitude)
+                .elevation(elevation)
+                .hourly(toOceanicDataDTO().withProjectedWaveFace(null))
+                .build();
+    }
+
+    private List<LocalDateTime> toTimeStamps() {
+        var timeStamps = new ArrayList<LocalDateTime>(length);
+
+        for (int i = 0; i < length; i++) {
+            timeStamps.add(LocalDateTime.ofEpochSecond(epochSecondAt(i), 0, ZoneOffset.UTC));
+        }
+
+        return timeStamps;
+    }
+
+    private static double[] window(double[] series, int from, int length, int step) {
+        if (series == null) {
+            return null;
+        }
+
+        if (step == 1) {
+            return Arrays.copyOfRange(series, Math.min(from, series.length),
+                    Math.min(from + length, series.length));
+        }
+
+        var window = new double[Math.max(0, Math.min(length, (series.length - from + step - 1) / step))];
+
+        for (int i = 0; i < window.length; i++) {
+            window[i] = series[from + i * step];
+        }
+
+        return window;
+    }
+
+    private static long mix(long hash, double[] series) {
+        if (series == null) {
+            return mix(hash, -1);
+        }
+
+        hash = mix(hash, series.length);
+
+        for (var value : series) {
+            hash = mix(hash, Double.doubleToLongBits(value));
+        }
+
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        return Long.rotateLeft(hash ^ value * VERSION_SEED, 31) * VERSION_MULTIPLIER;
+    }
+
+    private static double[] toSeries(List<BigDecimal> values) {
+        if (values == null) {
+            return null;
+        }
+
+        var series = new double[values.size()];
+
+        for (int i = 0; i < series.length; i++) {
+            var value = values.get(i);
+            series[i] = value == null ? Double.NaN : value.doubleValue();
+        }
+
+        return series;
+    }
+
+    private static List<BigDecimal> toBigDecimals(double[] series) {
+        if (series == null) {
+            return null;
+        }
+
+        var values = new ArrayList<BigDecimal>(series.length);
+
+        for (var value : series) {
+            values.add(Double.isNaN(value) ? null : BigDecimal.valueOf(value));
+        }
+
+        return values;
+    }
+}
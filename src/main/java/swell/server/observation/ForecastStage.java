@@ -0,0 +1,47 @@
+package swell.server.observation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import swell.server.constant.SurfSwellConstants;
+
+/**
+ * The local stages a forecast passes through on its way to a client, each
+ * timed under {@value SurfSwellConstants.Metrics#FORECAST_STAGE} tagged by
+ * stage. Waiting on Open-Mateo is observed separately, see
+ * {@link swell.server.resilience.UpstreamGuard}.
+ */
+public enum ForecastStage {
+
+    /**
+     * Parsing the Open-Mateo response, summed over its chunks.
+     */
+    DECODE("decode"),
+    /**
+     * Computing the projected wave face of a decoded forecast.
+     */
+    PROJECTED_WAVE_FACE("projected_wave_face"),
+    /**
+     * Computing the requested derived metrics and projecting the forecast.
+     */
+    DERIVE("derive"),
+    /**
+     * Writing the forecast to the response, as JSON or binary.
+     */
+    SERIALIZE("serialize");
+
+    private final String tag;
+
+    ForecastStage(String tag) {
+        this.tag = tag;
+    }
+
+    /**
+     * @return the timer of the stage, meant to be looked up once and kept.
+     */
+    public Timer timer(MeterRegistry meterRegistry) {
+        return Timer.builder(SurfSwellConstants.Metrics.FORECAST_STAGE)
+                .description("Time spent in each local stage of serving a forecast")
+                .tag(SurfSwellConstants.Metrics.TAG_STAGE, tag)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,164 @@
+package swell.server.peer;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import swell.server.cache.ForecastKey;
+import swell.server.config.SurfSwellProperties;
+import swell.server.config.SurfSwellServerConfig;
+import swell.server.constant.SurfSwellConstants;
+import swell.server.exception.XMateoClient;
+import swell.server.model.SurfForecast;
+
+/**
+ * The replicas sharing their forecasts. Locations are owned by a replica on a
+ * consistent hash ring of the statically configured members, and only the owner
+ * fetches and caches their forecasts. Other replicas ask the owner, keeping
+ * what it answered in a small near cache for a short while.
+ */
+@Slf4j
+@Component
+public class ForecastPeers {
+
+    private static final String SUCCESS = "success";
+    private static final String ERROR = "error";
+
+    private final SurfSwellProperties.Peers properties;
+    private final HashRing ring;
+    private final WebClient webClient;
+    private final Cache<ForecastKey, SurfForecast> nearCache;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @throws IllegalStateException when peers are enabled but this replica is not
+     *                               one of the members, as it would then own no
+     *                               location yet never be asked for one either.
+     */
+    public ForecastPeers(SurfSwellProperties properties,
+            @Qualifier(SurfSwellServerConfig.SURF_SWELL_PEER_WEB_CLIENT) WebClient webClient,
+            MeterRegistry meterRegistry) {
+        this.properties = properties.peers();
+
+        if (this.properties.enabled() && !this.properties.members().contains(this.properties.self())) {
+            throw new IllegalStateException("swell.server.peers.self " + this.properties.self()
+                    + " must be one of swell.server.peers.members " + this.properties.members());
+        }
+
+        this.ring = new HashRing(this.properties.members(), this.properties.virtualNodes());
+        this.webClient = webClient;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(this.properties.nearCacheSize())
+                .expireAfterWrite(this.properties.nearCacheTtl())
+                .recordStats()
+                .build();
+        this.meterRegistry = meterRegistry;
+
+        CaffeineCacheMetrics.monitor(meterRegistry, nearCache, SurfSwellConstants.Metrics.FORECAST_NEAR_CACHE);
+    }
+
+    /**
+     * @return whether the location of the key is owned by this replica, which is
+     *         always the case unless peers are enabled.
+     */
+    public boolean owns(ForecastKey key) {
+        return owner(key) == null;
+    }
+
+    /**
+     * @return whether the near cache holds the forecast of the key.
+     */
+    public boolean contains(ForecastKey key) {
+        return nearCache.asMap().containsKey(key);
+    }
+
+    /**
+     * Fetches the forecast of a key owned by another replica, which answers from
+     * its cache or Open-Mateo.
+     * 
+     * @param fresh whether the forecast must be as of the latest Open-Mateo
+     *              update, rather than possibly taken from the near cache or
+     *              served stale while the owner revalidates it.
+     * 
+     * @return a {@link Mono} of the forecast, failing when the owner cannot be
+     *         reached.
+     */
+    public Mono<SurfForecast> fetch(ForecastKey key, boolean fresh) {
+        var owner = owner(key);
+
+        if (owner == null) {
+            return Mono.error(new IllegalStateException("The forecast of " + key + " is owned by this replica"));
+        }
+
+        var near = fresh ? null : nearCache.getIfPresent(key);
+
+        if (near != null) {
+            return Mono.just(near);
+        }
+
+        return Mono.defer(() -> {
+            var start = System.nanoTime();
+
+            return webClient.get()
+                    .uri(uri(owner, key, fresh))
+                    .accept(MediaType.APPLICATION_JSON)
+                    .retrieve()
+                    .bodyToMono(SurfForecast.class)
+                    .switchIfEmpty(Mono.error(() -> new XMateoClient("The replica " + owner + " had no forecast")))
+                    .doOnNext(forecast -> nearCache.put(key, forecast))
+                    .doOnSuccess(forecast -> record(owner, SUCCESS, start))
+                    .doOnError(e -> {
+                        record(owner, ERROR, start);
+                        log.warn("Could not fetch the forecast of {} from {}: {}", key, owner, e.getMessage());
+                    });
+        });
+    }
+
+    /**
+     * @return the base URL of the replica owning the location of the key, or
+     *         {@code null} when it is this one.
+     */
+    private String owner(ForecastKey key) {
+        if (!properties.enabled()) {
+            return null;
+        }
+
+        var owner = ring.owner(key.latitude() + ',' + key.longitude());
+
+        return owner == null || owner.equals(properties.self()) ? null : owner;
+    }
+
+    private void record(String owner, String outcome, long start) {
+        Timer.builder(SurfSwellConstants.Metrics.PEER_REQUESTS)
+                .description("Forecasts fetched from the replica owning them")
+                .tag(SurfSwellConstants.Metrics.TAG_PEER, owner)
+                .tag(SurfSwellConstants.Metrics.TAG_OUTCOME, outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static URI uri(String owner, ForecastKey key, boolean fresh) {
+        return UriComponentsBuilder.fromHttpUrl(owner)
+                .path(SurfSwellConstants.Paths.PEER_FORECAST)
+                .queryParam(SurfSwellConstants.Parameters.LATITUDE, key.latitude())
+                .queryParam(SurfSwellConstants.Parameters.LONGITUDE, key.longitude())
+                .queryParam(SurfSwellConstants.Parameters.HOURLY, key.variables())
+                .queryParam(SurfSwellConstants.Parameters.FRESH, fresh)
+                .encode()
+                .build()
+                .toUri();
+    }
+}
@@ -0,0 +1,65 @@
+package swell.server.peer;
+
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring placing every member at many points, so that keys spread
+ * evenly and adding or removing a member only moves the keys it owns. Hashes do
+ * not depend on the JVM, so every replica configured with the same members
+ * agrees on the owner of a key.
+ */
+class HashRing {
+
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+
+    /**
+     * @param members      the members sharing the keys.
+     * @param virtualNodes how many points each member has on the ring.
+     */
+    HashRing(List<String> members, int virtualNodes) {
+        for (var member : members) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(hash(member + '#' + i), member);
+            }
+        }
+    }
+
+    /**
+     * @return the member owning the key, the first one clockwise of its hash, or
+     *         {@code null} when there is no member.
+     */
+    String owner(String key) {
+        if (points.isEmpty()) {
+            return null;
+        }
+
+        var point = points.ceilingEntry(hash(key));
+
+        return (point != null ? point : points.firstEntry()).getValue();
+    }
+
+    /**
+     * FNV-1a, whose output is then mixed with the MurmurHash3 finalizer since
+     * FNV alone clusters the hashes of strings differing only in their last
+     * characters.
+     */
+    static long hash(String value) {
+        var hash = FNV_OFFSET_BASIS;
+
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+
+        return hash ^ hash >>> 33;
+    }
+}
@@ -0,0 +1,119 @@
+package swell.server.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit adjusted from the latency of the requests it admits, the
+ * way TCP Vegas sizes its congestion window. The lowest latency seen stands for
+ * a request that did not queue anywhere, and how much longer the others take
+ * estimates how many requests are queued behind the limit, e.g. for Open-Mateo
+ * connections or permits. The limit grows while that queue is short and
+ * shrinks once it builds up or requests fail.
+ */
+class AdaptiveLimit {
+
+    /**
+     * The lowest latency is forgotten after this many samples per unit of limit,
+     * in case Open-Mateo got slower for good.
+     */
+    private static final int PROBE_SAMPLES_PER_LIMIT = 30;
+
+    private final int minimumLimit;
+    private final int maximumLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private double estimatedLimit;
+    private long minimumLatencyNanos = Long.MAX_VALUE;
+    private long samples;
+
+    /**
+     * @param initialLimit the limit until latency has been observed.
+     * @param minimumLimit the lowest the limit may adapt to.
+     * @param maximumLimit the highest the limit may adapt to.
+     */
+    AdaptiveLimit(int initialLimit, int minimumLimit, int maximumLimit) {
+        this.minimumLimit = Math.max(1, minimumLimit);
+        this.maximumLimit = Math.max(this.minimumLimit, maximumLimit);
+        this.estimatedLimit = Math.clamp(initialLimit, this.minimumLimit, this.maximumLimit);
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Admits a request when fewer requests than the share of the limit are in
+     * flight.
+     *
+     * @param share of the limit the request may use, at least one request being
+     *              admitted whatever the share.
+     *
+     * @return whether the request was admitted, in which case it must be released.
+     */
+    boolean tryAcquire(double share) {
+        var allowed = Math.max(1, (int) (limit * share));
+
+        while (true) {
+            var current = inFlight.get();
+
+            if (current >= allowed) {
+                return false;
+            }
+
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a request whose latency says nothing about the load, such as a
+     * cancelled one.
+     */
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Releases a request and adapts the limit to how it went.
+     *
+     * @param latencyNanos how long the request took.
+     * @param failed       whether the request failed.
+     */
+    void release(long latencyNanos, boolean failed) {
+        sample(latencyNanos, failed, inFlight.getAndDecrement());
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void sample(long latencyNanos, boolean failed, int load) {
+        if (++samples > PROBE_SAMPLES_PER_LIMIT * estimatedLimit) {
+            samples = 0;
+            minimumLatencyNanos = latencyNanos;
+        }
+
+        minimumLatencyNanos = Math.max(1, Math.min(minimumLatencyNanos, latencyNanos));
+
+        var step = Math.max(1, Math.log10(estimatedLimit));
+        var queued = Math.ceil(estimatedLimit * (1 - (double) minimumLatencyNanos / Math.max(1, latencyNanos)));
+
+        if (failed) {
+            estimatedLimit -= step;
+        } else if (load * 2 < estimatedLimit) {
+            // Far below the limit, the latency tells nothing about whether it is right.
+            return;
+        } else if (queued <= step) {
+            estimatedLimit += 6 * step;
+        } else if (queued < 3 * step) {
+            estimatedLimit += step;
+        } else if (queued > 6 * step) {
+            estimatedLimit -= step;
+        }
+
+        estimatedLimit = Math.clamp(estimatedLimit, minimumLimit, maximumLimit);
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,257 @@
+package swell.server.resilience;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import swell.server.config.SurfSwellProperties;
+import swell.server.constant.SurfSwellConstants;
+
+/**
+ * Bounds how many requests of each endpoint are in flight, so that when
+ * Open-Mateo slows down the requests admitted keep their latency and the
+ * others are turned away at once instead of piling up until everyone times
+ * out. Each endpoint has an {@link AdaptiveLimit} learnt from the latency of
+ * its uncached requests, and lower {@link Priority} requests may only use a
+ * share of it, leaving room for the higher ones.
+ * <p>
+ * A request rejected while the endpoint is full fails with
+ * {@link HttpStatus#SERVICE_UNAVAILABLE}, and one rejected only because its
+ * priority used up its share with {@link HttpStatus#TOO_MANY_REQUESTS}, both
+ * telling the client when to retry.
+ */
+@Slf4j
+@Component
+public class AdmissionControl {
+
+    private final SurfSwellProperties.Admission properties;
+    private final LongSupplier nanoTime;
+    private final MeterRegistry meterRegistry;
+    private final Map<Endpoint, AdaptiveLimit> limits = new EnumMap<>(Endpoint.class);
+
+    @Autowired
+    public AdmissionControl(SurfSwellProperties properties, MeterRegistry meterRegistry) {
+        this(properties.admission(), meterRegistry, System::nanoTime);
+    }
+
+    AdmissionControl(SurfSwellProperties.Admission properties, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.properties = properties;
+        this.nanoTime = nanoTime;
+        this.meterRegistry = meterRegistry;
+
+        for (var endpoint : Endpoint.values()) {
+            var limit = new AdaptiveLimit(properties.initialLimit(), properties.minimumLimit(),
+                    properties.maximumLimit());
+            limits.put(endpoint, limit);
+
+            Gauge.builder(SurfSwellConstants.Metrics.ADMISSION_LIMIT, limit, AdaptiveLimit::limit)
+                    .description("Requests of the endpoint that may be in flight")
+                    .tag(SurfSwellConstants.Metrics.TAG_ENDPOINT, endpoint.tag())
+                    .register(meterRegistry);
+            Gauge.builder(SurfSwellConstants.Metrics.ADMISSION_IN_FLIGHT, limit, AdaptiveLimit::inFlight)
+                    .description("Requests of the endpoint in flight")
+                    .tag(SurfSwellConstants.Metrics.TAG_ENDPOINT, endpoint.tag())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * @param endpoint the request is counted against.
+     * @param priority of the request.
+     * @param request  started once admitted.
+     *
+     * @return the result of the request, or a {@link ResponseStatusException}
+     *         when it is not admitted.
+     */
+    public <T> Mono<T> admit(Endpoint endpoint, Priority priority, Supplier<Mono<T>> request) {
+        return Mono.defer(() -> {
+            var admission = tryAdmit(endpoint, priority);
+
+            // Deferred so that a request throwing right away still releases its place.
+            return Mono.defer(request)
+                    .doOnSuccess(value -> admission.succeeded())
+                    .doOnError(admission::failed)
+                    .doOnCancel(admission::cancelled);
+        });
+    }
+
+    /**
+     * Admits a streamed request like {@link #admit(Endpoint, Priority, Supplier)},
+     * keeping it in flight until its last element.
+     */
+    public <T> Flux<T> admitMany(Endpoint endpoint, Priority priority, Supplier<Flux<T>> request) {
+        return Flux.defer(() -> {
+            var admission = tryAdmit(endpoint, priority);
+
+            // Deferred so that a request throwing right away still releases its place.
+            return Flux.defer(request)
+                    .doOnComplete(admission::succeeded)
+                    .doOnError(admission::failed)
+                    .doOnCancel(admission::cancelled);
+        });
+    }
+
+    /**
+     * @return the admission of the request.
+     *
+     * @throws ResponseStatusException when the request is not admitted.
+     */
+    private Admission tryAdmit(Endpoint endpoint, Priority priority) {
+        var limit = limits.get(endpoint);
+
+        if (!properties.enabled()) {
+            limit.tryAcquire(Double.POSITIVE_INFINITY);
+        } else if (!limit.tryAcquire(share(priority))) {
+            throw reject(endpoint, priority, limit);
+        }
+
+        return new Admission(limit, priority);
+    }
+
+    private double share(Priority priority) {
+        return switch (priority) {
+            case CACHED -> 1;
+            case INTERACTIVE -> properties.interactiveShare();
+            case BULK -> properties.bulkShare();
+        };
+    }
+
+    private Rejection reject(Endpoint endpoint, Priority priority, AdaptiveLimit limit) {
+        var full = limit.inFlight() >= limit.limit();
+
+        Counter.builder(SurfSwellConstants.Metrics.ADMISSION_REJECTED)
+                .description("Requests turned away by the admission control")
+                .tag(SurfSwellConstants.Metrics.TAG_ENDPOINT, endpoint.tag())
+                .tag(SurfSwellConstants.Metrics.TAG_PRIORITY, priority.tag())
+                .register(meterRegistry)
+                .increment();
+        log.debug("Rejecting a {} {} request, {} of {} in flight", priority.tag(), endpoint.tag(), limit.inFlight(),
+                limit.limit());
+
+        return new Rejection(full ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.TOO_MANY_REQUESTS,
+                full ? ErrorMessages.OVERLOADED : ErrorMessages.SHED,
+                Math.max(1, (properties.retryAfter().toMillis() + 999) / 1000));
+    }
+
+    /**
+     * The endpoints limited separately.
+     */
+    public enum Endpoint {
+        /** Forecasts, of a single location or many. */
+        FORECAST,
+        /** Location searches. */
+        SEARCH;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * How readily a request is admitted, from the first to shed to the last.
+     */
+    public enum Priority {
+        /**
+         * Answered from the cache, using little but a thread and the response. The
+         * whole limit is available to them.
+         */
+        CACHED,
+        /**
+         * A single forecast or search that may wait for Open-Mateo, whose latency
+         * the limit is learnt from.
+         */
+        INTERACTIVE,
+        /**
+         * Many forecasts at once, which the limit may only partly be used for.
+         */
+        BULK;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * An admitted request under way, releasing its place on its first outcome
+     * only since an operator downstream may still cancel it after it failed.
+     */
+    private class Admission {
+
+        private final long start = nanoTime.getAsLong();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private final AdaptiveLimit limit;
+        private final boolean sampled;
+
+        Admission(AdaptiveLimit limit, Priority priority) {
+            this.limit = limit;
+            // The latency of the other requests depends on the cache or their size.
+            this.sampled = priority == Priority.INTERACTIVE;
+        }
+
+        void succeeded() {
+            finish(false);
+        }
+
+        /**
+         * Rejections of the request itself, such as a bad location, do not count
+         * as overload.
+         */
+        void failed(Throwable error) {
+            finish(!(error instanceof ResponseStatusException status && status.getStatusCode().is4xxClientError()));
+        }
+
+        void cancelled() {
+            if (finished.compareAndSet(false, true)) {
+                limit.release();
+            }
+        }
+
+        private void finish(boolean failed) {
+            if (finished.compareAndSet(false, true)) {
+                if (sampled) {
+                    limit.release(nanoTime.getAsLong() - start, failed);
+                } else {
+                    limit.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * A rejected request, telling the client in whole seconds when to retry.
+     */
+    private static class Rejection extends ResponseStatusException {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        Rejection(HttpStatus status, String reason, long retryAfterSeconds) {
+            super(status, reason);
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    static class ErrorMessages {
+        static final String OVERLOADED = "The server is busy, try again shortly.";
+        static final String SHED = "Too many requests of this kind at the moment, try again shortly.";
+    }
+}
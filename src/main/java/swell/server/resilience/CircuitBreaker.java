@@ -0,0 +1,128 @@
+package swell.server.resilience;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+import swell.server.config.SurfSwellProperties;
+
+/**
+ * Count based circuit breaker over the latest calls, opening when too many of
+ * them fail or are slow. Once open, calls are rejected until the open duration
+ * has passed, after which a few trial calls decide whether it closes again.
+ */
+@Slf4j
+class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final SurfSwellProperties.Resilience properties;
+    private final LongSupplier nanoTime;
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsCompleted;
+
+    CircuitBreaker(SurfSwellProperties.Resilience properties, LongSupplier nanoTime) {
+        this.properties = properties;
+        this.nanoTime = nanoTime;
+        this.failed = new boolean[properties.slidingWindowSize()];
+        this.slow = new boolean[properties.slidingWindowSize()];
+    }
+
+    synchronized State state() {
+        if (state == State.OPEN && nanoTime.getAsLong() - openedAt >= properties.openDuration().toNanos()) {
+            transition(State.HALF_OPEN);
+        }
+
+        return state;
+    }
+
+    /**
+     * @return whether a call may be made, which must then be followed by
+     *         {@link #onResult(long, boolean)} or {@link #release()}.
+     */
+    synchronized boolean tryAcquire() {
+        return switch (state()) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (trialsStarted < properties.halfOpenCalls()) {
+                    trialsStarted++;
+                    yield true;
+                }
+                yield false;
+            }
+        };
+    }
+
+    /**
+     * Gives back a permit whose call was abandoned without an outcome.
+     */
+    synchronized void release() {
+        if (state == State.HALF_OPEN && trialsStarted > trialsCompleted) {
+            trialsStarted--;
+        }
+    }
+
+    /**
+     * Records the outcome of a permitted call.
+     */
+    synchronized void onResult(long durationNanos, boolean failure) {
+        record(failure, durationNanos >= properties.slowCallDuration().toNanos());
+
+        if (state == State.HALF_OPEN) {
+            trialsCompleted++;
+
+            if (failure) {
+                transition(State.OPEN);
+            } else if (trialsCompleted >= properties.halfOpenCalls()) {
+                transition(State.CLOSED);
+            }
+        } else if (state == State.CLOSED && calls >= properties.minimumCalls()
+                && (failures * 100 >= properties.failureRateThreshold() * calls
+                        || slowCalls * 100 >= properties.slowCallRateThreshold() * calls)) {
+            transition(State.OPEN);
+        }
+    }
+
+    private void record(boolean failure, boolean slowCall) {
+        if (calls == failed.length) {
+            failures -= failed[next] ? 1 : 0;
+            slowCalls -= slow[next] ? 1 : 0;
+        } else {
+            calls++;
+        }
+
+        failed[next] = failure;
+        slow[next] = slowCall;
+        failures += failure ? 1 : 0;
+        slowCalls += slowCall ? 1 : 0;
+        next = (next + 1) % failed.length;
+    }
+
+    private void transition(State to) {
+        log.info("Open-Mateo circuit breaker {} -> {}", state, to);
+
+        state = to;
+        trialsStarted = 0;
+        trialsCompleted = 0;
+
+        if (to == State.OPEN) {
+            openedAt = nanoTime.getAsLong();
+        } else if (to == State.CLOSED) {
+            calls = 0;
+            failures = 0;
+            slowCalls = 0;
+            next = 0;
+        }
+    }
+}
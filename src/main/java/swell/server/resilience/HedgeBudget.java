@@ -0,0 +1,53 @@
+package swell.server.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free budget of hedged requests, keeping them to a share of the recent
+ * requests. Each request deposits that share of a hedge, up to what a sliding
+ * window of requests would earn, and each hedge withdraws a whole one. The
+ * budget starts full.
+ */
+class HedgeBudget {
+
+    private static final long HEDGE = 1000;
+
+    private final long deposit;
+    private final long maximumBalance;
+    private final AtomicLong balance;
+
+    /**
+     * @param percentage of the requests which may be hedged.
+     * @param window     how many requests the balance may be saved up over.
+     */
+    HedgeBudget(int percentage, int window) {
+        this.deposit = HEDGE * percentage / 100;
+        this.maximumBalance = deposit * Math.max(1, window);
+        this.balance = new AtomicLong(maximumBalance);
+    }
+
+    /**
+     * Records a request, adding its share to the balance.
+     */
+    void deposit() {
+        balance.accumulateAndGet(deposit, (current, added) -> Math.min(maximumBalance, current + added));
+    }
+
+    /**
+     * @return whether a hedge may be sent, in which case it is withdrawn from the
+     *         balance.
+     */
+    boolean tryWithdraw() {
+        while (true) {
+            var current = balance.get();
+
+            if (current < HEDGE) {
+                return false;
+            }
+
+            if (balance.compareAndSet(current, current - HEDGE)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package swell.server.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket, kept as the theoretical arrival time of the next
+ * request (the generic cell rate algorithm) rather than a token count refilled
+ * by a timer.
+ */
+class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final long maximumWaitNanos;
+    private final LongSupplier nanoTime;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param permitsPerSecond the sustained rate of permits.
+     * @param burst            how many permits may be taken at once.
+     * @param maximumWait      how long a caller is willing to wait for a permit.
+     */
+    TokenBucket(double permitsPerSecond, int burst, Duration maximumWait, LongSupplier nanoTime) {
+        this.intervalNanos = (long) (Duration.ofSeconds(1).toNanos() / permitsPerSecond);
+        this.toleranceNanos = intervalNanos * (Math.max(1, burst) - 1);
+        this.maximumWaitNanos = maximumWait.toNanos();
+        this.nanoTime = nanoTime;
+        this.theoreticalArrival = new AtomicLong(nanoTime.getAsLong());
+    }
+
+    /**
+     * Reserves a permit.
+     *
+     * @return how many nanoseconds to wait before using the permit, or {@code -1}
+     *         when no permit is available within the maximum wait, in which case
+     *         nothing is reserved.
+     */
+    long reserve() {
+        while (true) {
+            var now = nanoTime.getAsLong();
+            var arrival = theoreticalArrival.get();
+            var wait = Math.max(0, arrival - toleranceNanos - now);
+
+            if (wait > maximumWaitNanos) {
+                return -1;
+            }
+
+            if (theoreticalArrival.compareAndSet(arrival, Math.max(arrival, now) + intervalNanos)) {
+                return wait;
+            }
+        }
+    }
+
+    /**
+     * Gives back a permit reserved but never used, such as when its caller stopped
+     * waiting for it.
+     */
+    void cancel() {
+        theoreticalArrival.addAndGet(-intervalNanos);
+    }
+}
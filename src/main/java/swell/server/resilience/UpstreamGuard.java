@@ -0,0 +1,250 @@
+package swell.server.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import swell.server.config.SurfSwellProperties;
+import swell.server.constant.SurfSwellConstants;
+import swell.server.exception.XMateoClient;
+
+/**
+ * Guards every request to Open-Mateo with a token bucket sized to our quota and
+ * a circuit breaker aware of errors and latency. Single requests are also
+ * retried with jittered exponential backoff and hedged with a second identical
+ * request when the first is slow, both being safe for its idempotent GETs.
+ * Hedges are kept to a share of the recent requests, and only sent while the
+ * breaker is closed.
+ * <p>
+ * Requests refused by the limiter or the breaker fail at once with an
+ * {@link XMateoClient}, leaving callers to fall back to stale data.
+ * <p>
+ * Every attempt reaching Open-Mateo is observed as
+ * {@value SurfSwellConstants.Metrics#OPEN_MATEO_REQUESTS}, timing it by the
+ * caller's tags and its outcome, counting the attempts in flight and, when a
+ * tracer is configured, recording it as a span.
+ */
+@Component
+public class UpstreamGuard {
+
+    private static final double RETRY_JITTER = 0.5;
+
+    private final SurfSwellProperties.Resilience properties;
+    private final ObservationRegistry observationRegistry;
+    private final LongSupplier nanoTime;
+    private final TokenBucket tokenBucket;
+    private final CircuitBreaker circuitBreaker;
+    private final HedgeBudget hedgeBudget;
+
+    @Autowired
+    public UpstreamGuard(SurfSwellProperties properties, ObservationRegistry observationRegistry,
+            MeterRegistry meterRegistry) {
+        this(properties.resilience(), observationRegistry, meterRegistry, System::nanoTime);
+    }
+
+    UpstreamGuard(SurfSwellProperties.Resilience properties, ObservationRegistry observationRegistry,
+            MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.properties = properties;
+        this.observationRegistry = observationRegistry;
+        this.nanoTime = nanoTime;
+        this.tokenBucket = new TokenBucket(properties.permitsPerSecond(), properties.burst(),
+                properties.maximumPermitWait(), nanoTime);
+        this.circuitBreaker = new CircuitBreaker(properties, nanoTime);
+        this.hedgeBudget = new HedgeBudget(properties.hedgePercentage(), properties.slidingWindowSize());
+
+        Gauge.builder(SurfSwellConstants.Metrics.OPEN_MATEO_CIRCUIT_STATE, circuitBreaker,
+                breaker -> breaker.state().ordinal())
+                .description("State of the Open-Mateo circuit breaker, 0 closed, 1 open and 2 half open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param tags    describing the request, such as the hourly variables.
+     * @param request making a single idempotent Open-Mateo request each time it
+     *                is called.
+     *
+     * @return the response of the first attempt to succeed.
+     */
+    public <T> Mono<T> guard(KeyValues tags, Supplier<Mono<T>> request) {
+        return hedged(tags, request).retryWhen(Retry.backoff(properties.maximumRetries(), properties.retryBackoff())
+                .jitter(RETRY_JITTER)
+                .filter(UpstreamGuard::isUpstreamFault)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    /**
+     * Guards a streamed request by the limiter and breaker only, since retrying
+     * or hedging it could emit its elements twice.
+     */
+    public <T> Flux<T> guardMany(KeyValues tags, Supplier<Flux<T>> request) {
+        return permit().thenMany(Flux.defer(() -> {
+            var attempt = new Attempt(tags);
+
+            return request.get()
+                    .doOnComplete(attempt::succeeded)
+                    .doOnError(attempt::failed)
+                    .doOnCancel(attempt::cancelled);
+        }));
+    }
+
+    /**
+     * @return whether the error is one Open-Mateo may not repeat, a failed
+     *         connection, a timeout, throttling or a server error.
+     */
+    static boolean isUpstreamFault(Throwable error) {
+        return error instanceof WebClientRequestException || error instanceof TimeoutException
+                || error instanceof WebClientResponseException response
+                        && (response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429);
+    }
+
+    /**
+     * @return the outcome tag of an attempt that failed with the error.
+     */
+    static String outcome(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            if (response.getStatusCode().value() == 429) {
+                return "throttled";
+            }
+
+            return response.getStatusCode().is5xxServerError() ? "server_error" : "client_error";
+        }
+
+        if (error instanceof TimeoutException) {
+            return "timeout";
+        }
+
+        return error instanceof WebClientRequestException ? "io_error" : "unknown";
+    }
+
+    private <T> Mono<T> hedged(KeyValues tags, Supplier<Mono<T>> request) {
+        if (properties.hedgeDelay().isZero()) {
+            return attempt(tags, request);
+        }
+
+        // A failed hedge defers to the first attempt, which decides the outcome.
+        return Mono.defer(() -> {
+            hedgeBudget.deposit();
+
+            return Mono.firstWithSignal(attempt(tags, request), Mono.delay(properties.hedgeDelay())
+                    .then(Mono.defer(() -> hedge(tags, request)))
+                    .onErrorResume(e -> Mono.never()));
+        });
+    }
+
+    /**
+     * @return the hedge of a slow request, or a {@link Mono} never signalling when
+     *         the breaker is not closed or the hedge budget is spent, as more
+     *         requests would then only add to the load of a struggling Open-Mateo.
+     */
+    private <T> Mono<T> hedge(KeyValues tags, Supplier<Mono<T>> request) {
+        if (circuitBreaker.state() != CircuitBreaker.State.CLOSED || !hedgeBudget.tryWithdraw()) {
+            return Mono.never();
+        }
+
+        return attempt(tags, request);
+    }
+
+    private <T> Mono<T> attempt(KeyValues tags, Supplier<Mono<T>> request) {
+        return permit().then(Mono.defer(() -> {
+            var attempt = new Attempt(tags);
+
+            return request.get()
+                    .doOnSuccess(value -> attempt.succeeded())
+                    .doOnError(attempt::failed)
+                    .doOnCancel(attempt::cancelled);
+        }));
+    }
+
+    /**
+     * @return a {@link Mono} completing once a call is permitted, or failing at
+     *         once when the breaker is open or no permit is available in time.
+     */
+    private Mono<Void> permit() {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                return Mono.error(new XMateoClient(ErrorMessages.CIRCUIT_OPEN));
+            }
+
+            var wait = tokenBucket.reserve();
+
+            if (wait < 0) {
+                circuitBreaker.release();
+                return Mono.error(new XMateoClient(ErrorMessages.RATE_LIMITED));
+            }
+
+            return wait == 0 ? Mono.empty() : Mono.delay(Duration.ofNanos(wait)).then().doOnCancel(() -> {
+                tokenBucket.cancel();
+                circuitBreaker.release();
+            });
+        });
+    }
+
+    /**
+     * A permitted call under way, reporting its first outcome only since an
+     * operator downstream may still cancel it after it failed.
+     */
+    private class Attempt {
+
+        private final long start = nanoTime.getAsLong();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private final Observation observation;
+
+        Attempt(KeyValues tags) {
+            this.observation = Observation
+                    .createNotStarted(SurfSwellConstants.Metrics.OPEN_MATEO_REQUESTS, observationRegistry)
+                    .contextualName("open-mateo request")
+                    .lowCardinalityKeyValues(tags)
+                    .start();
+        }
+
+        void succeeded() {
+            if (finished.compareAndSet(false, true)) {
+                circuitBreaker.onResult(nanoTime.getAsLong() - start, false);
+                stop("success");
+            }
+        }
+
+        /**
+         * Errors of the request itself, such as a bad request, do not count against
+         * Open-Mateo.
+         */
+        void failed(Throwable error) {
+            if (finished.compareAndSet(false, true)) {
+                circuitBreaker.onResult(nanoTime.getAsLong() - start, isUpstreamFault(error));
+                observation.error(error);
+                stop(outcome(error));
+            }
+        }
+
+        void cancelled() {
+            if (finished.compareAndSet(false, true)) {
+                circuitBreaker.release();
+                stop("cancelled");
+            }
+        }
+
+        private void stop(String outcome) {
+            observation.lowCardinalityKeyValue(SurfSwellConstants.Metrics.TAG_OUTCOME, outcome).stop();
+        }
+    }
+
+    static class ErrorMessages {
+        static final String CIRCUIT_OPEN = "Open-Mateo is failing, requests are paused for a while.";
+        static final String RATE_LIMITED = "Too many Open-Mateo requests, try again shortly.";
+    }
+}
@@ -0,0 +1,112 @@
+package swell.server.search;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import swell.server.model.LocationDTO;
+
+/**
+ * Reads a gazetteer of tab separated {@code name}, {@code latitude},
+ * {@code longitude} and optional {@code population} lines. The file is memory
+ * mapped and scanned in place, so only the fields themselves are copied onto
+ * the heap. Blank lines, lines starting with {@code #} and lines with fewer
+ * than three fields are skipped.
+ */
+class GazetteerReader {
+
+    private static final byte TAB = '\t';
+    private static final byte NEW_LINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final byte COMMENT = '#';
+    private static final int FIELDS = 4;
+
+    /**
+     * Receives every location of the gazetteer.
+     */
+    @FunctionalInterface
+    interface Consumer {
+        void accept(LocationDTO location, long population);
+    }
+
+    private GazetteerReader() {
+    }
+
+    /**
+     * @return the number of locations read.
+     *
+     * @throws IOException when the file cannot be mapped.
+     */
+    static int read(Path gazetteer, Consumer consumer) throws IOException {
+        try (var channel = FileChannel.open(gazetteer, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), consumer);
+        }
+    }
+
+    private static int read(MappedByteBuffer buffer, Consumer consumer) {
+        var fields = new String[FIELDS];
+        var count = 0;
+        var position = 0;
+        var limit = buffer.limit();
+
+        while (position < limit) {
+            var end = position;
+
+            while (end < limit && buffer.get(end) != NEW_LINE) {
+                end++;
+            }
+
+            if (readLine(buffer, position, end, fields)) {
+                var population = NumberUtils.toLong(fields[3], 0);
+                consumer.accept(new LocationDTO(fields[0], fields[1], fields[2]), population);
+                count++;
+            }
+
+            position = end + 1;
+        }
+
+        return count;
+    }
+
+    /**
+     * Splits the line between the offsets into the fields.
+     *
+     * @return whether the line holds a location.
+     */
+    private static boolean readLine(MappedByteBuffer buffer, int start, int end, String[] fields) {
+        if (end > start && buffer.get(end - 1) == CARRIAGE_RETURN) {
+            end--;
+        }
+
+        if (end == start || buffer.get(start) == COMMENT) {
+            return false;
+        }
+
+        var field = 0;
+        var fieldStart = start;
+
+        for (int i = start; i <= end && field < FIELDS; i++) {
+            if (i == end || buffer.get(i) == TAB) {
+                fields[field++] = decode(buffer, fieldStart, i);
+                fieldStart = i + 1;
+            }
+        }
+
+        for (int i = field; i < FIELDS; i++) {
+            fields[i] = null;
+        }
+
+        return field >= 3 && !fields[0].isEmpty();
+    }
+
+    private static String decode(MappedByteBuffer buffer, int start, int end) {
+        var bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8).trim();
+    }
+}
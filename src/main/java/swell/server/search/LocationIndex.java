@@ -0,0 +1,138 @@
+package swell.server.search;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+import swell.server.config.SurfSwellProperties;
+import swell.server.model.LocationDTO;
+
+/**
+ * In-process index of known locations answering type-ahead searches without
+ * calling Open-Mateo. It is seeded from the configured gazetteer at startup and
+ * learns every location Open-Mateo returns afterwards. Names are matched by
+ * prefix, falling back to a few typos for longer queries, and ranked by how
+ * often their forecast is requested. Known locations are also indexed by their
+ * coordinates, to find the spots around a location.
+ */
+@Slf4j
+@Component
+public class LocationIndex {
+
+    /**
+     * The most typos tolerated, for queries of seven characters or more.
+     */
+    private static final int MAXIMUM_EDITS = 2;
+
+    private final SurfSwellProperties.Search properties;
+    private final LocationTrie trie;
+    private final SpotGrid grid;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public LocationIndex(SurfSwellProperties properties) {
+        this.properties = properties.search();
+        this.trie = new LocationTrie(this.properties.maximumResults());
+        this.grid = new SpotGrid(properties.nearby().gridResolution());
+
+        if (this.properties.enabled() && this.properties.gazetteer() != null) {
+            loadGazetteer();
+        }
+    }
+
+    private void loadGazetteer() {
+        var start = System.nanoTime();
+
+        lock.writeLock().lock();
+        try {
+            GazetteerReader.read(properties.gazetteer(), this::addLocked);
+            log.info("Indexed {} gazetteer locations in {} ms", trie.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            log.warn("Could not load the gazetteer {}", properties.gazetteer(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param name the location's name, or the start of it.
+     *
+     * @return the best matching known locations, empty when none are known or the
+     *         index is disabled.
+     */
+    public List<LocationDTO> search(String name) {
+        if (!properties.enabled()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            return trie.search(name, MAXIMUM_EDITS);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param radius in kilometres.
+     * @param limit  the most locations returned.
+     *
+     * @return the known locations within the radius of the coordinates, nearest
+     *         first, empty when the index is disabled.
+     */
+    public List<NearbyLocation> nearby(double latitude, double longitude, double radius, int limit) {
+        if (!properties.enabled()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            return grid.nearby(latitude, longitude, radius, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Learns the locations, as long as the index is not full.
+     */
+    public void addAll(List<LocationDTO> locations) {
+        if (!properties.enabled() || locations.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            locations.forEach(location -> addLocked(location, 0));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts a forecast request for the location, ranking it higher in later
+     * searches.
+     */
+    public void recordRequest(LocationDTO location) {
+        if (!properties.enabled() || location.name() == null) {
+            return;
+        }
+
+        lock.readLock().lock();
+        try {
+            trie.recordRequest(location);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addLocked(LocationDTO location, long population) {
+        if (trie.size() < properties.maximumEntries() && trie.add(location, population)) {
+            grid.add(location);
+        }
+    }
+}
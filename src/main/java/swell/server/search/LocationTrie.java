@@ -0,0 +1,351 @@
+package swell.server.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import swell.server.model.LocationDTO;
+
+/**
+ * Character trie over normalized location names. Each node keeps its children
+ * in a sorted {@code char[]} so lookups are a binary search per character and
+ * no boxed map is held per node. Each node also keeps the best ranked entries
+ * below it, updated as entries are added and requested, so a search reads them
+ * rather than walking every name starting with the query.
+ * <p>
+ * Not thread-safe, {@link LocationIndex} guards it. Requests may be recorded
+ * concurrently with searches though, each node replacing its best entries
+ * whole.
+ */
+class LocationTrie {
+
+    private static final char[] NO_LABELS = {};
+    private static final Node[] NO_CHILDREN = {};
+    private static final Entry[] NO_ENTRIES = {};
+
+    /**
+     * Most requested first, then most populated, then shortest name.
+     */
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingLong((Entry entry) -> entry.requests.sum()).reversed()
+            .thenComparing(Comparator.comparingLong((Entry entry) -> entry.population).reversed())
+            .thenComparingInt(entry -> entry.location.name().length());
+
+    private final Node root = new Node();
+    private final int limit;
+    private int size;
+
+    /**
+     * @param limit the maximum number of locations returned by a search.
+     */
+    LocationTrie(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * @return the name in lower case, without diacritics and with every run of
+     *         punctuation or whitespace turned into a single space.
+     */
+    static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+
+        var decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        var normalized = new StringBuilder(decomposed.length());
+        var pendingSpace = false;
+
+        for (int i = 0; i < decomposed.length(); i++) {
+            var c = decomposed.charAt(i);
+
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && !normalized.isEmpty()) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+
+        return normalized.toString();
+    }
+
+    /**
+     * @return the number of locations held.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds the location unless one with the same name and coordinates is already
+     * held.
+     *
+     * @return whether the location was added.
+     */
+    boolean add(LocationDTO location, long population) {
+        var name = normalize(location.name());
+
+        if (name.isEmpty()) {
+            return false;
+        }
+
+        var node = root;
+
+        for (int i = 0; i < name.length(); i++) {
+            node = node.childOrCreate(name.charAt(i));
+        }
+
+        if (node.find(location) != null) {
+            return false;
+        }
+
+        var entry = new Entry(location, population);
+
+        node.entries = Arrays.copyOf(node.entries, node.entries.length + 1);
+        node.entries[node.entries.length - 1] = entry;
+        size++;
+        offer(name, entry);
+
+        return true;
+    }
+
+    /**
+     * Counts a forecast request for the location, if it is held.
+     */
+    void recordRequest(LocationDTO location) {
+        var name = normalize(location.name());
+        var node = find(name);
+        var entry = node == null ? null : node.find(location);
+
+        if (entry != null) {
+            entry.requests.increment();
+            offer(name, entry);
+        }
+    }
+
+    /**
+     * @param query        the name being looked up, matched against the start of
+     *                     the held names.
+     * @param maximumEdits the maximum number of inserted, deleted or substituted
+     *                     characters tolerated when too few names start with the
+     *                     query.
+     *
+     * @return the best ranked locations, exact prefix matches first.
+     */
+    List<LocationDTO> search(String query, int maximumEdits) {
+        var normalized = normalize(query);
+
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        var seen = Collections.newSetFromMap(new IdentityHashMap<Entry, Boolean>());
+        var matches = new ArrayList<LocationDTO>(limit);
+        var prefix = find(normalized);
+
+        if (prefix != null) {
+            addBest(List.of(prefix), limit, seen, matches);
+        }
+
+        var edits = Math.min(maximumEdits, (normalized.length() - 1) / 3);
+
+        if (matches.size() < limit && edits > 0) {
+            var fuzzy = new ArrayList<Node>();
+            var row = new int[normalized.length() + 1];
+
+            for (int i = 0; i < row.length; i++) {
+                row[i] = i;
+            }
+
+            for (int i = 0; i < root.labels.length; i++) {
+                collectFuzzy(root.children[i], root.labels[i], row, normalized, edits, fuzzy);
+            }
+
+            addBest(fuzzy, limit - matches.size(), seen, matches);
+        }
+
+        return matches;
+    }
+
+    private Node find(String name) {
+        var node = root;
+
+        for (int i = 0; node != null && i < name.length(); i++) {
+            node = node.child(name.charAt(i));
+        }
+
+        return node;
+    }
+
+    /**
+     * Offers the entry to the best ranked entries of every node along its name.
+     */
+    private void offer(String name, Entry entry) {
+        var node = root;
+
+        for (int i = 0; i < name.length(); i++) {
+            node = node.child(name.charAt(i));
+            node.offer(entry, limit);
+        }
+    }
+
+    /**
+     * Walks the trie computing one row of the Levenshtein distance to the query
+     * per character, collecting every node whose name prefix is within the
+     * distance and pruning branches that can no longer get within it.
+     */
+    private static void collectFuzzy(Node node, char label, int[] previousRow, String query, int maximumEdits,
+            List<Node> matches) {
+        var row = new int[previousRow.length];
+        var closest = row[0] = previousRow[0] + 1;
+
+        for (int i = 1; i < row.length; i++) {
+            var substitution = previousRow[i - 1] + (query.charAt(i - 1) == label ? 0 : 1);
+            row[i] = Math.min(substitution, Math.min(row[i - 1], previousRow[i]) + 1);
+            closest = Math.min(closest, row[i]);
+        }
+
+        if (row[row.length - 1] <= maximumEdits) {
+            matches.add(node);
+        } else if (closest <= maximumEdits) {
+            for (int i = 0; i < node.labels.length; i++) {
+                collectFuzzy(node.children[i], node.labels[i], row, query, maximumEdits, matches);
+            }
+        }
+    }
+
+    /**
+     * Adds the best ranked entries below the nodes that were not added already.
+     * Each node keeping as many best entries as a search returns, those not added
+     * already are enough to fill the rest of it.
+     */
+    private static void addBest(List<Node> nodes, int limit, Set<Entry> seen, List<LocationDTO> matches) {
+        var ranked = new ArrayList<Entry>();
+
+        for (var node : nodes) {
+            for (var entry : node.best) {
+                if (!seen.contains(entry)) {
+                    ranked.add(entry);
+                }
+            }
+        }
+
+        ranked.sort(RANKING);
+
+        for (var entry : ranked.subList(0, Math.min(limit, ranked.size()))) {
+            seen.add(entry);
+            matches.add(entry.location);
+        }
+    }
+
+    private static final class Node {
+
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private Entry[] entries = NO_ENTRIES;
+        private volatile Entry[] best = NO_ENTRIES;
+
+        Node child(char label) {
+            var index = Arrays.binarySearch(labels, label);
+            return index < 0 ? null : children[index];
+        }
+
+        Node childOrCreate(char label) {
+            var index = Arrays.binarySearch(labels, label);
+
+            if (index >= 0) {
+                return children[index];
+            }
+
+            var insertion = -index - 1;
+            var child = new Node();
+
+            labels = insert(labels, insertion, label);
+            children = insert(children, insertion, child);
+
+            return child;
+        }
+
+        /**
+         * Keeps the entry among the best ranked below the node when it now ranks
+         * high enough. Rankings only ever improve, so offering an entry whenever it
+         * is added or requested keeps the best entries exact.
+         */
+        synchronized void offer(Entry entry, int limit) {
+            var current = best;
+            Entry[] updated;
+
+            if (Arrays.asList(current).contains(entry)) {
+                updated = current.clone();
+            } else if (current.length < limit) {
+                updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = entry;
+            } else if (current.length > 0 && RANKING.compare(entry, current[current.length - 1]) < 0) {
+                updated = current.clone();
+                updated[updated.length - 1] = entry;
+            } else {
+                return;
+            }
+
+            Arrays.sort(updated, RANKING);
+            best = updated;
+        }
+
+        Entry find(LocationDTO location) {
+            for (var entry : entries) {
+                if (entry.sameCoordinates(location)) {
+                    return entry;
+                }
+            }
+
+            return null;
+        }
+
+        private static char[] insert(char[] array, int index, char value) {
+            var inserted = new char[array.length + 1];
+            System.arraycopy(array, 0, inserted, 0, index);
+            inserted[index] = value;
+            System.arraycopy(array, index, inserted, index + 1, array.length - index);
+            return inserted;
+        }
+
+        private static Node[] insert(Node[] array, int index, Node value) {
+            var inserted = new Node[array.length + 1];
+            System.arraycopy(array, 0, inserted, 0, index);
+            inserted[index] = value;
+            System.arraycopy(array, index, inserted, index + 1, array.length - index);
+            return inserted;
+        }
+    }
+
+    private static final class Entry {
+
+        private final LocationDTO location;
+        private final long population;
+        private final LongAdder requests = new LongAdder();
+
+        Entry(LocationDTO location, long population) {
+            this.location = location;
+            this.population = population;
+        }
+
+        boolean sameCoordinates(LocationDTO other) {
+            return Objects.equals(location.latitude(), other.latitude())
+                    && Objects.equals(location.longitude(), other.longitude());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package swell.server.search;
+
+import swell.server.model.LocationDTO;
+
+/**
+ * A known location found around another one.
+ *
+ * @param location the known location.
+ * @param distance from the center searched around, in kilometres.
+ */
+public record NearbyLocation(LocationDTO location, double distance) {
+}
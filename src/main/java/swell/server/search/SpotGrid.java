@@ -0,0 +1,114 @@
+package swell.server.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import swell.server.model.LocationDTO;
+
+/**
+ * Spatial index of known locations, bucketed by cells of a fixed number of
+ * degrees so that finding those within a radius only looks at the cells the
+ * radius overlaps. Cells wrap around the antimeridian, and near the poles the
+ * search widens to every longitude.
+ */
+class SpotGrid {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    private final double resolution;
+    private final int columns;
+    private final Map<Long, List<Spot>> cells = new HashMap<>();
+
+    /**
+     * @param resolution the size of the cells in degrees.
+     */
+    SpotGrid(double resolution) {
+        this.resolution = resolution;
+        this.columns = (int) Math.ceil(360 / resolution);
+    }
+
+    /**
+     * Indexes the location, unless its coordinates are not numbers.
+     */
+    void add(LocationDTO location) {
+        double latitude;
+        double longitude;
+
+        try {
+            latitude = Double.parseDouble(location.latitude());
+            longitude = Double.parseDouble(location.longitude());
+        } catch (NullPointerException | NumberFormatException e) {
+            return;
+        }
+
+        cells.computeIfAbsent(cell(row(latitude), column(longitude)), cell -> new ArrayList<>())
+                .add(new Spot(location, latitude, longitude));
+    }
+
+    /**
+     * @param radius in kilometres.
+     * @param limit  the most locations returned.
+     *
+     * @return the locations within the radius of the coordinates, nearest first.
+     */
+    List<NearbyLocation> nearby(double latitude, double longitude, double radius, int limit) {
+        var latitudeSpan = radius / KM_PER_DEGREE;
+        // A degree of longitude is shortest at the latitude closest to the pole.
+        var cosine = Math.cos(Math.toRadians(Math.min(90, Math.abs(latitude) + latitudeSpan)));
+        var longitudeSpan = cosine * 180 <= latitudeSpan ? 180 : latitudeSpan / cosine;
+        // Counted rather than bounded by the last column, which may not fit an int.
+        var width = (int) Math.min(columns, Math.floor((longitude + longitudeSpan + 180) / resolution)
+                - Math.floor((longitude - longitudeSpan + 180) / resolution) + 1);
+        var fromColumn = width == columns ? 0 : column(longitude - longitudeSpan);
+        var fromRow = row(Math.max(-90, latitude - latitudeSpan));
+        var toRow = row(Math.min(90, latitude + latitudeSpan));
+        var found = new ArrayList<NearbyLocation>();
+
+        for (var row = fromRow; row <= toRow; row++) {
+            for (var i = 0; i < width; i++) {
+                for (var spot : cells.getOrDefault(cell(row, (fromColumn + i) % columns), List.of())) {
+                    var distance = distance(latitude, longitude, spot.latitude, spot.longitude);
+
+                    if (distance <= radius) {
+                        found.add(new NearbyLocation(spot.location, distance));
+                    }
+                }
+            }
+        }
+
+        found.sort(Comparator.comparingDouble(NearbyLocation::distance));
+
+        return found.size() > limit ? List.copyOf(found.subList(0, limit)) : found;
+    }
+
+    /**
+     * @return the great circle distance between the coordinates in kilometres.
+     */
+    static double distance(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        var latitudeSine = Math.sin(Math.toRadians(toLatitude - fromLatitude) / 2);
+        var longitudeSine = Math.sin(Math.toRadians(toLongitude - fromLongitude) / 2);
+        var haversine = latitudeSine * latitudeSine + Math.cos(Math.toRadians(fromLatitude))
+                * Math.cos(Math.toRadians(toLatitude)) * longitudeSine * longitudeSine;
+
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(haversine)));
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / resolution);
+    }
+
+    private int column(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / resolution), columns);
+    }
+
+    private long cell(int row, int column) {
+        return (long) row * columns + column;
+    }
+
+    private record Spot(LocationDTO location, double latitude, double longitude) {
+    }
+}
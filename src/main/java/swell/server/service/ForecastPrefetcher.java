@@ -0,0 +1,76 @@
+package swell.server.service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import swell.server.cache.ForecastPopularity;
+import swell.server.config.SurfSwellProperties;
+
+/**
+ * Refreshes the forecasts of the most requested locations right after
+ * Open-Mateo publishes its hourly update, so that requests for them find warm
+ * data in the {@link swell.server.cache.ForecastCache}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "swell.server.prefetch", name = "enabled", matchIfMissing = true)
+public class ForecastPrefetcher {
+
+    private final SurfSwellService surfSwellService;
+    private final ForecastPopularity forecastPopularity;
+    private final SurfSwellProperties properties;
+
+    public ForecastPrefetcher(SurfSwellService surfSwellService, ForecastPopularity forecastPopularity,
+            SurfSwellProperties properties) {
+        this.surfSwellService = surfSwellService;
+        this.forecastPopularity = forecastPopularity;
+        this.properties = properties;
+    }
+
+    /**
+     * Starts refreshing the hottest locations, see {@link #prefetchHottest()}.
+     */
+    @Scheduled(cron = "${swell.server.prefetch.cron:0 1 * * * *}")
+    public void prefetch() {
+        prefetchHottest().subscribe();
+    }
+
+    /**
+     * Refreshes the hottest locations after a random delay, in chunks of the bulk
+     * chunk size. A chunk that fails is skipped.
+     * 
+     * @return a {@link Mono} of the number of forecasts prefetched, empty when no
+     *         location was requested since the last prefetch.
+     */
+    Mono<Long> prefetchHottest() {
+        var prefetch = properties.prefetch();
+        var keys = forecastPopularity.takeHottest(prefetch.topN());
+
+        if (keys.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return Mono.delay(jitter(prefetch.jitter()))
+                .thenMany(Flux.fromIterable(keys))
+                .buffer(properties.bulk().chunkSize())
+                .flatMap(chunk -> surfSwellService.refreshForecasts(chunk, true)
+                        .onErrorResume(e -> {
+                            log.warn("Could not prefetch {} forecasts", chunk.size(), e);
+                            return Flux.empty();
+                        }), prefetch.concurrency())
+                .count()
+                .doOnNext(count -> log.debug("Prefetched {} of {} forecasts", count, keys.size()));
+    }
+
+    private static Duration jitter(Duration maximum) {
+        return maximum.isZero() ? Duration.ZERO
+                : Duration.ofMillis(ThreadLocalRandom.current().nextLong(maximum.toMillis() + 1));
+    }
+}
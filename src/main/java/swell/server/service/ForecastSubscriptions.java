@@ -0,0 +1,268 @@
+package swell.server.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuples;
+import swell.server.cache.ForecastCache;
+import swell.server.cache.ForecastKey;
+import swell.server.config.SurfSwellProperties;
+import swell.server.constant.SurfSwellConstants;
+import swell.server.model.LocationDTO;
+import swell.server.model.LocationForecastDTO;
+import swell.server.model.SurfForecast;
+
+/**
+ * Streams of forecast updates that clients subscribe to instead of polling.
+ * Each subscribed forecast, shared by every location snapped to the same
+ * {@link ForecastKey}, is fetched once when first subscribed and again after
+ * every hourly Open-Mateo update, and multicast to all of its subscribers.
+ */
+@Slf4j
+@Component
+public class ForecastSubscriptions {
+
+    public static final String FORECAST_EVENT = "forecast";
+    private static final String HEARTBEAT = "heartbeat";
+
+    private final SurfSwellService surfSwellService;
+    private final ForecastCache forecastCache;
+    private final SurfSwellProperties.Subscription properties;
+    private final Clock clock;
+    private final Map<ForecastKey, Spot> spots = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    @Autowired
+    public ForecastSubscriptions(SurfSwellService surfSwellService, ForecastCache forecastCache,
+            SurfSwellProperties properties, MeterRegistry meterRegistry) {
+        this(surfSwellService, forecastCache, properties.subscription(), meterRegistry, Clock.systemUTC());
+    }
+
+    ForecastSubscriptions(SurfSwellService surfSwellService, ForecastCache forecastCache,
+            SurfSwellProperties.Subscription properties, MeterRegistry meterRegistry, Clock clock) {
+        this.surfSwellService = surfSwellService;
+        this.forecastCache = forecastCache;
+        this.properties = properties;
+        this.clock = clock;
+
+        Gauge.builder(SurfSwellConstants.Metrics.FORECAST_SUBSCRIBED_SPOTS, spots, Map::size)
+                .description("Forecasts fetched on behalf of subscribed clients")
+                .register(meterRegistry);
+        Gauge.builder(SurfSwellConstants.Metrics.FORECAST_SUBSCRIBERS, subscribers, AtomicInteger::get)
+                .description("Clients subscribed to forecast updates")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Subscribes to the forecasts of the locations. The current forecast of each
+     * location is sent first, then every update of it. Only the latest undelivered
+     * forecast of each location is kept for a slow client, and a client that asks
+     * for no further event, heartbeats included, for the idle timeout is
+     * unsubscribed.
+     * 
+     * @param locations the desired locations.
+     * 
+     * @return a {@link Flux} of {@value #FORECAST_EVENT} events along with
+     *         heartbeat comments.
+     * 
+     * @throws ResponseStatusException with {@link HttpStatus#BAD_REQUEST} when no
+     *                                 or too many locations are given.
+     */
+    public Flux<ServerSentEvent<LocationForecastDTO>> subscribe(List<LocationDTO> locations) {
+        if (locations.isEmpty() || locations.size() > properties.maximumLocations()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Between 1 and " + properties.maximumLocations() + " locations may be subscribed to");
+        }
+
+        // Events asked for but not sent yet, and when the client last ran out of them.
+        var demand = new AtomicLong();
+        var stalledSince = new AtomicLong(now());
+        var forecasts = Flux.range(0, locations.size())
+                .flatMap(index -> spot(locations.get(index)).updates()
+                        .map(forecast -> Tuples.of(index, ServerSentEvent
+                                .builder(new LocationForecastDTO(locations.get(index), forecast))
+                                .event(FORECAST_EVENT)
+                                .build())), locations.size());
+        var heartbeats = Flux.interval(properties.heartbeat());
+        var idle = Flux.interval(properties.heartbeat())
+                .filter(tick -> demand.get() == 0
+                        && now() - stalledSince.get() >= properties.idleTimeout().toMillis())
+                .next()
+                .doOnNext(tick -> log.debug("Unsubscribing an idle client from {} locations", locations.size()));
+
+        Flux<ServerSentEvent<LocationForecastDTO>> events = Flux.create(sink -> {
+            var pending = new PendingEvents(sink);
+
+            sink.onRequest(requested -> pending.drain());
+            sink.onDispose(Disposables.composite(
+                    forecasts.subscribe(event -> pending.forecast(event.getT1(), event.getT2()), sink::error),
+                    heartbeats.subscribe(tick -> pending.heartbeat())));
+        });
+
+        return events.doOnRequest(requested -> demand.accumulateAndGet(requested, Operators::addCap))
+                .doOnNext(event -> {
+                    if (demand.getAndUpdate(left -> left == Long.MAX_VALUE ? left : left - 1) == 1) {
+                        stalledSince.set(now());
+                    }
+                })
+                .takeUntilOther(idle)
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    private Spot spot(LocationDTO location) {
+        var key = forecastCache.key(location.latitude(), location.longitude(),
+                SurfSwellConstants.Parameters.FORECAST_VARIABLES);
+
+        return spots.computeIfAbsent(key, k -> new Spot(k, location));
+    }
+
+    /**
+     * @return the forecast of the key as of the latest Open-Mateo update, or its
+     *         last known forecast marked as stale when it cannot be fetched.
+     */
+    private Mono<SurfForecast> refresh(ForecastKey key) {
+        return surfSwellService.refreshForecast(key)
+                .onErrorResume(e -> {
+                    log.warn("Could not fetch the subscribed forecast of {}: {}", key, e.getMessage());
+                    return Mono.justOrEmpty(forecastCache.getIfError(key));
+                });
+    }
+
+    /**
+     * @return how long until the subscribed forecasts are next fetched, shortly
+     *         after the next Open-Mateo update.
+     */
+    private Duration untilNextUpdate() {
+        var now = clock.millis();
+        var interval = properties.updateInterval().toMillis();
+        var next = now - Math.floorMod(now, interval) + properties.updateDelay().toMillis();
+
+        return Duration.ofMillis(next > now ? next - now : next + interval - now);
+    }
+
+    private static long now() {
+        return Schedulers.parallel().now(TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The events of a subscription not sent yet, emitted only as the client asks
+     * for them: the latest forecast of each location, replacing any earlier one
+     * still pending, and whether a heartbeat is due.
+     */
+    private static class PendingEvents {
+
+        private final FluxSink<ServerSentEvent<LocationForecastDTO>> sink;
+        private final Map<Integer, ServerSentEvent<LocationForecastDTO>> forecasts = new LinkedHashMap<>();
+        private final AtomicInteger draining = new AtomicInteger();
+        private boolean heartbeat;
+
+        PendingEvents(FluxSink<ServerSentEvent<LocationForecastDTO>> sink) {
+            this.sink = sink;
+        }
+
+        void forecast(int location, ServerSentEvent<LocationForecastDTO> event) {
+            synchronized (this) {
+                forecasts.remove(location);
+                forecasts.put(location, event);
+            }
+            drain();
+        }
+
+        void heartbeat() {
+            synchronized (this) {
+                heartbeat = true;
+            }
+            drain();
+        }
+
+        /**
+         * Sends pending events while the client asks for them, on a single thread at
+         * a time, the others leaving it what they found to do.
+         */
+        void drain() {
+            if (draining.getAndIncrement() != 0) {
+                return;
+            }
+
+            var missed = 1;
+
+            do {
+                ServerSentEvent<LocationForecastDTO> event;
+
+                while (sink.requestedFromDownstream() > 0 && (event = poll()) != null) {
+                    sink.next(event);
+                }
+
+                missed = draining.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private synchronized ServerSentEvent<LocationForecastDTO> poll() {
+            var forecast = forecasts.entrySet().iterator();
+
+            if (forecast.hasNext()) {
+                var event = forecast.next().getValue();
+                forecast.remove();
+                return event;
+            }
+
+            if (heartbeat) {
+                heartbeat = false;
+                return ServerSentEvent.<LocationForecastDTO>builder().comment(HEARTBEAT).build();
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * The updates of a subscribed forecast, fetched while it has at least one
+     * subscriber.
+     */
+    private class Spot {
+
+        private final Flux<SurfForecast> updates;
+
+        Spot(ForecastKey key, LocationDTO location) {
+            this.updates = surfSwellService.fetchForecast(location)
+                    .onErrorResume(e -> {
+                        log.warn("Could not fetch the subscribed forecast of {}: {}", key, e.getMessage());
+                        return Mono.empty();
+                    })
+                    .concatWith(Flux.defer(() -> Flux.interval(untilNextUpdate(), properties.updateInterval()))
+                            .onBackpressureDrop()
+                            .concatMap(tick -> refresh(key)))
+                    .distinctUntilChanged(forecast -> forecast, (previous, next) -> previous == next)
+                    .doFinally(signal -> spots.remove(key, this))
+                    .replay(1)
+                    .refCount();
+        }
+
+        Flux<SurfForecast> updates() {
+            return updates;
+        }
+    }
+}
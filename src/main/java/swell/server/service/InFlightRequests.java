@@ -0,0 +1,36 @@
+package swell.server.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Deduplicates concurrent requests for the same key, so that every caller
+ * arriving while a request is pending shares its result or error instead of
+ * triggering another one.
+ */
+class InFlightRequests<K, V> {
+
+    private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param key     identifying the request.
+     * @param request started when no request for the key is pending.
+     * 
+     * @return a {@link Mono} of the pending request's result.
+     */
+    Mono<V> join(K key, Function<K, Mono<V>> request) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> request.apply(k)
+                .doFinally(signal -> inFlight.remove(k))
+                .cache()));
+    }
+
+    /**
+     * @return the number of requests pending.
+     */
+    int size() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,372 @@
+package swell.server.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import lombok.With;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import swell.server.config.SurfSwellProperties;
+import swell.server.constant.SurfSwellConstants;
+import swell.server.exception.XMateoClient;
+import swell.server.model.ForecastProjection;
+import swell.server.model.LocationDTO;
+import swell.server.model.LocationForecastDTO;
+import swell.server.model.SpotScoreDTO;
+import swell.server.model.SurfForecast;
+import swell.server.search.LocationIndex;
+import swell.server.search.NearbyLocation;
+
+/**
+ * Ranks the known spots around a location by how good their surf is expected
+ * to be over a window of hours, in a single request instead of one per spot.
+ * Candidates are found by the {@link LocationIndex}, their forecasts fetched
+ * with {@link SurfSwellService#fetchForecasts(List)}, which serves the cached
+ * ones first and requests the others in parallel chunks, and they are scored
+ * over their primitive hourly series on the fork-join pool.
+ */
+@Slf4j
+@Service
+public class SpotRanking {
+
+    private static final int SCALE = 2;
+
+    private final SurfSwellService surfSwellService;
+    private final LocationIndex locationIndex;
+    private final SurfSwellProperties.Nearby properties;
+    private final ForkJoinPool pool;
+
+    @Autowired
+    public SpotRanking(SurfSwellService surfSwellService, LocationIndex locationIndex,
+            SurfSwellProperties properties) {
+        this(surfSwellService, locationIndex, properties.nearby(), ForkJoinPool.commonPool());
+    }
+
+    SpotRanking(SurfSwellService surfSwellService, LocationIndex locationIndex,
+            SurfSwellProperties.Nearby properties, ForkJoinPool pool) {
+        this.surfSwellService = surfSwellService;
+        this.locationIndex = locationIndex;
+        this.properties = properties;
+        this.pool = pool;
+    }
+
+    /**
+     * @return the window of hours to rank the spots over, the default number of
+     *         hours from the start hour, or the current hour, when neither an end
+     *         nor a length is given.
+     *
+     * @throws ResponseStatusException with {@link HttpStatus#BAD_REQUEST} when the
+     *                                 hours contradict each other.
+     */
+    public ForecastProjection window(LocalDateTime startHour, LocalDateTime endHour, Integer forecastHours,
+            Integer forecastDays) {
+        var hours = endHour == null && forecastHours == null && forecastDays == null
+                ? Integer.valueOf(properties.defaultHours())
+                : forecastHours;
+
+        return ForecastProjection.of(null, startHour, endHour, hours, forecastDays, null, Clock.systemUTC());
+    }
+
+    /**
+     * @param center  the location to search around.
+     * @param radius  in kilometres, the default one when {@code null}.
+     * @param window  the hours to score.
+     * @param weights of the hourly series in the score of each hour.
+     * @param results how many spots to return, the default number when
+     *                {@code null}.
+     *
+     * @return a {@link Mono} of the best spots within the radius, best first,
+     *         failing with a {@link ResponseStatusException} with
+     *         {@link HttpStatus#BAD_REQUEST} when the location, radius, number of
+     *         results or window is out of bounds, or with {@link XMateoClient}
+     *         when none of their forecasts could be fetched.
+     */
+    public Mono<List<SpotScoreDTO>> rank(LocationDTO center, Double radius, ForecastProjection window,
+            Weights weights, Integer results) {
+        return Mono.defer(() -> rankNow(center, radius, window, weights, results));
+    }
+
+    private Mono<List<SpotScoreDTO>> rankNow(LocationDTO center, Double radius, ForecastProjection window,
+            Weights weights, Integer results) {
+        var searched = radius == null ? properties.defaultRadius() : radius.doubleValue();
+        var returned = results == null ? properties.defaultResults() : results.intValue();
+
+        if (!(searched > 0 && searched <= properties.maximumRadius())) {
+            throw badRequest("The radius must be more than 0 and at most " + properties.maximumRadius() + " km");
+        }
+
+        if (returned < 1 || returned > properties.maximumResults()) {
+            throw badRequest("Between 1 and " + properties.maximumResults() + " results may be asked for");
+        }
+
+        var candidates = locationIndex.nearby(coordinate(center.latitude(), 90),
+                coordinate(center.longitude(), 180), searched, properties.maximumSpots());
+
+        if (candidates.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        var distances = new HashMap<LocationDTO, Double>();
+        candidates.forEach(candidate -> distances.put(candidate.location(), candidate.distance()));
+
+        return surfSwellService
+                .fetchForecasts(candidates.stream().map(NearbyLocation::location).toList(), false)
+                .onErrorResume(e -> {
+                    log.warn("Ranking the spots around {} without some of their forecasts: {}", center,
+                            e.getMessage());
+                    return Flux.empty();
+                })
+                .collectList()
+                .flatMap(forecasts -> {
+                    if (forecasts.isEmpty()) {
+                        return Mono.error(new XMateoClient(SurfSwellService.ErrorMessages.OPEN_MATEO_CLIENT_ERROR));
+                    }
+
+                    // Every spot is forecast over the same hours.
+                    window.requireWithin(forecasts.get(0).forecast());
+
+                    var task = new ScoreTask(forecasts, window, weights);
+
+                    return Mono.fromFuture(CompletableFuture.supplyAsync(() -> pool.invoke(task), pool)
+                            .thenApply(done -> task.top(distances, returned)));
+                });
+    }
+
+    /**
+     * @param bound the largest coordinate allowed, either way.
+     */
+    private static double coordinate(String value, double bound) {
+        double coordinate;
+
+        try {
+            coordinate = Double.parseDouble(value);
+        } catch (NullPointerException | NumberFormatException e) {
+            throw badRequest("The coordinates of the location must be numbers");
+        }
+
+        if (!(Math.abs(coordinate) <= bound)) {
+            throw badRequest("The latitude must be between -90 and 90 and the longitude between -180 and 180");
+        }
+
+        return coordinate;
+    }
+
+    private static ResponseStatusException badRequest(String reason) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, reason);
+    }
+
+    private static BigDecimal round(double value) {
+        return BigDecimal.valueOf(value).setScale(SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * How much each hourly series adds to the score of an hour, which is the sum
+     * of the weighted values. Hours missing a weighted value are not scored.
+     *
+     * @param waveHeight        the weight of the wave height, in metres.
+     * @param swellWavePeriod   the weight of the swell wave period, in seconds.
+     * @param projectedWaveFace the weight of the projected wave face, in metres.
+     */
+    @With
+    public record Weights(double waveHeight, double swellWavePeriod, double projectedWaveFace) {
+
+        public static final Weights DEFAULT = new Weights(1, 0.1, 0.5);
+
+        private static final char SEPARATOR = ':';
+
+        /**
+         * @param weights {@code name:weight} pairs named after the hourly series,
+         *                overriding the {@link #DEFAULT} weights.
+         *
+         * @throws ResponseStatusException with {@link HttpStatus#BAD_REQUEST} when a
+         *                                 series is unknown or a weight is not a
+         *                                 number.
+         */
+        public static Weights of(List<String> weights) {
+            var result = DEFAULT;
+
+            if (weights == null) {
+                return result;
+            }
+
+            for (var weight : weights) {
+                var name = StringUtils.substringBefore(weight, SEPARATOR).strip();
+                double value;
+
+                try {
+                    value = Double.parseDouble(StringUtils.substringAfter(weight, SEPARATOR));
+                } catch (NumberFormatException e) {
+                    throw badRequest("Expected a name:weight pair but got " + weight);
+                }
+
+                if (!Double.isFinite(value)) {
+                    throw badRequest("Expected a finite weight but got " + weight);
+                }
+
+                result = switch (name) {
+                    case SurfSwellConstants.Parameters.WAVE_HEIGHT -> result.withWaveHeight(value);
+                    case SurfSwellConstants.Parameters.SWELL_WAVE_PERIOD -> result.withSwellWavePeriod(value);
+                    case SurfSwellConstants.Parameters.PROJECTED_WAVE_FACE -> result.withProjectedWaveFace(value);
+                    default -> throw badRequest("Unknown weight " + name + ", expected some of "
+                            + List.of(SurfSwellConstants.Parameters.WAVE_HEIGHT,
+                                    SurfSwellConstants.Parameters.SWELL_WAVE_PERIOD,
+                                    SurfSwellConstants.Parameters.PROJECTED_WAVE_FACE));
+                };
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Scores the forecasts in place, splitting them in halves until few enough are
+     * left for a single task.
+     */
+    private class ScoreTask extends RecursiveAction {
+
+        private final List<LocationForecastDTO> forecasts;
+        private final ForecastProjection window;
+        private final Weights weights;
+        private final double[] scores;
+        private final double[] bestScores;
+        private final long[] bestHours;
+        private final int from;
+        private final int to;
+
+        ScoreTask(List<LocationForecastDTO> forecasts, ForecastProjection window, Weights weights) {
+            this(forecasts, window, weights, new double[forecasts.size()], new double[forecasts.size()],
+                    new long[forecasts.size()], 0, forecasts.size());
+        }
+
+        private ScoreTask(List<LocationForecastDTO> forecasts, ForecastProjection window, Weights weights,
+                double[] scores, double[] bestScores, long[] bestHours, int from, int to) {
+            this.forecasts = forecasts;
+            this.window = window;
+            this.weights = weights;
+            this.scores = scores;
+            this.bestScores = bestScores;
+            this.bestHours = bestHours;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= Math.max(1, properties.parallelSpots())) {
+                for (int i = from; i < to; i++) {
+                    score(i);
+                }
+                return;
+            }
+
+            var middle = (from + to) >>> 1;
+
+            invokeAll(new ScoreTask(forecasts, window, weights, scores, bestScores, bestHours, from, middle),
+                    new ScoreTask(forecasts, window, weights, scores, bestScores, bestHours, middle, to));
+        }
+
+        /**
+         * Averages the score of every hour of the window the forecast has all the
+         * weighted values of, leaving {@link Double#NaN} when it has none.
+         */
+        private void score(int index) {
+            var forecast = window.apply(forecasts.get(index).forecast());
+            var total = 0.0;
+            var hours = 0;
+
+            scores[index] = Double.NaN;
+            bestScores[index] = Double.NEGATIVE_INFINITY;
+
+            if (missing(forecast.waveHeight(), weights.waveHeight())
+                    || missing(forecast.swellWavePeriod(), weights.swellWavePeriod())
+                    || missing(forecast.projectedWaveFace(), weights.projectedWaveFace())) {
+                return;
+            }
+
+            for (int hour = 0; hour < forecast.length(); hour++) {
+                var score = value(forecast.waveHeight(), hour, weights.waveHeight())
+                        + value(forecast.swellWavePeriod(), hour, weights.swellWavePeriod())
+                        + value(forecast.projectedWaveFace(), hour, weights.projectedWaveFace());
+
+                if (Double.isNaN(score)) {
+                    continue;
+                }
+
+                total += score;
+                hours++;
+
+                if (score > bestScores[index]) {
+                    bestScores[index] = score;
+                    bestHours[index] = forecast.epochSecondAt(hour);
+                }
+            }
+
+            if (hours > 0) {
+                scores[index] = total / hours;
+            }
+        }
+
+        private static boolean missing(double[] series, double weight) {
+            return weight != 0 && series == null;
+        }
+
+        /**
+         * @return the weighted value of the hour, {@code 0} when the series is not
+         *         weighted, however it is missing.
+         */
+        private static double value(double[] series, int hour, double weight) {
+            if (weight == 0) {
+                return 0;
+            }
+
+            return hour < series.length ? series[hour] * weight : Double.NaN;
+        }
+
+        /**
+         * @return the best scored spots, best first.
+         */
+        List<SpotScoreDTO> top(Map<LocationDTO, Double> distances, int results) {
+            var best = IntStream.range(0, forecasts.size())
+                    .filter(i -> !Double.isNaN(scores[i]))
+                    .boxed()
+                    .sorted(Comparator.comparingDouble((Integer i) -> scores[i]).reversed())
+                    .limit(results)
+                    .toList();
+            var spots = new ArrayList<SpotScoreDTO>(best.size());
+
+            for (var i : best) {
+                var located = forecasts.get(i);
+
+                spots.add(SpotScoreDTO.builder()
+                        .location(located.location())
+                        .distance(round(distances.get(located.location())))
+                        .score(round(scores[i]))
+                        .bestHour(LocalDateTime.ofEpochSecond(bestHours[i], 0, ZoneOffset.UTC))
+                        .bestScore(round(bestScores[i]))
+                        .stale(located.forecast().stale())
+                        .build());
+            }
+
+            return spots;
+        }
+    }
+}
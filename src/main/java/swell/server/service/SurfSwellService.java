@@ -4,21 +4,43 @@ import java.math.BigDecimal;
 import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.UriBuilder;
 
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+import swell.server.cache.ForecastCache;
+import swell.server.cache.ForecastKey;
+import swell.server.cache.ForecastPopularity;
+import swell.server.config.SurfSwellProperties;
 import swell.server.config.SurfSwellServerConfig;
 import swell.server.constant.SurfSwellConstants;
 import swell.server.exception.XMateoClient;
 import swell.server.model.LocationDTO;
+import swell.server.model.LocationForecastDTO;
 import swell.server.model.OceanicDataDTO;
 import swell.server.model.OpenMateoOceanicWaveDataDTO;
+import swell.server.model.SurfForecast;
+import swell.server.peer.ForecastPeers;
+import swell.server.resilience.UpstreamGuard;
+import swell.server.search.LocationIndex;
 
 /**
  * Service with methods that makes API calls to Open-Mateo.
@@ -28,15 +50,79 @@ import swell.server.model.OpenMateoOceanicWaveDataDTO;
 public class SurfSwellService {
 
         private WebClient webClient;
+        private ForecastCache forecastCache;
+        private ForecastPopularity forecastPopularity;
+        private LocationIndex locationIndex;
+        private UpstreamGuard upstreamGuard;
+        private ForecastPeers forecastPeers;
+        private SurfSwellProperties properties;
+        private static final String SEARCH = "search";
+        private static final String FORECAST = "forecast";
+        private static final String FORECASTS = "forecasts";
 
-        public SurfSwellService(@Qualifier(SurfSwellServerConfig.SURF_SWELL_WEB_CLIENT) WebClient webClient) {
+        private final InFlightRequests<ForecastKey, SurfForecast> surfDataRequests = new InFlightRequests<>();
+        private final InFlightRequests<ForecastKey, SurfForecast> refreshRequests = new InFlightRequests<>();
+        private final InFlightRequests<ForecastKey, SurfForecast> peerRequests = new InFlightRequests<>();
+        private final InFlightRequests<String, List<LocationDTO>> locationRequests = new InFlightRequests<>();
+
+        public SurfSwellService(@Qualifier(SurfSwellServerConfig.SURF_SWELL_WEB_CLIENT) WebClient webClient,
+                        ForecastCache forecastCache, ForecastPopularity forecastPopularity,
+                        LocationIndex locationIndex, UpstreamGuard upstreamGuard, ForecastPeers forecastPeers,
+                        SurfSwellProperties properties, MeterRegistry meterRegistry) {
                 this.webClient = webClient;
+                this.forecastCache = forecastCache;
+                this.forecastPopularity = forecastPopularity;
+                this.locationIndex = locationIndex;
+                this.upstreamGuard = upstreamGuard;
+                this.forecastPeers = forecastPeers;
+                this.properties = properties;
+
+                registerInFlight(meterRegistry, "fetch", surfDataRequests);
+                registerInFlight(meterRegistry, "refresh", refreshRequests);
+                registerInFlight(meterRegistry, "peer", peerRequests);
+        }
+
+        private static void registerInFlight(MeterRegistry meterRegistry, String request,
+                        InFlightRequests<?, ?> requests) {
+                Gauge.builder(SurfSwellConstants.Metrics.FORECAST_IN_FLIGHT, requests, InFlightRequests::size)
+                                .description("Distinct forecast requests pending, however many callers share each")
+                                .tag(SurfSwellConstants.Metrics.TAG_REQUEST, request)
+                                .register(meterRegistry);
         }
 
         public List<LocationDTO> searchLocations(String name) {
                 return getLocationsData(name);
         }
 
+        /**
+         * Reactive variant of {@link #searchLocations(String)} that does not block the
+         * calling thread.
+         * 
+         * @param name the location's name
+         * @return a {@link Mono} of the possible matching locations
+         */
+        public Mono<List<LocationDTO>> fetchLocations(String name) {
+                return fetchLocationsData(name, findKnownLocations(name));
+        }
+
+        /**
+         * Variant of {@link #fetchLocations(String)} for a name already looked up in
+         * the index, searching the API only when it knew nothing about it.
+         * 
+         * @param known the locations found by {@link #findKnownLocations(String)}.
+         */
+        public Mono<List<LocationDTO>> fetchLocations(String name, List<LocationDTO> known) {
+                return fetchLocationsData(name, known);
+        }
+
+        /**
+         * @return the locations matching the name known without calling the API,
+         *         empty when searching for it takes an API call.
+         */
+        public List<LocationDTO> findKnownLocations(String name) {
+                return locationIndex.search(name);
+        }
+
         /**
          * Search for locations using the API
          * 
@@ -44,13 +130,46 @@ public class SurfSwellService {
          * @return a {@link List} of possible matching locations
          */
         private List<LocationDTO> getLocationsData(String name) {
-                return webClient.get()
+                return fetchLocations(name)
+                                .blockOptional()
+                                .orElseThrow(() -> new XMateoClient(ErrorMessages.OPEN_MATEO_CLIENT_ERROR));
+        }
+
+        /**
+         * Searches are answered from the {@link LocationIndex}, only names it knows
+         * nothing about are searched with the API. Concurrent searches for the same
+         * name share a single API call.
+         */
+        private Mono<List<LocationDTO>> fetchLocationsData(String name, List<LocationDTO> known) {
+                if (!known.isEmpty()) {
+                        return Mono.just(known);
+                }
+
+                return locationRequests.join(name, this::requestLocationsData);
+        }
+
+        private Mono<List<LocationDTO>> requestLocationsData(String name) {
+                var tags = upstreamTags(SEARCH, SurfSwellConstants.Metrics.NONE);
+
+                return upstreamGuard.guard(tags, () -> webClient.get()
                                 .uri(uri -> getLocationURI(name, uri))
                                 .accept(MediaType.APPLICATION_JSON).retrieve()
                                 .bodyToFlux(LocationDTO.class)
-                                .collectList()
-                                .blockOptional()
-                                .orElseThrow(() -> new XMateoClient(ErrorMessages.OPEN_MATEO_CLIENT_ERROR));
+                                .collectList())
+                                .doOnNext(locationIndex::addAll);
+        }
+
+        /**
+         * Fetches every forecast variable of the {@link LocationDTO} provided in a
+         * single Open-Mateo request. The per-variable getters are views over this
+         * result.
+         * 
+         * @return the {@link OpenMateoOceanicWaveDataDTO} holding all hourly forecast
+         *         variables and their timestamps.
+         */
+        public OpenMateoOceanicWaveDataDTO getForecastData(LocationDTO locationDTO) {
+                return getSurfData(locationDTO.latitude(), locationDTO.longitude(),
+                                SurfSwellConstants.Parameters.FORECAST_VARIABLES);
         }
 
         /**
@@ -61,9 +180,7 @@ public class SurfSwellService {
          */
         public List<BigDecimal> getWaveHeightData(LocationDTO locationDTO) {
                 try {
-                        return getSurfData(locationDTO.latitude(),
-                                        locationDTO.longitude(), SurfSwellConstants.Parameters.WAVE_HEIGHT).hourly()
-                                        .wave_height();
+                        return getForecastData(locationDTO).hourly().wave_height();
                 } catch (Exception e) {
                         throw new XMateoClient(ErrorMessages.getErrorGettingWaveHeightMessage(e));
                 }
@@ -77,9 +194,8 @@ public class SurfSwellService {
          */
         public List<BigDecimal> getWavePeriodData(LocationDTO locationDTO) {
                 try {
-                        return Optional.ofNullable(getSurfData(locationDTO.latitude(),
-                                        locationDTO.longitude(), SurfSwellConstants.Parameters.WAVE_PERIOD).hourly()
-                                        .wave_period()).orElse(List.of());
+                        return Optional.ofNullable(getForecastData(locationDTO).hourly().wave_period())
+                                        .orElse(List.of());
                 } catch (Exception e) {
                         throw new XMateoClient(ErrorMessages.getErrorGettingWavePeriodMessage(e));
                 }
@@ -94,10 +210,8 @@ public class SurfSwellService {
          */
         public List<BigDecimal> getSwellHeightData(LocationDTO locationDTO) {
                 try {
-                        return Optional.ofNullable(getSurfData(locationDTO.latitude(),
-                                        locationDTO.longitude(), SurfSwellConstants.Parameters.SWELL_WAVE_HEIGHT)
-                                        .hourly()
-                                        .swell_wave_height()).orElse(List.of());
+                        return Optional.ofNullable(getForecastData(locationDTO).hourly().swell_wave_height())
+                                        .orElse(List.of());
                 } catch (Exception e) {
                         throw new XMateoClient(ErrorMessages.getErrorGettingSwellHeightMessage(e));
                 }
@@ -111,10 +225,8 @@ public class SurfSwellService {
          */
         public List<BigDecimal> getSwellPeriodData(LocationDTO locationDTO) {
                 try {
-                        return Optional.ofNullable(getSurfData(locationDTO.latitude(),
-                                        locationDTO.longitude(), SurfSwellConstants.Parameters.SWELL_WAVE_PERIOD)
-                                        .hourly()
-                                        .swell_wave_period()).orElse(List.of());
+                        return Optional.ofNullable(getForecastData(locationDTO).hourly().swell_wave_period())
+                                        .orElse(List.of());
                 } catch (Exception e) {
                         throw new XMateoClient(ErrorMessages.getErrorGettingSwellPeriodMessage(e));
                 }
@@ -122,7 +234,8 @@ public class SurfSwellService {
 
         /**
          * @return the projected wave face size by subtracting the swellHeight from the
-         *         waveHeight.
+         *         waveHeight. Forecasts served by this service compute it on primitive
+         *         series instead, see {@link SurfForecast#projectedWaveFace}.
          */
         public List<BigDecimal> calculateProjectedWaveFace(List<BigDecimal> waveHeight, List<BigDecimal> swellHeight) {
                 var projectedWaveFace = new ArrayList<BigDecimal>();
@@ -138,7 +251,15 @@ public class SurfSwellService {
          * @return the timestamps for the swell data.
          */
         public List<LocalDateTime> getTimeStamps() {
-                return getSurfData("0", "0", SurfSwellConstants.Parameters.WAVE_HEIGHT).hourly().time();
+                return getTimeStamps(new LocationDTO("", "0", "0"));
+        }
+
+        /**
+         * @return the timestamps for the swell data of the {@link LocationDTO}
+         *         provided.
+         */
+        public List<LocalDateTime> getTimeStamps(LocationDTO locationDTO) {
+                return getForecastData(locationDTO).hourly().time();
         }
 
         /**
@@ -147,16 +268,278 @@ public class SurfSwellService {
          * @param longitude of the desired location.
          * 
          * @return the full {@link OceanicDataDTO} for the desired location.
+         * 
+         * @throws XMateoClient when an error occurs while fetching the forecast.
          */
         public OceanicDataDTO getOceanicData(String latitude, String longitude) {
-                var location = new LocationDTO("", latitude, longitude);
-                var waveHeight = getWaveHeightData(location);
-                var swellWaveHeight = getSwellHeightData(location);
+                try {
+                        return fetchOceanicData(latitude, longitude)
+                                        .blockOptional()
+                                        .orElseThrow(() -> new XMateoClient(ErrorMessages.OPEN_MATEO_CLIENT_ERROR));
+                } catch (Exception e) {
+                        throw new XMateoClient(ErrorMessages.getErrorGettingForecastMessage(e));
+                }
+        }
+
+        /**
+         * Reactive variant of {@link #getOceanicData(String, String)} that does not
+         * block the calling thread.
+         * 
+         * @param latitude  of the desired location.
+         * @param longitude of the desired location.
+         * 
+         * @return a {@link Mono} of the full {@link OceanicDataDTO} for the desired
+         *         location, failing with {@link XMateoClient} when an error occurs
+         *         while fetching the forecast.
+         */
+        public Mono<OceanicDataDTO> fetchOceanicData(String latitude, String longitude) {
+                return fetchForecast(latitude, longitude).map(SurfForecast::toOceanicDataDTO);
+        }
+
+        /**
+         * Fetches every forecast variable of the desired location as a
+         * {@link SurfForecast}, which clients receive serialized in the same shape as
+         * {@link OceanicDataDTO}.
+         * 
+         * @param latitude  of the desired location.
+         * @param longitude of the desired location.
+         * 
+         * @return a {@link Mono} of the {@link SurfForecast}, failing with
+         *         {@link XMateoClient} when an error occurs while fetching the
+         *         forecast.
+         */
+        public Mono<SurfForecast> fetchForecast(String latitude, String longitude) {
+                return mapForecastErrors(fetchForecast(latitude, longitude,
+                                SurfSwellConstants.Parameters.FORECAST_VARIABLES));
+        }
+
+        /**
+         * Fetches the forecast of the location, counting the request towards its
+         * ranking in location searches.
+         * 
+         * @see #fetchForecast(String, String)
+         */
+        public Mono<SurfForecast> fetchForecast(LocationDTO location) {
+                return fetchForecast(location, SurfSwellConstants.Parameters.FORECAST_VARIABLES);
+        }
+
+        /**
+         * Fetches only the hourly variables provided of the location, counting the
+         * request towards its ranking in location searches.
+         * 
+         * @param location  of the desired forecast.
+         * @param variables the comma separated hourly variables to fetch.
+         * 
+         * @see #fetchForecast(String, String)
+         */
+        public Mono<SurfForecast> fetchForecast(LocationDTO location, String variables) {
+                locationIndex.recordRequest(location);
+
+                return mapForecastErrors(fetchForecast(location.latitude(), location.longitude(), variables));
+        }
+
+        /**
+         * @return whether the forecast of the location can be served without
+         *         waiting for Open-Mateo or another replica.
+         */
+        public boolean isCached(LocationDTO location, String variables) {
+                var key = forecastCache.key(location.latitude(), location.longitude(), variables);
 
-                return new OceanicDataDTO(getTimeStamps(), waveHeight,
-                                getWavePeriodData(location), swellWaveHeight,
-                                getSwellPeriodData(location),
-                                calculateProjectedWaveFace(waveHeight, swellWaveHeight));
+                return forecastPeers.owns(key) ? forecastCache.contains(key) : forecastPeers.contains(key);
+        }
+
+        private static Mono<SurfForecast> mapForecastErrors(Mono<SurfForecast> forecast) {
+                return forecast.onErrorMap(e -> !(e instanceof XMateoClient),
+                                e -> new XMateoClient(ErrorMessages.getErrorGettingForecastMessage(e)));
+        }
+
+        /**
+         * Fetches the forecasts of many locations at once. Cached forecasts are
+         * emitted first, the remaining locations are requested from Open-Mateo in
+         * chunks of comma separated coordinates and emitted as each chunk completes,
+         * and those owned by another replica are asked to it. When a chunk fails, the
+         * locations it had not yet emitted get their last known forecast, marked as
+         * stale.
+         * 
+         * @param locations the desired locations.
+         * 
+         * @return a {@link Flux} of the forecast of every location, failing with
+         *         {@link XMateoClient} when a chunk fails and a location of it has no
+         *         last known forecast, or with a {@link ResponseStatusException} with
+         *         {@link HttpStatus#BAD_REQUEST} when more locations than allowed are
+         *         asked for.
+         */
+        public Flux<LocationForecastDTO> fetchForecasts(List<LocationDTO> locations) {
+                return fetchForecasts(locations, true);
+        }
+
+        /**
+         * Fetches the forecasts of the locations like {@link #fetchForecasts(List)}.
+         * 
+         * @param locations the desired locations.
+         * @param requested whether the client asked for the locations themselves,
+         *                  counting towards their search ranking and prefetching,
+         *                  rather than the server on its behalf.
+         */
+        public Flux<LocationForecastDTO> fetchForecasts(List<LocationDTO> locations, boolean requested) {
+                if (locations.size() > properties.bulk().maximumLocations()) {
+                        return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                        "At most " + properties.bulk().maximumLocations()
+                                                        + " locations may be asked for at once"));
+                }
+
+                var locationsByKey = new LinkedHashMap<ForecastKey, List<LocationDTO>>();
+                var cached = new ArrayList<LocationForecastDTO>();
+                var missing = new ArrayList<ForecastKey>();
+                var remote = new ArrayList<ForecastKey>();
+
+                if (requested) {
+                        locations.forEach(locationIndex::recordRequest);
+                }
+
+                locations.forEach(location -> locationsByKey.computeIfAbsent(forecastCache.key(location.latitude(),
+                                location.longitude(), SurfSwellConstants.Parameters.FORECAST_VARIABLES),
+                                key -> new ArrayList<>()).add(location));
+
+                locationsByKey.forEach((key, keyLocations) -> {
+                        if (!forecastPeers.owns(key)) {
+                                remote.add(key);
+                                return;
+                        }
+
+                        var forecast = forecastCache.getIfFresh(key);
+
+                        if (requested) {
+                                forecastPopularity.record(key);
+                        }
+
+                        if (forecast == null) {
+                                missing.add(key);
+                        } else {
+                                keyLocations.forEach(
+                                                location -> cached.add(new LocationForecastDTO(location, forecast)));
+                        }
+                });
+
+                return Flux.fromIterable(cached)
+                                .concatWith(Flux.merge(Flux.fromIterable(missing)
+                                                .buffer(properties.bulk().chunkSize())
+                                                .flatMap(this::requestSurfDataOrStale, properties.bulk().concurrency()),
+                                                Flux.fromIterable(remote)
+                                                                .flatMap(key -> fetchRemoteForecast(key)
+                                                                                .map(forecast -> Tuples.of(key,
+                                                                                                forecast)),
+                                                                                properties.bulk().concurrency()))
+                                                .flatMapIterable(forecast -> locationsByKey.get(forecast.getT1())
+                                                                .stream()
+                                                                .map(location -> new LocationForecastDTO(location,
+                                                                                forecast.getT2()))
+                                                                .toList()))
+                                .onErrorMap(e -> !(e instanceof XMateoClient),
+                                                e -> new XMateoClient(ErrorMessages.getErrorGettingForecastMessage(e)));
+        }
+
+        /**
+         * Fetches the {@link SurfForecast} of the desired location. Forecasts are
+         * served from the {@link ForecastCache} when possible, and concurrent misses
+         * for the same key share a single API call. Locations owned by another
+         * replica are asked to it, see {@link ForecastPeers}.
+         * 
+         * @param latitude    of the desired location.
+         * @param longitude   of the desired location.
+         * @param requestData the comma separated hourly variables to fetch.
+         * 
+         * @return a {@link Mono} of the {@link SurfForecast}, failing with
+         *         {@link XMateoClient} when Open-Mateo returns an empty body.
+         */
+        public Mono<SurfForecast> fetchForecast(String latitude, String longitude, String requestData) {
+                var forecastKey = forecastCache.key(latitude, longitude, requestData);
+
+                if (!forecastPeers.owns(forecastKey)) {
+                        return fetchRemoteForecast(forecastKey);
+                }
+
+                forecastPopularity.record(forecastKey);
+
+                return fetchOwnedForecast(forecastKey);
+        }
+
+        /**
+         * Fetches the forecast of a location owned by this replica on behalf of
+         * another one, never asking a further replica so that replicas disagreeing
+         * on their members cannot loop.
+         * 
+         * @param fresh whether the forecast must be as of the latest Open-Mateo
+         *              update, see {@link #refreshForecast(ForecastKey)}.
+         * 
+         * @return a {@link Mono} of the {@link SurfForecast}, failing with
+         *         {@link XMateoClient} when an error occurs while fetching the
+         *         forecast.
+         */
+        public Mono<SurfForecast> fetchPeerForecast(String latitude, String longitude, String requestData,
+                        boolean fresh) {
+                var forecastKey = forecastCache.key(latitude, longitude, requestData);
+                forecastPopularity.record(forecastKey);
+
+                return mapForecastErrors(fresh ? refreshOwnedForecast(forecastKey) : fetchOwnedForecast(forecastKey));
+        }
+
+        /**
+         * Fetches the forecast of the key as of the latest Open-Mateo update, taken
+         * from the cache when a prefetch already fetched it. Concurrent refreshes of
+         * the same key share a single API call.
+         * 
+         * @return a {@link Mono} of the {@link SurfForecast}.
+         */
+        public Mono<SurfForecast> refreshForecast(ForecastKey key) {
+                if (!forecastPeers.owns(key)) {
+                        return forecastPeers.fetch(key, true).onErrorResume(e -> refreshOwnedForecast(key));
+                }
+
+                return refreshOwnedForecast(key);
+        }
+
+        private Mono<SurfForecast> fetchOwnedForecast(ForecastKey forecastKey) {
+                return forecastCache.get(forecastKey, key -> surfDataRequests.join(key, this::requestSurfData));
+        }
+
+        private Mono<SurfForecast> refreshOwnedForecast(ForecastKey forecastKey) {
+                return Mono.justOrEmpty(forecastCache.getIfFresh(forecastKey))
+                                .switchIfEmpty(Mono.defer(() -> refreshRequests.join(forecastKey,
+                                                key -> refreshForecasts(List.of(key), false)
+                                                                .next()
+                                                                .map(Tuple2::getT2))));
+        }
+
+        /**
+         * Asks the replica owning the key for its forecast, concurrent requests for
+         * the same key sharing a single call. When the owner cannot be reached the
+         * forecast is fetched as if owned, so that a replica going down does not take
+         * its locations with it.
+         */
+        private Mono<SurfForecast> fetchRemoteForecast(ForecastKey forecastKey) {
+                return peerRequests.join(forecastKey, key -> forecastPeers.fetch(key, false))
+                                .onErrorResume(e -> fetchOwnedForecast(forecastKey));
+        }
+
+        /**
+         * Fetches the forecasts of the keys from Open-Mateo regardless of what is
+         * cached, with a single API call per distinct set of variables, and caches
+         * them. The caller is responsible for keeping the number of keys within
+         * what fits a single request.
+         * 
+         * @param keys       of the forecasts to refresh.
+         * @param prefetched whether the forecasts are fetched ahead of demand rather
+         *                   than for a request.
+         * 
+         * @return a {@link Flux} of each key along with its forecast.
+         */
+        public Flux<Tuple2<ForecastKey, SurfForecast>> refreshForecasts(List<ForecastKey> keys, boolean prefetched) {
+                return Flux.fromIterable(keys.stream()
+                                .collect(Collectors.groupingBy(ForecastKey::variables, LinkedHashMap::new,
+                                                Collectors.toList()))
+                                .values())
+                                .concatMap(sameVariables -> requestSurfData(sameVariables, prefetched));
         }
 
         /**
@@ -171,14 +554,92 @@ public class SurfSwellService {
          * @return an {@link OpenMateoDTO} with the desired information.
          */
         protected OpenMateoOceanicWaveDataDTO getSurfData(String latitude, String longitude, String requestData) {
-                return webClient.get()
-                                .uri(uri -> getSurfDataApiRequest(uri, latitude, longitude, requestData))
-                                .accept(MediaType.APPLICATION_JSON).retrieve()
-                                .bodyToMono(OpenMateoOceanicWaveDataDTO.class)
+                return fetchSurfData(latitude, longitude, requestData)
                                 .blockOptional()
                                 .orElseThrow(() -> new XMateoClient(ErrorMessages.OPEN_MATEO_CLIENT_ERROR));
         }
 
+        /**
+         * Reactive variant of {@link #getSurfData(String, String, String)}.
+         * 
+         * @return a {@link Mono} of the {@link OpenMateoOceanicWaveDataDTO}, failing
+         *         with {@link XMateoClient} when Open-Mateo returns an empty body.
+         */
+        protected Mono<OpenMateoOceanicWaveDataDTO> fetchSurfData(String latitude, String longitude,
+                        String requestData) {
+                return fetchForecast(latitude, longitude, requestData)
+                                .map(SurfForecast::toOpenMateoOceanicWaveDataDTO);
+        }
+
+        /**
+         * Makes the API call to Open-Mateo for the coordinates of the
+         * {@link ForecastKey}.
+         */
+        private Mono<SurfForecast> requestSurfData(ForecastKey key) {
+                return upstreamGuard.guard(upstreamTags(FORECAST, key.variables()), () -> webClient.get()
+                                .uri(uri -> getSurfDataApiRequest(uri, key.latitude(), key.longitude(),
+                                                key.variables()))
+                                .accept(MediaType.APPLICATION_JSON).retrieve()
+                                .bodyToMono(SurfForecast.class))
+                                .switchIfEmpty(Mono.error(
+                                                () -> new XMateoClient(ErrorMessages.OPEN_MATEO_CLIENT_ERROR)));
+        }
+
+        /**
+         * Requests the chunk of keys like {@link #requestSurfData(List, boolean)},
+         * completing the keys not yet emitted with their last known forecast when
+         * the request fails.
+         */
+        private Flux<Tuple2<ForecastKey, SurfForecast>> requestSurfDataOrStale(List<ForecastKey> keys) {
+                var pending = new LinkedHashSet<>(keys);
+
+                return requestSurfData(keys, false)
+                                .doOnNext(forecast -> pending.remove(forecast.getT1()))
+                                .onErrorResume(e -> Flux.fromIterable(pending).map(key -> {
+                                        var stale = forecastCache.getIfError(key);
+
+                                        if (stale == null) {
+                                                throw Exceptions.propagate(e);
+                                        }
+
+                                        return Tuples.of(key, stale);
+                                }));
+        }
+
+        /**
+         * Makes a single API call to Open-Mateo for the coordinates of every
+         * {@link ForecastKey}, caching each forecast as it arrives. The keys must all
+         * request the same variables.
+         * 
+         * @return a {@link Flux} of each key along with its forecast.
+         */
+        private Flux<Tuple2<ForecastKey, SurfForecast>> requestSurfData(List<ForecastKey> keys, boolean prefetched) {
+                var latitudes = keys.stream().map(ForecastKey::latitude).collect(Collectors.joining(","));
+                var longitudes = keys.stream().map(ForecastKey::longitude).collect(Collectors.joining(","));
+                var variables = keys.get(0).variables();
+
+                return upstreamGuard.guardMany(upstreamTags(FORECASTS, variables), () -> webClient.get()
+                                .uri(uri -> getSurfDataApiRequest(uri, latitudes, longitudes, variables))
+                                .accept(MediaType.APPLICATION_JSON).retrieve()
+                                .bodyToFlux(SurfForecast.class))
+                                // Forecasts come in the order of the coordinates. Pairing them by index
+                                // rather than zipping lets the call complete instead of being cancelled.
+                                .index()
+                                .filter(forecast -> forecast.getT1() < keys.size())
+                                .map(forecast -> Tuples.of(keys.get(forecast.getT1().intValue()),
+                                                forecast.getT2()))
+                                .doOnNext(forecast -> forecastCache.put(forecast.getT1(), forecast.getT2(),
+                                                prefetched));
+        }
+
+        /**
+         * @return the tags of an Open-Mateo request, named after what it fetches.
+         */
+        private static KeyValues upstreamTags(String endpoint, String hourly) {
+                return KeyValues.of(SurfSwellConstants.Metrics.TAG_ENDPOINT, endpoint,
+                                SurfSwellConstants.Metrics.TAG_HOURLY, hourly);
+        }
+
         private URI getSurfDataApiRequest(UriBuilder uriBuilder, String latitude, String longitude,
                         String requestData) {
                 return URI.create(formatApiRequest(uriBuilder.path(SurfSwellConstants.Paths.MARINE_OPEN_API_SWELL_PATH)
@@ -194,7 +655,8 @@ public class SurfSwellService {
         private URI getLocationURI(String name, UriBuilder uriBuilder) {
                 return URI.create(formatApiRequest(uriBuilder.path(SurfSwellConstants.Paths.MARINE_OPEN_API_SWELL_PATH)
                                 .queryParam(SurfSwellConstants.Parameters.NAME,name)
-                                .queryParam("count", 10)
+                                .queryParam(SurfSwellConstants.Parameters.COUNT,
+                                                properties.search().maximumResults())
                                 .build()));
         }
 
@@ -231,6 +693,15 @@ public class SurfSwellService {
                                 %s
                                 """;
 
+                private static final String ERROR_GETTING_FORECAST = """
+                                Error occurred while fetching forecast data. The following exception was thrown:
+                                %s
+                                """;
+
+                public static String getErrorGettingForecastMessage(Throwable e) {
+                        return ERROR_GETTING_FORECAST.formatted(e);
+                }
+
                 public static String getErrorGettingWaveHeightMessage(Exception e) {
                         return ERROR_GETTING_WAVE_HEIGHT.formatted(e);
                 }
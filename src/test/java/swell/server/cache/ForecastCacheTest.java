@@ -0,0 +1,167 @@
+package swell.server.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import swell.server.constant.SurfSwellConstants;
+import swell.server.model.SurfForecast;
+import swell.server.utils.MutableClock;
+import swell.server.utils.SwellServerTestUtils;
+
+public class ForecastCacheTest {
+
+    private SwellServerTestUtils swellServerTestUtils = new SwellServerTestUtils();
+    private MutableClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private ForecastCache forecastCache;
+    private AtomicInteger upstreamCalls;
+
+    @BeforeEach
+    void setup() {
+        clock = new MutableClock(Instant.parse("2024-06-01T10:30:00Z"));
+        var properties = swellServerTestUtils.getSurfSwellProperties(Map.of());
+
+        meterRegistry = new SimpleMeterRegistry();
+        forecastCache = new ForecastCache(properties.cache(), new ForecastStore(properties), meterRegistry, clock);
+        upstreamCalls = new AtomicInteger();
+    }
+
+    private Mono<SurfForecast> load(ForecastKey key) {
+        upstreamCalls.incrementAndGet();
+        return Mono.just(SurfForecast.builder().build());
+    }
+
+    @Nested
+    class Key {
+
+        /**
+         * Tests that coordinates within the same grid cell share a key.
+         */
+        @Test
+        void snappedToGrid() {
+            assertEquals(forecastCache.key("54.321", "10.139", "wave_height"),
+                    forecastCache.key("54.3", "10.15", "wave_height"));
+            assertEquals("54.3", forecastCache.key("54.321", "10.139", "wave_height").latitude());
+        }
+
+        /**
+         * Tests that values which are not coordinates are left untouched.
+         */
+        @Test
+        void notANumber() {
+            assertEquals(new ForecastKey(null, "abc", "wave_height"), forecastCache.key(null, "abc", "wave_height"));
+        }
+    }
+
+    @Nested
+    class Get {
+
+        /**
+         * Tests that a forecast is only fetched once within the same model hour.
+         */
+        @Test
+        void hit() {
+            var key = forecastCache.key("54.3", "10.1", "wave_height");
+            var first = forecastCache.get(key, ForecastCacheTest.this::load).block();
+
+            clock.advance(Duration.ofMinutes(29));
+
+            assertSame(first, forecastCache.get(key, ForecastCacheTest.this::load).block());
+            assertEquals(1, upstreamCalls.get());
+        }
+
+        /**
+         * Tests that a stale forecast is served while a fresh one is fetched.
+         */
+        @Test
+        void staleWhileRevalidate() {
+            var key = forecastCache.key("54.3", "10.1", "wave_height");
+            var first = forecastCache.get(key, ForecastCacheTest.this::load).block();
+
+            clock.advance(Duration.ofMinutes(35));
+
+            assertSame(first, forecastCache.get(key, ForecastCacheTest.this::load).block());
+            assertEquals(2, upstreamCalls.get());
+        }
+
+        /**
+         * Tests that a forecast is fetched again once the stale window has passed.
+         */
+        @Test
+        void expired() {
+            var key = forecastCache.key("54.3", "10.1", "wave_height");
+            var first = forecastCache.get(key, ForecastCacheTest.this::load).block();
+
+            clock.advance(Duration.ofHours(1));
+            var second = forecastCache.get(key, ForecastCacheTest.this::load).block();
+
+            assertEquals(2, upstreamCalls.get());
+            assertNotSame(first, second);
+        }
+
+        /**
+         * Tests that an expired forecast is served, marked as stale, when a fresh one
+         * cannot be fetched.
+         */
+        @Test
+        void staleIfError() {
+            var key = forecastCache.key("54.3", "10.1", "wave_height");
+            forecastCache.get(key, ForecastCacheTest.this::load).block();
+
+            clock.advance(Duration.ofHours(5));
+            var stale = forecastCache.get(key, failing -> Mono.error(new IllegalStateException())).block();
+
+            assertTrue(stale.stale());
+            assertTrue(forecastCache.getIfError(key).stale());
+        }
+
+        /**
+         * Tests that errors are propagated once the stale-if-error window has passed.
+         */
+        @Test
+        void staleIfErrorExpired() {
+            var key = forecastCache.key("54.3", "10.1", "wave_height");
+            forecastCache.get(key, ForecastCacheTest.this::load).block();
+
+            clock.advance(Duration.ofHours(25));
+            var forecast = forecastCache.get(key, failing -> Mono.error(new IllegalStateException()));
+
+            assertThrows(IllegalStateException.class, () -> forecast.block());
+            assertNull(forecastCache.getIfError(key));
+        }
+
+        /**
+         * Tests that only the first hit of a prefetched forecast counts towards the
+         * prefetch hit ratio.
+         */
+        @Test
+        void prefetchedHitOnce() {
+            var key = forecastCache.key("54.3", "10.1", "wave_height");
+            forecastCache.put(key, SurfForecast.builder().build(), true);
+
+            for (int i = 0; i < 4; i++) {
+                forecastCache.get(key, ForecastCacheTest.this::load).block();
+            }
+
+            assertEquals(0, upstreamCalls.get());
+            assertEquals(1, meterRegistry.get(SurfSwellConstants.Metrics.FORECAST_PREFETCH_HITS).counter().count());
+            assertEquals(0.25,
+                    meterRegistry.get(SurfSwellConstants.Metrics.FORECAST_PREFETCH_HIT_RATIO).gauge().value());
+        }
+    }
+}
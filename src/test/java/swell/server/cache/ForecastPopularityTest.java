@@ -0,0 +1,76 @@
+package swell.server.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import swell.server.utils.SwellServerTestUtils;
+
+public class ForecastPopularityTest {
+
+    private static final ForecastKey FIRST = new ForecastKey("54.3", "10.15", "wave_height");
+    private static final ForecastKey SECOND = new ForecastKey("-33.9", "18.4", "wave_height");
+    private static final ForecastKey THIRD = new ForecastKey("21.3", "-157.85", "wave_height");
+
+    private SwellServerTestUtils swellServerTestUtils = new SwellServerTestUtils();
+    private ForecastPopularity forecastPopularity;
+
+    @BeforeEach
+    void setup() {
+        forecastPopularity = new ForecastPopularity(
+                swellServerTestUtils.getSurfSwellProperties(Map.of("prefetch.maximum-tracked", "2")));
+    }
+
+    private void record(ForecastKey key, int times) {
+        for (int i = 0; i < times; i++) {
+            forecastPopularity.record(key);
+        }
+    }
+
+    @Nested
+    class TakeHottest {
+
+        /**
+         * Tests that the most requested keys come first and the limit is honoured.
+         */
+        @Test
+        void mostPopularFirst() {
+            record(FIRST, 1);
+            record(SECOND, 3);
+
+            assertEquals(List.of(SECOND, FIRST), forecastPopularity.takeHottest(2));
+            assertEquals(List.of(SECOND), forecastPopularity.takeHottest(1));
+        }
+
+        /**
+         * Tests that keys which are no longer requested fade out.
+         */
+        @Test
+        void countsFade() {
+            record(FIRST, 1);
+            record(SECOND, 4);
+            forecastPopularity.takeHottest(2);
+
+            assertEquals(List.of(SECOND), forecastPopularity.takeHottest(2));
+        }
+
+        /**
+         * Tests that keys beyond the tracked maximum are ignored.
+         */
+        @Test
+        void maximumTracked() {
+            record(FIRST, 1);
+            record(SECOND, 1);
+            record(THIRD, 5);
+
+            assertEquals(2, forecastPopularity.takeHottest(3).size());
+            assertFalse(forecastPopularity.takeHottest(3).contains(THIRD));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package swell.server.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import swell.server.config.SurfSwellProperties;
+import swell.server.model.SurfForecast;
+import swell.server.utils.MutableClock;
+import swell.server.utils.SwellServerTestUtils;
+
+public class ForecastStoreTest {
+
+    private static final ForecastKey KEY = new ForecastKey("54.3", "10.15", "wave_height,swell_wave_height");
+
+    private SwellServerTestUtils swellServerTestUtils = new SwellServerTestUtils();
+    private MutableClock clock;
+    private SurfSwellProperties properties;
+    private ForecastStore forecastStore;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setup() {
+        clock = new MutableClock(Instant.parse("2024-06-01T10:30:00Z"));
+        properties = swellServerTestUtils.getSurfSwellProperties(Map.of("store.enabled", "true",
+                "store.directory", directory.toString(), "store.segment-size", "1KB"));
+        forecastStore = open();
+    }
+
+    private ForecastStore open() {
+        return new ForecastStore(properties.store(), properties.cache().retention(), clock);
+    }
+
+    private SurfForecast forecast(double offset) {
+        var waveHeight = new double[24];
+        var swellWaveHeight = new double[24];
+
+        for (int i = 0; i < waveHeight.length; i++) {
+            waveHeight[i] = Math.rint((1.23 + offset) * 100 + i) / 100;
+            swellWaveHeight[i] = i == 3 ? Double.NaN : 0.87 + offset;
+        }
+
+        return SurfForecast.builder()
+                .latitude("54.32")
+                .longitude("10.14")
+                .elevation(new BigDecimal("-1.5"))
+                .startEpochSecond(1717236000)
+                .stepSeconds(3600)
+                .length(waveHeight.length)
+                .waveHeight(waveHeight)
+                .swellWaveHeight(swellWaveHeight)
+                .projectedWaveFace(SurfForecast.projectedWaveFace(waveHeight, swellWaveHeight))
+                .build();
+    }
+
+    private long segmentFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Nested
+    class Get {
+
+        /**
+         * Tests that stored forecasts read back exactly after a restart.
+         */
+        @Test
+        void restoredAfterRestart() {
+            var forecast = forecast(0);
+            var staleAt = Instant.parse("2024-06-01T11:00:00Z");
+
+            forecastStore.put(KEY, forecast, staleAt);
+            forecastStore.close();
+
+            var restored = open().get(KEY);
+
+            assertEquals(staleAt, restored.staleAt());
+            assertEquals(forecast.latitude(), restored.forecast().latitude());
+            assertEquals(forecast.elevation(), restored.forecast().elevation());
+            assertEquals(forecast.startEpochSecond(), restored.forecast().startEpochSecond());
+            assertArrayEquals(forecast.waveHeight(), restored.forecast().waveHeight());
+            assertArrayEquals(forecast.swellWaveHeight(), restored.forecast().swellWaveHeight());
+            assertArrayEquals(forecast.projectedWaveFace(), restored.forecast().projectedWaveFace());
+            assertNull(restored.forecast().wavePeriod());
+        }
+
+        /**
+         * Tests that forecasts are kept as long as the cache keeps them, past the
+         * stale-while-revalidate window until the stale-if-error one has passed.
+         */
+        @Test
+        void expired() {
+            forecastStore.put(KEY, forecast(0), Instant.parse("2024-06-01T11:00:00Z"));
+
+            clock.advance(Duration.ofMinutes(40));
+            assertNotNull(forecastStore.get(KEY));
+
+            clock.advance(Duration.ofHours(24));
+
+            assertNull(forecastStore.get(KEY));
+            assertNull(open().get(KEY));
+        }
+    }
+
+    @Nested
+    class Compact {
+
+        /**
+         * Tests that segments holding only superseded forecasts are deleted while the
+         * latest forecast stays readable.
+         */
+        @Test
+        void supersededSegmentsDeleted() throws IOException {
+            var staleAt = Instant.parse("2024-06-01T11:00:00Z");
+
+            for (int i = 0; i < 6; i++) {
+                forecastStore.put(KEY, forecast(i), staleAt);
+            }
+
+            var before = segmentFiles();
+            forecastStore.compact();
+
+            assertEquals(1, segmentFiles());
+            assertTrue(before > 1);
+            assertArrayEquals(forecast(5).waveHeight(), forecastStore.get(KEY).forecast().waveHeight());
+            assertArrayEquals(forecast(5).waveHeight(), open().get(KEY).forecast().waveHeight());
+        }
+    }
+}
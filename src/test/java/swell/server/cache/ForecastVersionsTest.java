@@ -0,0 +1,124 @@
+package swell.server.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import swell.server.model.SurfForecast;
+import swell.server.utils.SwellServerTestUtils;
+
+public class ForecastVersionsTest {
+
+    private SwellServerTestUtils swellServerTestUtils = new SwellServerTestUtils();
+    private ForecastVersions forecastVersions;
+    private SurfForecast forecast;
+
+    @BeforeEach
+    void setup() {
+        forecastVersions = new ForecastVersions(swellServerTestUtils.getSurfSwellProperties(Map.of()));
+        forecast = SurfForecast.builder().startEpochSecond(1717200000).stepSeconds(3600).length(2)
+                .waveHeight(new double[] { 1.5, 1.6 }).build();
+    }
+
+    @Nested
+    class Get {
+
+        /**
+         * Tests that a registered forecast is found by its ETag, quoted, weak or
+         * not.
+         */
+        @Test
+        void byEtag() {
+            var etag = ForecastVersions.etag(forecast.version(), "variant");
+
+            forecastVersions.register(etag, forecast);
+
+            assertSame(forecast, forecastVersions.get(etag));
+            assertSame(forecast, forecastVersions.get(etag.substring("W/".length())));
+            assertSame(forecast, forecastVersions.get(etag.replace("\"", "")));
+            assertNull(forecastVersions.get(ForecastVersions.etag(forecast.version(), "other")));
+        }
+    }
+
+    @Nested
+    class Weight {
+
+        /**
+         * Tests that a forecast weighs as many values as all its series and metrics
+         * hold.
+         */
+        @Test
+        void values() {
+            assertEquals(3, ForecastVersions.values(forecast));
+            assertEquals(7, ForecastVersions.values(SurfForecast.builder().length(2).waveHeight(new double[2])
+                    .projectedWaveFace(new double[2]).metrics(Map.of("energy", new double[2])).build()));
+        }
+
+        /**
+         * Tests that versions are evicted once together they hold more values than
+         * allowed, however few they are.
+         */
+        @Test
+        void bounded() throws InterruptedException {
+            var bounded = new ForecastVersions(swellServerTestUtils.getSurfSwellProperties(
+                    Map.of("cache.maximum-version-values", "10")));
+
+            for (int i = 0; i < 10; i++) {
+                bounded.register(ForecastVersions.etag(forecast.version(), i), forecast);
+            }
+
+            var kept = 10;
+
+            for (int i = 0; i < 100 && kept > 3; i++) {
+                Thread.sleep(10);
+                kept = 0;
+
+                for (int j = 0; j < 10; j++) {
+                    kept += bounded.get(ForecastVersions.etag(forecast.version(), j)) == null ? 0 : 1;
+                }
+            }
+
+            assertTrue(kept <= 3, kept + " versions kept");
+        }
+    }
+
+    @Nested
+    class Etag {
+
+        /**
+         * Tests that responses cut differently from the same forecast get different
+         * ETags.
+         */
+        @Test
+        void variant() {
+            var version = forecast.version();
+
+            assertEquals(ForecastVersions.etag(version, 24, null), ForecastVersions.etag(version, 24, null));
+            assertNotEquals(ForecastVersions.etag(version, 24, null), ForecastVersions.etag(version, 48, null));
+        }
+
+        /**
+         * Tests that If-None-Match lists, weak ETags and wildcards match.
+         */
+        @Test
+        void matches() {
+            var etag = ForecastVersions.etag(forecast.version(), "variant");
+
+            assertTrue(etag.startsWith("W/\""));
+            assertTrue(ForecastVersions.matches("\"other\", " + etag, etag));
+            assertTrue(ForecastVersions.matches(etag.substring("W/".length()), etag));
+            assertTrue(ForecastVersions.matches("*", etag));
+            assertFalse(ForecastVersions.matches("\"other\"", etag));
+            assertFalse(ForecastVersions.matches(null, etag));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package swell.server.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import swell.server.model.LocationDTO;
+
+public class LocationConverterTest {
+
+    private LocationConverter converter = new LocationConverter();
+
+    @Nested
+    class Convert {
+
+        /**
+         * Tests that a location may be given by its coordinates only.
+         */
+        @Test
+        void coordinates() {
+            assertEquals(new LocationDTO(null, "54.5", "10.0"), converter.convert("54.5, 10.0"));
+        }
+
+        /**
+         * Tests that the name is everything before the coordinates.
+         */
+        @Test
+        void named() {
+            assertEquals(new LocationDTO("Kiel, Germany", "54.5", "-10.0"),
+                    converter.convert("Kiel, Germany,54.5,-10.0"));
+        }
+
+        /**
+         * Tests that values which are not coordinates are rejected.
+         */
+        @Test
+        void notCoordinates() {
+            assertThrows(IllegalArgumentException.class, () -> converter.convert("Kiel"));
+            assertThrows(IllegalArgumentException.class, () -> converter.convert("Kiel,Germany"));
+            assertThrows(IllegalArgumentException.class, () -> converter.convert("NaN,10.0"));
+            assertThrows(IllegalArgumentException.class, () -> converter.convert("54.5,Infinity"));
+            assertThrows(IllegalArgumentException.class, () -> converter.convert("0x1p5,10.0"));
+            assertThrows(IllegalArgumentException.class, () -> converter.convert("54.5d,10.0"));
+            assertThrows(IllegalArgumentException.class, () -> converter.convert("5.45e1,10.0"));
+        }
+
+        /**
+         * Tests that coordinates beyond the poles or the antimeridian are rejected.
+         */
+        @Test
+        void outOfRange() {
+            assertEquals(new LocationDTO(null, "-90", "180.0"), converter.convert("-90,180.0"));
+            assertThrows(IllegalArgumentException.class, () -> converter.convert("90.5,10.0"));
+            assertThrows(IllegalArgumentException.class, () -> converter.convert("54.5,-180.01"));
+            assertThrows(IllegalArgumentException.class, () -> converter.convert("54.5,999"));
+        }
+    }
+}
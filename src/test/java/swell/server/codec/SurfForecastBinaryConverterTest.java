@@ -0,0 +1,106 @@
+package swell.server.codec;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import swell.server.model.SurfForecast;
+
+public class SurfForecastBinaryConverterTest {
+
+    private SurfForecastBinaryConverter converter;
+    private SurfForecast forecast;
+
+    @BeforeEach
+    void setup() {
+        converter = new SurfForecastBinaryConverter();
+
+        var waveHeight = new double[] { 1.5, 1.54, Double.NaN };
+        var swellWaveHeight = new double[] { 1.2, 1.24, 0.5 };
+
+        forecast = SurfForecast.builder()
+                .latitude("54.5")
+                .elevation(new BigDecimal("-1.5"))
+                .startEpochSecond(1717200000)
+                .stepSeconds(3600)
+                .length(waveHeight.length)
+                .waveHeight(waveHeight)
+                .swellWaveHeight(swellWaveHeight)
+                .projectedWaveFace(SurfForecast.projectedWaveFace(waveHeight, swellWaveHeight))
+                .metrics(Map.of("wavePower", new double[] { 0.125, 1, 2 }))
+                .stale(true)
+                .build();
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        var length = input.readShort();
+        return length < 0 ? null : new String(input.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    @Nested
+    class Write {
+
+        /**
+         * Tests the layout of the message, with exact hundredths quantized to
+         * {@code int16} and other series kept as {@code float32}.
+         */
+        @Test
+        void layout() throws IOException {
+            var message = new MockHttpOutputMessage();
+            converter.write(forecast, SurfForecastBinaryConverter.SURF_FORECAST_BINARY, message);
+
+            var input = new DataInputStream(new ByteArrayInputStream(message.getBodyAsBytes()));
+
+            assertArrayEquals(new byte[] { 'S', 'W', 'F', 1 }, input.readNBytes(4));
+            assertEquals("54.5", readString(input));
+            assertNull(readString(input));
+            assertEquals("-1.5", readString(input));
+            assertEquals(1717200000, input.readLong());
+            assertEquals(3600, input.readInt());
+            assertEquals(3, input.readInt());
+            assertEquals(1, input.readByte());
+            assertEquals(4, input.readByte());
+
+            assertEquals("wave_height", readString(input));
+            assertEquals(1, input.readByte());
+            assertArrayEquals(new short[] { 150, 154, Short.MIN_VALUE },
+                    new short[] { input.readShort(), input.readShort(), input.readShort() });
+
+            assertEquals("swell_wave_height", readString(input));
+            input.skipNBytes(1 + 3 * Short.BYTES);
+            assertEquals("projectedWaveFace", readString(input));
+            input.skipNBytes(1 + 3 * Short.BYTES);
+
+            assertEquals("wavePower", readString(input));
+            assertEquals(0, input.readByte());
+            assertArrayEquals(new float[] { 0.125f, 1, 2 },
+                    new float[] { input.readFloat(), input.readFloat(), input.readFloat() });
+            assertEquals(-1, input.read());
+        }
+
+        /**
+         * Tests that the encoding is only offered when asked for and never read.
+         */
+        @Test
+        void negotiation() {
+            assertTrue(converter.canWrite(SurfForecast.class, SurfForecastBinaryConverter.SURF_FORECAST_BINARY));
+            assertFalse(converter.canWrite(SurfForecast.class, MediaType.APPLICATION_JSON));
+            assertFalse(converter.canRead(SurfForecast.class, SurfForecastBinaryConverter.SURF_FORECAST_BINARY));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package swell.server.codec;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import swell.server.constant.SurfSwellConstants;
+import swell.server.model.OpenMateoOceanicWaveDataDTO;
+import swell.server.model.PeerForecastDTO;
+import swell.server.model.SurfForecast;
+import swell.server.utils.SwellServerTestUtils;
+
+public class SurfForecastDecoderTest {
+
+    private SwellServerTestUtils swellServerTestUtils = new SwellServerTestUtils();
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SurfForecastDecoder decoder = new SurfForecastDecoder(meterRegistry);
+
+    /**
+     * @return the body split into chunks of the given size, the way it may arrive
+     *         from the network.
+     */
+    private Flux<DataBuffer> chunked(String body, int chunkSize) {
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        return Flux.fromStream(IntStream.iterate(0, i -> i < bytes.length, i -> i + chunkSize)
+                .mapToObj(i -> DefaultDataBufferFactory.sharedInstance
+                        .wrap(Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + chunkSize)))));
+    }
+
+    private SurfForecast decode(String body, int chunkSize) {
+        return decoder.decodeToMono(chunked(body, chunkSize), ResolvableType.forClass(SurfForecast.class),
+                MediaType.APPLICATION_JSON, Map.of()).block();
+    }
+
+    @Nested
+    class DecodeToMono {
+
+        /**
+         * Tests that the streamed forecast holds the same data as the one decoded
+         * through {@link OpenMateoOceanicWaveDataDTO}, however the body is chunked.
+         */
+        @Test
+        void sameAsOpenMateoOceanicWaveDataDTO() throws Exception {
+            var body = swellServerTestUtils.getMarineResponse();
+            var expected = SurfForecast.from(Jackson2ObjectMapperBuilder.json().build()
+                    .readValue(body, OpenMateoOceanicWaveDataDTO.class));
+
+            for (var chunkSize : new int[] { 1, 7, body.length() }) {
+                var forecast = decode(body, chunkSize);
+
+                assertEquals(expected.latitude(), forecast.latitude());
+                assertEquals(expected.startEpochSecond(), forecast.startEpochSecond());
+                assertEquals(expected.stepSeconds(), forecast.stepSeconds());
+                assertEquals(expected.length(), forecast.length());
+                assertArrayEquals(expected.waveHeight(), forecast.waveHeight());
+                assertArrayEquals(expected.swellWavePeriod(), forecast.swellWavePeriod());
+                assertArrayEquals(expected.projectedWaveFace(), forecast.projectedWaveFace());
+            }
+        }
+
+        /**
+         * Tests that units, unrequested variables and nulls are handled.
+         */
+        @Test
+        void skipsUnknownFields() {
+            var forecast = decode("""
+                    {"latitude":1.0,"hourly_units":{"time":"iso8601","wave_height":"m"},
+                    "hourly":{"time":["2024-06-01T00:00","2024-06-01T03:00"],"wind_wave_height":[[1],{"a":2}],
+                    "wave_height":[null,1.25]},"daily":{"time":["2024-06-01"]}}
+                    """, 5);
+
+            assertEquals(2, forecast.length());
+            assertEquals(3 * 3600, forecast.stepSeconds());
+            assertArrayEquals(new double[] { Double.NaN, 1.25 }, forecast.waveHeight());
+            assertNull(forecast.wavePeriod());
+        }
+
+        /**
+         * Tests that a forecast relayed by another replica decodes back to the same
+         * forecast, stale mark included.
+         */
+        @Test
+        void peerForecast() throws Exception {
+            var expected = decode(swellServerTestUtils.getMarineResponse(), 7).withStale(true);
+            var body = Jackson2ObjectMapperBuilder.json()
+                    .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .serializerByType(SurfForecast.class, new SurfForecastJsonSerializer())
+                    .build()
+                    .writeValueAsString(PeerForecastDTO.of(expected));
+
+            var forecast = decode(body, 7);
+
+            assertEquals(expected.latitude(), forecast.latitude());
+            assertEquals(expected.startEpochSecond(), forecast.startEpochSecond());
+            assertEquals(expected.length(), forecast.length());
+            assertArrayEquals(expected.waveHeight(), forecast.waveHeight());
+            assertArrayEquals(expected.projectedWaveFace(), forecast.projectedWaveFace());
+            assertTrue(forecast.stale());
+        }
+
+        /**
+         * Tests that a response without an hourly forecast is rejected.
+         */
+        @Test
+        void noHourlyForecast() {
+            assertThrows(DecodingException.class, () -> decode("{\"error\":true,\"reason\":\"x\"}", 4));
+        }
+
+        /**
+         * Tests that decoding a response and its projected wave face is timed once.
+         */
+        @Test
+        void timed() {
+            decode(swellServerTestUtils.getMarineResponse(), 7);
+
+            for (var stage : new String[] { "decode", "projected_wave_face" }) {
+                assertEquals(1, meterRegistry.get(SurfSwellConstants.Metrics.FORECAST_STAGE)
+                        .tag(SurfSwellConstants.Metrics.TAG_STAGE, stage).timer().count());
+            }
+        }
+    }
+}
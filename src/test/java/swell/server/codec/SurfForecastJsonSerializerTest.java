@@ -0,0 +1,91 @@
+package swell.server.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import swell.server.model.SurfForecast;
+
+public class SurfForecastJsonSerializerTest {
+
+    private ObjectMapper objectMapper;
+    private SurfForecast forecast;
+
+    @BeforeEach
+    void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .serializerByType(SurfForecast.class, new SurfForecastJsonSerializer()).build();
+
+        var waveHeight = new double[] { 1.5, 1.54, Double.NaN, 0.0, 12.0, 0.0001, 12345678.9, -0.0 };
+        var swellWaveHeight = new double[] { 1.2, 1.24, 0.5, 0.0, 0.25, 0.0, 0.0, 0.0 };
+
+        forecast = SurfForecast.builder()
+                .startEpochSecond(LocalDateTime.of(2024, 12, 31, 21, 0).toEpochSecond(ZoneOffset.UTC))
+                .stepSeconds(3600)
+                .length(waveHeight.length)
+                .waveHeight(waveHeight)
+                .wavePeriod(new double[] { 6.1, 6.25, 7.0, 8.0, 9.5, 10.0, 11.0, 12.0 })
+                .swellWaveHeight(swellWaveHeight)
+                .projectedWaveFace(SurfForecast.projectedWaveFace(waveHeight, swellWaveHeight))
+                .build();
+    }
+
+    @Nested
+    class Serialize {
+
+        /**
+         * Tests that the streamed JSON is identical to the JSON of the
+         * {@link swell.server.model.OceanicDataDTO}, including a day and year change.
+         */
+        @Test
+        void sameAsOceanicDataDTO() throws Exception {
+            assertEquals(objectMapper.writeValueAsString(forecast.toOceanicDataDTO()),
+                    objectMapper.writeValueAsString(forecast));
+        }
+
+        /**
+         * Tests that dates written as timestamps still match the
+         * {@link swell.server.model.OceanicDataDTO}.
+         */
+        @Test
+        void datesAsTimestamps() throws Exception {
+            var timestampMapper = objectMapper.copy().enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+            assertEquals(timestampMapper.writeValueAsString(forecast.toOceanicDataDTO()),
+                    timestampMapper.writeValueAsString(forecast));
+        }
+
+        /**
+         * Tests that derived metrics follow the forecast variables as named series.
+         */
+        @Test
+        void metrics() throws Exception {
+            var metrics = new LinkedHashMap<String, double[]>();
+            metrics.put("wavePower", new double[] { 1.25, Double.NaN });
+            metrics.put("bestWindow", null);
+
+            var json = objectMapper.writeValueAsString(forecast.withMetrics(metrics));
+
+            assertTrue(json.endsWith(",\"wavePower\":[1.25,null],\"bestWindow\":null}"));
+        }
+
+        /**
+         * Tests that only stale forecasts are marked as such.
+         */
+        @Test
+        void stale() throws Exception {
+            assertTrue(objectMapper.writeValueAsString(forecast.withStale(true)).endsWith(",\"stale\":true}"));
+        }
+    }
+}
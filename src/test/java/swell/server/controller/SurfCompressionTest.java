@@ -0,0 +1,81 @@
+package swell.server.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import swell.server.constant.SurfSwellConstants;
+import swell.server.load.OpenMateoSimulator;
+
+/**
+ * Tests that {@code GET /surf} responses, which carry an ETag, are still gzip
+ * compressed by the embedded server.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class SurfCompressionTest {
+
+    private static OpenMateoSimulator simulator;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void simulate(DynamicPropertyRegistry registry) throws IOException {
+        simulator = new OpenMateoSimulator(
+                new OpenMateoSimulator.Settings(Duration.ofMillis(1), Duration.ofMillis(2), 0, 0, 7));
+
+        registry.add("swell.server.client.base-url", simulator::baseUrl);
+        registry.add("swell.server.client.http2", () -> false);
+        registry.add("swell.server.prefetch.enabled", () -> false);
+    }
+
+    @AfterAll
+    static void stop() {
+        simulator.close();
+    }
+
+    /**
+     * Tests that six days of forecast are sent gzipped along with its weak ETag, and
+     * that it decompresses to the forecast.
+     */
+    @Test
+    void gzip() throws Exception {
+        var uri = URI.create("http://localhost:" + port + SurfSwellConstants.Paths.SURF_DATA + "?"
+                + SurfSwellConstants.Parameters.LOCATION + "="
+                + URLEncoder.encode("Kiel,54.5,10.0", StandardCharsets.UTF_8) + "&"
+                + SurfSwellConstants.Parameters.FORECAST_DAYS + "=6");
+        var request = HttpRequest.newBuilder(uri)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .build();
+
+        var response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+        assertTrue(response.headers().firstValue(HttpHeaders.ETAG).orElseThrow().startsWith("W/\""));
+
+        try (var body = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            assertTrue(new String(body.readAllBytes(), StandardCharsets.UTF_8).startsWith("{"));
+        }
+    }
+}
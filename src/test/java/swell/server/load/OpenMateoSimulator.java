@@ -0,0 +1,244 @@
+package swell.server.load;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import swell.server.constant.SurfSwellConstants;
+
+/**
+ * Local stand-in for the Open-Mateo marine and search endpoints, answering with
+ * forecasts shaped like the real ones after a log-normally distributed delay,
+ * and failing or throttling a share of the requests.
+ */
+public class OpenMateoSimulator implements AutoCloseable {
+
+    /**
+     * The z-score of the 99th percentile of a normal distribution.
+     */
+    private static final double Z_99 = 2.326;
+
+    private final Settings settings;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong marineRequests = new AtomicLong();
+    private final AtomicLong marineLocations = new AtomicLong();
+    private final AtomicLong searchRequests = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    /**
+     * @param medianLatency the median time taken to answer.
+     * @param p99Latency    the 99th percentile of the time taken to answer.
+     * @param errorRate     the share of requests failing with a server error.
+     * @param throttleRate  the share of requests refused with
+     *                      {@code 429 Too Many Requests}.
+     * @param forecastDays  the number of days of every forecast.
+     */
+    public record Settings(Duration medianLatency, Duration p99Latency, double errorRate, double throttleRate,
+            int forecastDays) {
+    }
+
+    public OpenMateoSimulator(Settings settings) throws IOException {
+        this.settings = settings;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext(SurfSwellConstants.Paths.MARINE_OPEN_API_SWELL_PATH, this::handle);
+        this.server.createContext(SurfSwellConstants.Paths.SEARCH_LOCATION, this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    /**
+     * @return the base URL to call the simulator at.
+     */
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return the number of marine requests received, successful or not.
+     */
+    public long marineRequests() {
+        return marineRequests.get();
+    }
+
+    /**
+     * @return the number of locations asked for across all marine requests.
+     */
+    public long marineLocations() {
+        return marineLocations.get();
+    }
+
+    public long searchRequests() {
+        return searchRequests.get();
+    }
+
+    public long failed() {
+        return failed.get();
+    }
+
+    public long throttled() {
+        return throttled.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            var parameters = parameters(exchange.getRequestURI());
+            // The service searches locations on the marine path as well.
+            var search = parameters.containsKey(SurfSwellConstants.Parameters.NAME);
+
+            (search ? searchRequests : marineRequests).incrementAndGet();
+            sleep(latency());
+
+            var random = ThreadLocalRandom.current().nextDouble();
+
+            if (random < settings.throttleRate()) {
+                throttled.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                respond(exchange, 429, "{\"error\":true,\"reason\":\"Too many requests\"}");
+            } else if (random < settings.throttleRate() + settings.errorRate()) {
+                failed.incrementAndGet();
+                respond(exchange, 500, "{\"error\":true,\"reason\":\"Simulated failure\"}");
+            } else if (search) {
+                respond(exchange, 200, locations(parameters.get(SurfSwellConstants.Parameters.NAME)));
+            } else {
+                respond(exchange, 200, forecasts(parameters));
+            }
+        }
+    }
+
+    /**
+     * @return a delay drawn from the log-normal distribution matching the median
+     *         and 99th percentile latencies.
+     */
+    private Duration latency() {
+        var median = settings.medianLatency().toNanos();
+
+        if (median <= 0) {
+            return Duration.ZERO;
+        }
+
+        var sigma = Math.log((double) settings.p99Latency().toNanos() / median) / Z_99;
+
+        return Duration.ofNanos((long) (median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian())));
+    }
+
+    private String locations(String name) {
+        return "[{\"name\":\"" + name + "\",\"latitude\":\"54.5\",\"longitude\":\"10.0\"}]";
+    }
+
+    /**
+     * @return a forecast per requested coordinate, an array of them when more
+     *         than one was requested as Open-Mateo does.
+     */
+    private String forecasts(Map<String, String> parameters) {
+        var latitudes = parameters.getOrDefault(SurfSwellConstants.Parameters.LATITUDE, "0").split(",");
+        var longitudes = parameters.getOrDefault(SurfSwellConstants.Parameters.LONGITUDE, "0").split(",");
+        var variables = List.of(parameters.getOrDefault(SurfSwellConstants.Parameters.HOURLY,
+                SurfSwellConstants.Parameters.FORECAST_VARIABLES).split(","));
+        var hours = settings.forecastDays() * 24;
+        var start = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS);
+        var body = new StringBuilder(latitudes.length * hours * 40);
+
+        marineLocations.addAndGet(latitudes.length);
+        body.append(latitudes.length > 1 ? "[" : "");
+
+        for (int location = 0; location < latitudes.length; location++) {
+            body.append(location > 0 ? "," : "")
+                    .append("{\"latitude\":").append(latitudes[location])
+                    .append(",\"longitude\":").append(longitudes[location])
+                    .append(",\"generationtime_ms\":0.1,\"utc_offset_seconds\":0,\"elevation\":0.0")
+                    .append(",\"hourly\":{\"time\":[");
+
+            for (int hour = 0; hour < hours; hour++) {
+                body.append(hour > 0 ? ",\"" : "\"").append(start.plusHours(hour)).append('"');
+            }
+
+            body.append(']');
+
+            for (var variable : variables) {
+                body.append(",\"").append(variable).append("\":[");
+
+                for (int hour = 0; hour < hours; hour++) {
+                    body.append(hour > 0 ? "," : "").append(value(variable, location, hour));
+                }
+
+                body.append(']');
+            }
+
+            body.append("}}");
+        }
+
+        return body.append(latitudes.length > 1 ? "]" : "").toString();
+    }
+
+    /**
+     * @return a plausible value of the variable, varying smoothly over the hours.
+     */
+    private static double value(String variable, int location, int hour) {
+        var wave = Math.sin((hour + location * 7) / 12.0);
+        var value = switch (variable) {
+            case SurfSwellConstants.Parameters.WAVE_HEIGHT -> 1.5 + wave;
+            case SurfSwellConstants.Parameters.SWELL_WAVE_HEIGHT -> 1 + 0.8 * wave;
+            case SurfSwellConstants.Parameters.WAVE_PERIOD -> 7 + 2 * wave;
+            default -> 10 + 3 * wave;
+        };
+
+        return Math.rint(value * 100) / 100;
+    }
+
+    private static Map<String, String> parameters(URI uri) {
+        var parameters = new HashMap<String, String>();
+
+        if (uri.getRawQuery() != null) {
+            for (var parameter : uri.getRawQuery().split("&")) {
+                var separator = parameter.indexOf('=');
+
+                if (separator > 0) {
+                    parameters.put(parameter.substring(0, separator),
+                            URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        return parameters;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package swell.server.load;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import swell.server.constant.SurfSwellConstants;
+
+/**
+ * Drives {@code GET /surf} against an {@link OpenMateoSimulator} with spots
+ * drawn from a Zipf distribution, and reports the throughput, the latency
+ * percentiles and the number of upstream calls per request.
+ *
+ * <p>
+ * Opt in with {@code -Dswell.load-test=true}; every knob is a
+ * {@code swell.load-test.*} system property.
+ */
+@EnabledIfSystemProperty(named = "swell.load-test", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class SurfLoadTest {
+
+    private static final Duration DURATION = Duration.parse(setting("duration", "PT30S"));
+    private static final int CONCURRENCY = Integer.parseInt(setting("concurrency", "64"));
+    private static final int SPOTS = Integer.parseInt(setting("spots", "1000"));
+    private static final double ZIPF_EXPONENT = Double.parseDouble(setting("zipf", "1.1"));
+
+    private static OpenMateoSimulator simulator;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void simulate(DynamicPropertyRegistry registry) throws Exception {
+        simulator = new OpenMateoSimulator(new OpenMateoSimulator.Settings(
+                Duration.parse(setting("upstream-median", "PT0.08S")),
+                Duration.parse(setting("upstream-p99", "PT0.5S")),
+                Double.parseDouble(setting("upstream-error-rate", "0.01")),
+                Double.parseDouble(setting("upstream-throttle-rate", "0.01")),
+                Integer.parseInt(setting("upstream-forecast-days", "7"))));
+
+        registry.add("swell.server.client.base-url", simulator::baseUrl);
+        registry.add("swell.server.client.http2", () -> false);
+        registry.add("swell.server.prefetch.enabled", () -> false);
+    }
+
+    @AfterAll
+    static void stop() {
+        simulator.close();
+    }
+
+    /**
+     * Closed-loop workers request spots until the duration elapses, each
+     * waiting for its previous answer.
+     */
+    @Test
+    void surf() throws Exception {
+        var spots = new ZipfSampler(SPOTS, ZIPF_EXPONENT);
+        var client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        var latencies = new Recorder(3);
+        var statuses = new ConcurrentHashMap<Integer, AtomicLong>();
+        var requests = new AtomicLong();
+        var deadline = System.nanoTime() + DURATION.toNanos();
+        var started = System.nanoTime();
+
+        try (var workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int worker = 0; worker < CONCURRENCY; worker++) {
+                workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        var request = HttpRequest.newBuilder(uri(spots.next())).build();
+                        var start = System.nanoTime();
+                        var status = send(client, request);
+
+                        latencies.recordValue(System.nanoTime() - start);
+                        statuses.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+                        requests.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        var elapsed = Duration.ofNanos(System.nanoTime() - started);
+        var histogram = latencies.getIntervalHistogram();
+
+        System.out.printf(Locale.ROOT, """
+                /surf load: %d workers, %d spots, zipf %.2f, %s
+                  requests     %d (%.1f/s)
+                  statuses     %s
+                  latency      p50 %.1f ms, p99 %.1f ms, p999 %.1f ms, max %.1f ms
+                  upstream     %d marine calls for %d locations, %d failed, %d throttled
+                  amplification %.3f marine calls per /surf request
+                """,
+                CONCURRENCY, SPOTS, ZIPF_EXPONENT, DURATION,
+                requests.get(), requests.get() * 1e9 / elapsed.toNanos(),
+                statuses,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()),
+                simulator.marineRequests(), simulator.marineLocations(), simulator.failed(), simulator.throttled(),
+                (double) simulator.marineRequests() / Math.max(1, requests.get()));
+
+        assertTrue(statuses.getOrDefault(200, new AtomicLong()).get() > 0);
+    }
+
+    private URI uri(int spot) {
+        // A degree apart, so that no two spots share a cache cell.
+        var location = String.format(Locale.ROOT, "Spot %d,%d.25,%d.25", spot, spot % 120 - 60, spot / 120 - 180);
+
+        return URI.create("http://localhost:" + port + SurfSwellConstants.Paths.SURF_DATA + "?"
+                + SurfSwellConstants.Parameters.LOCATION + "=" + URLEncoder.encode(location, StandardCharsets.UTF_8));
+    }
+
+    private static int send(HttpClient client, HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static String setting(String name, String defaultValue) {
+        return System.getProperty("swell.load-test." + name, defaultValue);
+    }
+
+    /**
+     * Draws ranks in {@code [0, n)}, rank {@code k} with a probability
+     * proportional to {@code 1 / (k + 1)^s}.
+     */
+    static class ZipfSampler {
+
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double s) {
+            cumulative = new double[n];
+
+            var sum = 0.0;
+
+            for (int k = 0; k < n; k++) {
+                sum += 1 / Math.pow(k + 1, s);
+                cumulative[k] = sum;
+            }
+
+            for (int k = 0; k < n; k++) {
+                cumulative[k] /= sum;
+            }
+        }
+
+        int next() {
+            var index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package swell.server.metric;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.web.server.ResponseStatusException;
+
+import swell.server.model.SurfForecast;
+
+public class DerivedMetricsTest {
+
+    private DerivedMetrics derivedMetrics;
+    private SurfForecast forecast;
+
+    @BeforeEach
+    void setup() {
+        derivedMetrics = new DerivedMetrics(new StaticListableBeanFactory().getBeanProvider(DerivedMetric.class));
+
+        var waveHeight = new double[] { 1.0, 2.0, Double.NaN, 1.5, 3.0, 2.5, 0.5 };
+        var swellWaveHeight = new double[] { 0.5, 2.0, 1.0, 0.75, 1.5, 2.5, 0.5 };
+
+        forecast = SurfForecast.builder()
+                .length(waveHeight.length)
+                .waveHeight(waveHeight)
+                .wavePeriod(new double[] { 10, 10, 10, 10, 10, 10, 10 })
+                .swellWaveHeight(swellWaveHeight)
+                .build();
+    }
+
+    private double[] metric(String name) {
+        return derivedMetrics.apply(forecast, derivedMetrics.resolve(List.of(name))).metrics().get(name);
+    }
+
+    @Nested
+    class Apply {
+
+        /**
+         * Tests the wave power and swell dominance of every hour.
+         */
+        @Test
+        void perHour() {
+            assertArrayEquals(new double[] { 4.9, 19.6, Double.NaN, 11.02, 44.1, 30.62, 1.23 }, metric("wavePower"));
+            assertArrayEquals(new double[] { 0.5, 1.0, Double.NaN, 0.5, 0.5, 1.0, 1.0 }, metric("swellDominance"));
+        }
+
+        /**
+         * Tests that rolling windows skip missing hours.
+         */
+        @Test
+        void rolling() {
+            assertArrayEquals(new double[] { 1.0, 2.0, 2.0, 2.0, 3.0, 3.0, 3.0 }, metric("waveHeightMax3h"));
+            assertArrayEquals(new double[] { 1.0, 1.5, 1.5, 1.75, 2.25, 2.33, 2.0 }, metric("waveHeightMean3h"));
+            assertArrayEquals(new double[] { 1.0, 1.5, 1.5, 1.5, 1.88, 2.0, 1.9 }, metric("waveHeightMean6h"));
+        }
+
+        /**
+         * Tests that the three hours with the most wave power are marked.
+         */
+        @Test
+        void bestWindow() {
+            assertArrayEquals(new double[] { 0, 0, 0, 1, 1, 1, 0 }, metric("bestWindow"));
+        }
+
+        /**
+         * Tests that a metric is computed once per forecast and that metrics lacking
+         * their series are {@code null}.
+         */
+        @Test
+        void memoized() {
+            assertSame(metric("wavePower"), metric("wavePower"));
+            assertNull(derivedMetrics.apply(forecast.withWavePeriod(null),
+                    derivedMetrics.resolve(List.of("wavePower"))).metrics().get("wavePower"));
+        }
+
+        /**
+         * Tests that forecasts are returned as is when no metric is asked for.
+         */
+        @Test
+        void none() {
+            assertSame(forecast, derivedMetrics.apply(forecast, derivedMetrics.resolve(null)));
+        }
+    }
+
+    @Nested
+    class Resolve {
+
+        /**
+         * Tests that unknown metrics are rejected.
+         */
+        @Test
+        void unknown() {
+            var exception = assertThrows(ResponseStatusException.class,
+                    () -> derivedMetrics.resolve(List.of("wavePower", "tide")));
+
+            assertEquals(400, exception.getStatusCode().value());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package swell.server.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import swell.server.constant.SurfSwellConstants;
+
+public class ForecastDeltaTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 0, 0);
+
+    private SurfForecast base;
+
+    @BeforeEach
+    void setup() {
+        base = forecast(START, new double[] { 1.0, 1.1, 1.2, 1.3 }, new double[] { 6, 6, 7, 7 });
+    }
+
+    private static SurfForecast forecast(LocalDateTime start, double[] waveHeight, double[] wavePeriod) {
+        return SurfForecast.builder()
+                .startEpochSecond(start.toEpochSecond(ZoneOffset.UTC))
+                .stepSeconds(3600)
+                .length(waveHeight.length)
+                .waveHeight(waveHeight)
+                .wavePeriod(wavePeriod)
+                .build();
+    }
+
+    private static List<BigDecimal> bigDecimals(Double... values) {
+        return Arrays.stream(values).map(value -> value == null ? null : BigDecimal.valueOf(value)).toList();
+    }
+
+    @Nested
+    class Between {
+
+        /**
+         * Tests that only the changed hours of each series are sent, and that series
+         * without changes are left out.
+         */
+        @Test
+        void changedHours() {
+            var current = forecast(START, new double[] { 1.0, 1.15, 1.2, Double.NaN },
+                    new double[] { 6, 6, 7, 7 });
+
+            var delta = ForecastDelta.between(base, current, "base", "current");
+
+            assertEquals(START, delta.start());
+            assertEquals(3600, delta.step());
+            assertEquals(4, delta.length());
+            assertEquals(List.of(SurfSwellConstants.Parameters.WAVE_HEIGHT), List.copyOf(delta.changes().keySet()));
+            var waveHeight = delta.changes().get(SurfSwellConstants.Parameters.WAVE_HEIGHT);
+
+            assertArrayEquals(new int[] { 1, 3 }, waveHeight.index());
+            assertEquals(bigDecimals(1.15, null), waveHeight.values());
+        }
+
+        /**
+         * Tests that hours are matched by time stamp once the window moved on, the
+         * hours the base lacks counting as changed.
+         */
+        @Test
+        void shiftedWindow() {
+            var current = forecast(START.plusHours(2), new double[] { 1.2, 1.3, 1.4 }, new double[] { 7, 7, 8 });
+
+            var delta = ForecastDelta.between(base, current, "base", "current");
+
+            assertEquals(START.plusHours(2), delta.start());
+            assertArrayEquals(new int[] { 2 }, delta.changes().get(SurfSwellConstants.Parameters.WAVE_HEIGHT).index());
+            assertArrayEquals(new int[] { 2 }, delta.changes().get(SurfSwellConstants.Parameters.WAVE_PERIOD).index());
+        }
+
+        /**
+         * Tests that a series the base lacks, like a newly requested derived metric,
+         * is sent whole.
+         */
+        @Test
+        void newSeries() {
+            var current = base.withMetrics(Map.of("wavePower", new double[] { 1, 2, 3, 4 }));
+
+            var delta = ForecastDelta.between(base, current, "base", "current");
+
+            assertEquals(List.of("wavePower"), List.copyOf(delta.changes().keySet()));
+            assertArrayEquals(new int[] { 0, 1, 2, 3 }, delta.changes().get("wavePower").index());
+        }
+
+        /**
+         * Tests that series the base has but the current forecast lacks, like a
+         * variable or metric no longer requested, are given as removed.
+         */
+        @Test
+        void removedSeries() {
+            var withMetric = base.withMetrics(Map.of("wavePower", new double[] { 1, 2, 3, 4 }));
+            var current = base.withWavePeriod(null);
+
+            var delta = ForecastDelta.between(withMetric, current, "base", "current");
+
+            assertEquals(List.of(SurfSwellConstants.Parameters.WAVE_PERIOD, "wavePower"),
+                    List.copyOf(delta.changes().keySet()));
+            assertNull(delta.changes().get(SurfSwellConstants.Parameters.WAVE_PERIOD));
+            assertNull(delta.changes().get("wavePower"));
+        }
+
+        /**
+         * Tests that an unchanged forecast yields no changes.
+         */
+        @Test
+        void unchanged() {
+            assertTrue(ForecastDelta.between(base, base, "base", "base").changes().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package swell.server.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import swell.server.constant.SurfSwellConstants;
+import swell.server.utils.MutableClock;
+
+public class ForecastProjectionTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 0, 0);
+
+    private MutableClock clock;
+    private SurfForecast forecast;
+
+    @BeforeEach
+    void setup() {
+        clock = new MutableClock(Instant.parse("2024-06-01T02:30:00Z"));
+
+        var waveHeight = new double[] { 1.0, 1.1, 1.2, 1.3, 1.4, 1.5, 1.6, 1.7 };
+        var swellWaveHeight = new double[] { 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5 };
+
+        forecast = SurfForecast.builder()
+                .startEpochSecond(START.toEpochSecond(ZoneOffset.UTC))
+                .stepSeconds(3600)
+                .length(waveHeight.length)
+                .waveHeight(waveHeight)
+                .wavePeriod(new double[] { 6, 6, 6, 6, 7, 7, 7, 7 })
+                .swellWaveHeight(swellWaveHeight)
+                .projectedWaveFace(SurfForecast.projectedWaveFace(waveHeight, swellWaveHeight))
+                .metrics(Map.of("wavePower", new double[] { 0, 1, 2, 3, 4, 5, 6, 7 }))
+                .build();
+    }
+
+    private ForecastProjection projection(List<String> hourly, LocalDateTime startHour, LocalDateTime endHour,
+            Integer forecastHours, Integer step) {
+        return ForecastProjection.of(hourly, startHour, endHour, forecastHours, null, step, clock);
+    }
+
+    @Nested
+    class FetchedVariables {
+
+        /**
+         * Tests that variables are fetched in a fixed order, including the heights
+         * the projected wave face is derived from.
+         */
+        @Test
+        void fixedOrder() {
+            assertEquals("wave_height,wave_period", projection(List.of("wave_period", "wave_height"), null, null,
+                    null, null).fetchedVariables());
+            assertEquals("wave_height,swell_wave_height", projection(List.of("projectedWaveFace"), null, null,
+                    null, null).fetchedVariables());
+            assertEquals(SurfSwellConstants.Parameters.FORECAST_VARIABLES, ForecastProjection.ALL.fetchedVariables());
+        }
+    }
+
+    @Nested
+    class Apply {
+
+        /**
+         * Tests that the whole forecast is returned as is.
+         */
+        @Test
+        void all() {
+            assertSame(forecast, ForecastProjection.ALL.apply(forecast));
+        }
+
+        /**
+         * Tests that hours outside of the start and end hour are cut, along with the
+         * derived metrics.
+         */
+        @Test
+        void startAndEndHour() {
+            var projected = projection(null, START.plusHours(2), START.plusHours(4), null, null).apply(forecast);
+
+            assertEquals(START.plusHours(2).toEpochSecond(ZoneOffset.UTC), projected.startEpochSecond());
+            assertEquals(3, projected.length());
+            assertArrayEquals(new double[] { 1.2, 1.3, 1.4 }, projected.waveHeight());
+            assertArrayEquals(new double[] { 2, 3, 4 }, projected.metrics().get("wavePower"));
+        }
+
+        /**
+         * Tests that a forecast length starts at the current hour and that the step
+         * keeps every nth hour only.
+         */
+        @Test
+        void forecastHoursAndStep() {
+            var projected = projection(List.of("wave_height"), null, null, 5, 2).apply(forecast);
+
+            assertEquals(START.plusHours(2).toEpochSecond(ZoneOffset.UTC), projected.startEpochSecond());
+            assertEquals(7200, projected.stepSeconds());
+            assertArrayEquals(new double[] { 1.2, 1.4, 1.6 }, projected.waveHeight());
+            assertNull(projected.wavePeriod());
+            assertNull(projected.projectedWaveFace());
+        }
+
+        /**
+         * Tests that a window beyond the forecast is empty.
+         */
+        @Test
+        void outOfRange() {
+            var projected = projection(null, START.plusDays(2), null, null, 3).apply(forecast);
+
+            assertEquals(0, projected.length());
+            assertArrayEquals(new double[0], projected.waveHeight());
+        }
+    }
+
+    @Nested
+    class RequireFetchedVariables {
+
+        /**
+         * Tests that the fetched variables of a projection are accepted, and
+         * anything else rejected.
+         */
+        @Test
+        void fetchedOnly() {
+            assertEquals("wave_height,swell_wave_height", ForecastProjection.requireFetchedVariables(
+                    projection(List.of("projectedWaveFace"), null, null, null, null).fetchedVariables()));
+            assertEquals(SurfSwellConstants.Parameters.FORECAST_VARIABLES, ForecastProjection
+                    .requireFetchedVariables(SurfSwellConstants.Parameters.FORECAST_VARIABLES));
+
+            for (var hourly : List.of("", ",", "temperature", "projectedWaveFace", "wave_period,wave_height",
+                    "wave_height,wave_height", "wave_height,")) {
+                assertThrows(ResponseStatusException.class,
+                        () -> ForecastProjection.requireFetchedVariables(hourly), hourly);
+            }
+        }
+    }
+
+    @Nested
+    class RequireWithin {
+
+        /**
+         * Tests that windows within the forecast pass, and those starting or ending
+         * outside of it are rejected.
+         */
+        @Test
+        void bounds() {
+            projection(null, START, START.plusHours(7), null, null).requireWithin(forecast);
+            projection(null, null, null, 6, null).requireWithin(forecast);
+            ForecastProjection.ALL.requireWithin(forecast);
+
+            assertThrows(ResponseStatusException.class,
+                    () -> projection(null, START.minusHours(1), null, null, null).requireWithin(forecast));
+            assertThrows(ResponseStatusException.class,
+                    () -> projection(null, START.plusDays(2), null, null, null).requireWithin(forecast));
+            assertThrows(ResponseStatusException.class,
+                    () -> projection(null, null, null, 7, null).requireWithin(forecast));
+            assertThrows(ResponseStatusException.class, () -> ForecastProjection
+                    .of(null, null, null, null, 16, null, clock).requireWithin(forecast));
+        }
+    }
+
+    @Nested
+    class Of {
+
+        /**
+         * Tests that no or unknown variables and contradicting hours are rejected.
+         */
+        @Test
+        void badRequest() {
+            assertThrows(ResponseStatusException.class, () -> projection(List.of("tide"), null, null, null, null));
+            assertThrows(ResponseStatusException.class, () -> projection(List.of(), null, null, null, null));
+            assertThrows(ResponseStatusException.class, () -> projection(null, null, START, 24, null));
+            assertThrows(ResponseStatusException.class,
+                    () -> projection(null, START.plusHours(1), START, null, null));
+            assertThrows(ResponseStatusException.class, () -> projection(null, null, null, null, 0));
+        }
+
+        /**
+         * Tests that a forecast length too long for an int in hours still ends after
+         * it starts.
+         */
+        @Test
+        void longForecast() {
+            var projection = ForecastProjection.of(null, START, null, null, Integer.MAX_VALUE, null, clock);
+
+            assertEquals(START.toEpochSecond(ZoneOffset.UTC) + (Integer.MAX_VALUE * 24L - 1) * 3600,
+                    projection.endEpochSecond());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package swell.server.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class SurfForecastTest {
+
+    private OpenMateoOceanicWaveDataDTO openMateoOceanicWaveDataDTO;
+
+    @BeforeEach
+    void setup() {
+        var start = LocalDateTime.of(2024, 6, 1, 0, 0);
+
+        openMateoOceanicWaveDataDTO = OpenMateoOceanicWaveDataDTO.builder().latitude("54.5").longitude("10.0")
+                .hourly(OceanicDataDTO.builder()
+                        .time(List.of(start, start.plusHours(1), start.plusHours(2)))
+                        .wave_height(bigDecimals("1.5", "1.54", null))
+                        .swell_wave_height(bigDecimals("1.2", "1.24", "0.5"))
+                        .wave_period(bigDecimals("6.1", "6.25", "7.0"))
+                        .build())
+                .build();
+    }
+
+    private static List<BigDecimal> bigDecimals(String... values) {
+        return Arrays.stream(values).map(value -> value == null ? null : new BigDecimal(value)).toList();
+    }
+
+    @Nested
+    class From {
+
+        /**
+         * Tests that the time axis is stored as a start and a step.
+         */
+        @Test
+        void timeAxis() {
+            var forecast = SurfForecast.from(openMateoOceanicWaveDataDTO);
+
+            assertEquals(3, forecast.length());
+            assertEquals(3600, forecast.stepSeconds());
+            assertEquals(openMateoOceanicWaveDataDTO.hourly().time(), forecast.toOceanicDataDTO().time());
+        }
+
+        /**
+         * Tests that the projected wave face is rounded to the precision of its
+         * inputs, and that missing values stay missing.
+         */
+        @Test
+        void projectedWaveFace() {
+            var forecast = SurfForecast.from(openMateoOceanicWaveDataDTO);
+
+            assertArrayEquals(new double[] { 0.3, 0.3, Double.NaN }, forecast.projectedWaveFace());
+            assertNull(forecast.toOceanicDataDTO().projectedWaveFace().get(2));
+        }
+
+        /**
+         * Tests that variables which were not requested are left out.
+         */
+        @Test
+        void missingVariable() {
+            var forecast = SurfForecast.from(openMateoOceanicWaveDataDTO);
+
+            assertNull(forecast.swellWavePeriod());
+            assertNull(forecast.toOceanicDataDTO().swell_wave_period());
+        }
+    }
+
+    @Nested
+    class Version {
+
+        /**
+         * Tests that equal forecasts share a version whether stale or not, and that
+         * changing a single value changes it.
+         */
+        @Test
+        void content() {
+            var forecast = SurfForecast.from(openMateoOceanicWaveDataDTO);
+            var changed = forecast.wavePeriod().clone();
+            changed[1] = 6.3;
+
+            assertEquals(16, forecast.version().length());
+            assertEquals(forecast.version(), SurfForecast.from(openMateoOceanicWaveDataDTO).version());
+            assertEquals(forecast.version(), forecast.withStale(true).version());
+            assertNotEquals(forecast.version(), forecast.withWavePeriod(changed).version());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package swell.server.peer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import swell.server.cache.ForecastKey;
+import swell.server.config.SurfSwellProperties;
+import swell.server.constant.SurfSwellConstants;
+import swell.server.utils.SwellServerTestUtils;
+
+public class ForecastPeersTest {
+
+    private static final String SELF = "http://a:7777";
+    private static final String PEER = "http://b:7777";
+
+    private SwellServerTestUtils swellServerTestUtils = new SwellServerTestUtils();
+    private SurfSwellProperties properties = swellServerTestUtils.getSurfSwellProperties(
+            Map.of("peers.enabled", "true", "peers.self", SELF, "peers.members", SELF + "," + PEER));
+    private AtomicInteger upstreamCalls;
+    private List<URI> peerCalls;
+
+    @BeforeEach
+    void setup() {
+        upstreamCalls = new AtomicInteger();
+        peerCalls = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * @return a {@link WebClient} answering every request to a replica with the
+     *         response body, recording what was asked.
+     */
+    private WebClient getPeerWebClient(String responseBody) {
+        return WebClient.builder()
+                .exchangeFunction(request -> {
+                    peerCalls.add(request.url());
+                    return Mono.just(ClientResponse.create(HttpStatus.OK,
+                            swellServerTestUtils.getExchangeStrategies())
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(responseBody).build());
+                })
+                .build();
+    }
+
+    /**
+     * @return the key of the first location owned by the replica, or by another
+     *         one.
+     */
+    private ForecastKey key(ForecastPeers forecastPeers, boolean owned) {
+        var forecastCache = swellServerTestUtils.getForecastCache();
+
+        for (int i = 0;; i++) {
+            var key = forecastCache.key(String.valueOf(50 + i / 10.0), "10.0",
+                    SurfSwellConstants.Parameters.FORECAST_VARIABLES);
+
+            if (forecastPeers.owns(key) == owned) {
+                return key;
+            }
+        }
+    }
+
+    @Nested
+    class FetchForecast {
+
+        /**
+         * Tests that the forecast of a location owned by another replica is asked
+         * to it rather than Open-Mateo, and then kept in the near cache.
+         */
+        @Test
+        void remoteLocation() {
+            var forecastPeers = new ForecastPeers(properties,
+                    getPeerWebClient(swellServerTestUtils.getMarineResponse()), new SimpleMeterRegistry());
+            var surfSwellService = swellServerTestUtils.getSurfSwellService(swellServerTestUtils
+                    .getDelayedWebClient(swellServerTestUtils.getMarineResponse(), Duration.ZERO, upstreamCalls),
+                    forecastPeers);
+            var key = key(forecastPeers, false);
+
+            for (int i = 0; i < 2; i++) {
+                var forecast = surfSwellService.fetchForecast(key.latitude(), key.longitude()).block();
+
+                assertEquals(3, forecast.length());
+            }
+
+            assertEquals(0, upstreamCalls.get());
+            assertEquals(1, peerCalls.size());
+            assertTrue(peerCalls.get(0).toString().startsWith(PEER + SurfSwellConstants.Paths.PEER_FORECAST),
+                    peerCalls.get(0).toString());
+            assertTrue(peerCalls.get(0).getQuery().contains("latitude=" + key.latitude()),
+                    peerCalls.get(0).toString());
+        }
+
+        /**
+         * Tests that the forecast of a location owned by the replica is fetched
+         * from Open-Mateo.
+         */
+        @Test
+        void ownedLocation() {
+            var forecastPeers = new ForecastPeers(properties,
+                    getPeerWebClient(swellServerTestUtils.getMarineResponse()), new SimpleMeterRegistry());
+            var surfSwellService = swellServerTestUtils.getSurfSwellService(swellServerTestUtils
+                    .getDelayedWebClient(swellServerTestUtils.getMarineResponse(), Duration.ZERO, upstreamCalls),
+                    forecastPeers);
+            var key = key(forecastPeers, true);
+
+            assertNotNull(surfSwellService.fetchForecast(key.latitude(), key.longitude()).block());
+
+            assertEquals(1, upstreamCalls.get());
+            assertEquals(0, peerCalls.size());
+        }
+
+        /**
+         * Tests that the forecast of a location owned by an unreachable replica is
+         * fetched from Open-Mateo instead.
+         */
+        @Test
+        void unreachablePeer() {
+            var meterRegistry = new SimpleMeterRegistry();
+            var forecastPeers = new ForecastPeers(properties,
+                    swellServerTestUtils.getFailingWebClient(HttpStatus.SERVICE_UNAVAILABLE), meterRegistry);
+            var surfSwellService = swellServerTestUtils.getSurfSwellService(swellServerTestUtils
+                    .getDelayedWebClient(swellServerTestUtils.getMarineResponse(), Duration.ZERO, upstreamCalls),
+                    forecastPeers);
+            var key = key(forecastPeers, false);
+
+            assertNotNull(surfSwellService.fetchForecast(key.latitude(), key.longitude()).block());
+
+            assertEquals(1, upstreamCalls.get());
+            assertEquals(1, meterRegistry.get(SurfSwellConstants.Metrics.PEER_REQUESTS)
+                    .tag(SurfSwellConstants.Metrics.TAG_OUTCOME, "error").timer().count());
+        }
+    }
+
+    @Nested
+    class Owns {
+
+        /**
+         * Tests that every location is owned when peers are disabled.
+         */
+        @Test
+        void disabled() {
+            var forecastPeers = new ForecastPeers(swellServerTestUtils.getSurfSwellProperties(
+                    Map.of("peers.self", SELF, "peers.members", SELF + "," + PEER)),
+                    getPeerWebClient(""), new SimpleMeterRegistry());
+            var forecastCache = swellServerTestUtils.getForecastCache();
+
+            for (int i = 0; i < 100; i++) {
+                assertTrue(forecastPeers.owns(forecastCache.key(String.valueOf(i), "10.0",
+                        SurfSwellConstants.Parameters.FORECAST_VARIABLES)));
+            }
+        }
+
+        /**
+         * Tests that enabled peers not listing this replica among the members fail
+         * at startup.
+         */
+        @Test
+        void selfNotMember() {
+            var notMember = swellServerTestUtils.getSurfSwellProperties(
+                    Map.of("peers.enabled", "true", "peers.self", SELF, "peers.members", PEER));
+
+            assertThrows(IllegalStateException.class,
+                    () -> new ForecastPeers(notMember, getPeerWebClient(""), new SimpleMeterRegistry()));
+        }
+    }
+}
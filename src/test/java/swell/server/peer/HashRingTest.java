@@ -0,0 +1,70 @@
+package swell.server.peer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class HashRingTest {
+
+    private static final List<String> MEMBERS = List.of("http://a:7777", "http://b:7777", "http://c:7777");
+    private static final int KEYS = 30000;
+
+    private static String key(int i) {
+        return (i % 1800) / 10.0 + "," + (i / 1800) / 10.0;
+    }
+
+    @Nested
+    class Owner {
+
+        /**
+         * Tests that a ring without members owns nothing, and that a single member
+         * owns everything.
+         */
+        @Test
+        void fewMembers() {
+            assertNull(new HashRing(List.of(), 128).owner("54.5,10.0"));
+            assertEquals("http://a:7777", new HashRing(List.of("http://a:7777"), 128).owner("54.5,10.0"));
+        }
+
+        /**
+         * Tests that keys spread evenly across the members.
+         */
+        @Test
+        void evenSpread() {
+            var ring = new HashRing(MEMBERS, 128);
+            var owned = new HashMap<String, Integer>();
+
+            for (int i = 0; i < KEYS; i++) {
+                owned.merge(ring.owner(key(i)), 1, Integer::sum);
+            }
+
+            assertEquals(MEMBERS.size(), owned.size());
+            owned.values().forEach(count -> assertTrue(Math.abs(count - KEYS / MEMBERS.size()) < KEYS / 10,
+                    owned.toString()));
+        }
+
+        /**
+         * Tests that removing a member only moves the keys it owned, and that the
+         * order of the members does not matter.
+         */
+        @Test
+        void removedMember() {
+            var ring = new HashRing(MEMBERS, 128);
+            var shrunk = new HashRing(List.of("http://c:7777", "http://a:7777"), 128);
+
+            for (int i = 0; i < KEYS; i++) {
+                var owner = ring.owner(key(i));
+
+                if (!owner.equals("http://b:7777")) {
+                    assertEquals(owner, shrunk.owner(key(i)));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package swell.server.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import swell.server.constant.SurfSwellConstants;
+import swell.server.resilience.AdmissionControl.Endpoint;
+import swell.server.resilience.AdmissionControl.Priority;
+import swell.server.utils.SwellServerTestUtils;
+
+public class AdmissionControlTest {
+
+    private SwellServerTestUtils swellServerTestUtils = new SwellServerTestUtils();
+    private AtomicLong nanoTime;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        nanoTime = new AtomicLong();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private AdmissionControl getAdmissionControl(Map<String, String> admission) {
+        var properties = new HashMap<String, String>(Map.of("admission.initial-limit", "4",
+                "admission.minimum-limit", "1", "admission.interactive-share", "0.75",
+                "admission.bulk-share", "0.5"));
+        admission.forEach((name, value) -> properties.put("admission." + name, value));
+
+        return new AdmissionControl(swellServerTestUtils.getSurfSwellProperties(properties).admission(),
+                meterRegistry, nanoTime::get);
+    }
+
+    /**
+     * @return the subscription of a request that stays in flight until disposed.
+     */
+    private Disposable hold(AdmissionControl admissionControl, Priority priority) {
+        return admissionControl.admit(Endpoint.FORECAST, priority, Mono::never).subscribe();
+    }
+
+    private ResponseStatusException rejection(AdmissionControl admissionControl, Priority priority) {
+        return assertThrows(ResponseStatusException.class,
+                () -> admissionControl.admit(Endpoint.FORECAST, priority, () -> Mono.just("forecast")).block());
+    }
+
+    @Nested
+    class Admit {
+
+        /**
+         * Tests that requests beyond the limit are rejected as overload, with a
+         * Retry-After header, until one in flight completes.
+         */
+        @Test
+        void full() {
+            var admissionControl = getAdmissionControl(Map.of("retry-after", "1500ms"));
+
+            for (int i = 0; i < 4; i++) {
+                hold(admissionControl, Priority.CACHED);
+            }
+
+            var rejection = rejection(admissionControl, Priority.CACHED);
+
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejection.getStatusCode());
+            assertEquals("2", rejection.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+            assertEquals(1, meterRegistry.get(SurfSwellConstants.Metrics.ADMISSION_REJECTED)
+                    .tag(SurfSwellConstants.Metrics.TAG_PRIORITY, "cached").counter().count());
+        }
+
+        /**
+         * Tests that lower priorities are shed first, while the higher ones are still
+         * admitted.
+         */
+        @Test
+        void priorities() {
+            var admissionControl = getAdmissionControl(Map.of());
+
+            hold(admissionControl, Priority.BULK);
+            hold(admissionControl, Priority.BULK);
+
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejection(admissionControl, Priority.BULK).getStatusCode());
+
+            hold(admissionControl, Priority.INTERACTIVE);
+
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS,
+                    rejection(admissionControl, Priority.INTERACTIVE).getStatusCode());
+            assertEquals("forecast", admissionControl.admit(Endpoint.FORECAST, Priority.CACHED,
+                    () -> Mono.just("forecast")).block());
+        }
+
+        /**
+         * Tests that completed, failed and cancelled requests all give their place
+         * back, and that endpoints are limited separately.
+         */
+        @Test
+        void released() {
+            var admissionControl = getAdmissionControl(Map.of("initial-limit", "1"));
+
+            admissionControl.admit(Endpoint.FORECAST, Priority.CACHED, () -> Mono.just("forecast")).block();
+            assertThrows(IllegalStateException.class, () -> admissionControl
+                    .admit(Endpoint.FORECAST, Priority.CACHED, () -> Mono.error(new IllegalStateException()))
+                    .block());
+            hold(admissionControl, Priority.CACHED).dispose();
+            admissionControl.admitMany(Endpoint.FORECAST, Priority.BULK, () -> Flux.just(1, 2)).blockLast();
+            hold(admissionControl, Priority.CACHED);
+
+            rejection(admissionControl, Priority.CACHED);
+            assertEquals(1, admissionControl.admit(Endpoint.SEARCH, Priority.CACHED, () -> Mono.just(1)).block());
+        }
+
+        /**
+         * Tests that a request throwing before returning its publisher, such as one
+         * rejecting a bad parameter, still gives its place back.
+         */
+        @Test
+        void thrown() {
+            var admissionControl = getAdmissionControl(Map.of("initial-limit", "1"));
+
+            for (int i = 0; i < 3; i++) {
+                assertThrows(ResponseStatusException.class,
+                        () -> admissionControl.<String>admit(Endpoint.FORECAST, Priority.CACHED, () -> {
+                            throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+                        }).block());
+                assertThrows(ResponseStatusException.class,
+                        () -> admissionControl.<String>admitMany(Endpoint.FORECAST, Priority.CACHED, () -> {
+                            throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+                        }).blockLast());
+            }
+
+            assertEquals("forecast", admissionControl.admit(Endpoint.FORECAST, Priority.CACHED,
+                    () -> Mono.just("forecast")).block());
+        }
+
+        /**
+         * Tests that nothing is rejected when admission control is disabled.
+         */
+        @Test
+        void disabled() {
+            var admissionControl = getAdmissionControl(Map.of("enabled", "false", "initial-limit", "1"));
+
+            hold(admissionControl, Priority.CACHED);
+
+            assertEquals("forecast", admissionControl.admit(Endpoint.FORECAST, Priority.BULK,
+                    () -> Mono.just("forecast")).block());
+        }
+    }
+
+    @Nested
+    class Limit {
+
+        /**
+         * Tests that the limit grows while requests take as long as the fastest one,
+         * and shrinks once they queue.
+         */
+        @Test
+        void adapts() {
+            var limit = new AdaptiveLimit(10, 1, 100);
+
+            saturate(limit, 10_000_000);
+            var grown = limit.limit();
+
+            assertTrue(grown > 10, "limit " + grown);
+
+            for (int i = 0; i < 10; i++) {
+                saturate(limit, 100_000_000);
+            }
+
+            assertTrue(limit.limit() < grown, "limit " + limit.limit());
+        }
+
+        /**
+         * Tests that failures shrink the limit down to its minimum.
+         */
+        @Test
+        void failures() {
+            var limit = new AdaptiveLimit(10, 2, 100);
+
+            for (int i = 0; i < 20; i++) {
+                assertTrue(limit.tryAcquire(1));
+                limit.release(10_000_000, true);
+            }
+
+            assertEquals(2, limit.limit());
+        }
+
+        /**
+         * Admits as many requests as the limit allows, then releases them all with
+         * the same latency.
+         */
+        private void saturate(AdaptiveLimit limit, long latencyNanos) {
+            var admitted = 0;
+
+            while (limit.tryAcquire(1)) {
+                admitted++;
+            }
+
+            for (int i = 0; i < admitted; i++) {
+                limit.release(latencyNanos, false);
+            }
+        }
+    }
+}
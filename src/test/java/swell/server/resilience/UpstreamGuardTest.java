@@ -0,0 +1,323 @@
+package swell.server.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import swell.server.constant.SurfSwellConstants;
+import swell.server.exception.XMateoClient;
+import swell.server.utils.SwellServerTestUtils;
+
+public class UpstreamGuardTest {
+
+    private static final KeyValues TAGS = KeyValues.of(SurfSwellConstants.Metrics.TAG_HOURLY, "wave_height");
+
+    private SwellServerTestUtils swellServerTestUtils = new SwellServerTestUtils();
+    private AtomicLong nanoTime;
+    private AtomicInteger attempts;
+    private MeterRegistry meterRegistry;
+    private ObservationRegistry observationRegistry;
+
+    @BeforeEach
+    void setup() {
+        nanoTime = new AtomicLong();
+        attempts = new AtomicInteger();
+        meterRegistry = new SimpleMeterRegistry();
+        observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+    }
+
+    private UpstreamGuard getUpstreamGuard(Map<String, String> resilience) {
+        var properties = new HashMap<String, String>(Map.of("resilience.hedge-delay", "0",
+                "resilience.retry-backoff", "1ms", "resilience.maximum-retries", "0"));
+        resilience.forEach((name, value) -> properties.put("resilience." + name, value));
+
+        return new UpstreamGuard(swellServerTestUtils.getSurfSwellProperties(properties).resilience(),
+                observationRegistry, meterRegistry, nanoTime::get);
+    }
+
+    private Mono<String> fail(int status) {
+        return Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(WebClientResponseException.create(status, "", null, null, null));
+        });
+    }
+
+    private Mono<String> succeed() {
+        return Mono.fromSupplier(() -> {
+            attempts.incrementAndGet();
+            return "forecast";
+        });
+    }
+
+    /**
+     * @return a request answering well after the hedge delay of the tests.
+     */
+    private Mono<String> slow() {
+        attempts.incrementAndGet();
+        return Mono.delay(Duration.ofMillis(100)).thenReturn("forecast");
+    }
+
+    @Nested
+    class RateLimit {
+
+        /**
+         * Tests that the burst is available at once and further permits only at the
+         * sustained rate.
+         */
+        @Test
+        void burst() {
+            var tokenBucket = new TokenBucket(1, 2, Duration.ZERO, nanoTime::get);
+
+            assertEquals(0, tokenBucket.reserve());
+            assertEquals(0, tokenBucket.reserve());
+            assertEquals(-1, tokenBucket.reserve());
+
+            nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+
+            assertEquals(0, tokenBucket.reserve());
+        }
+
+        /**
+         * Tests that a request without a permit fails without reaching Open-Mateo.
+         */
+        @Test
+        void rejected() {
+            var upstreamGuard = getUpstreamGuard(Map.of("burst", "1", "maximum-permit-wait", "0"));
+
+            assertEquals("forecast", upstreamGuard.guard(TAGS, UpstreamGuardTest.this::succeed).block());
+            assertThrows(XMateoClient.class, () -> upstreamGuard.guard(TAGS, UpstreamGuardTest.this::succeed).block());
+            assertEquals(1, attempts.get());
+        }
+
+        /**
+         * Tests that a permit given back makes the next one available as early as
+         * before it was reserved.
+         */
+        @Test
+        void cancelled() {
+            var tokenBucket = new TokenBucket(1, 1, Duration.ofSeconds(5), nanoTime::get);
+
+            assertEquals(0, tokenBucket.reserve());
+            assertEquals(Duration.ofSeconds(1).toNanos(), tokenBucket.reserve());
+
+            tokenBucket.cancel();
+
+            assertEquals(Duration.ofSeconds(1).toNanos(), tokenBucket.reserve());
+        }
+
+        /**
+         * Tests that a request cancelled while waiting for its permit gives it back.
+         */
+        @Test
+        void cancelledWait() {
+            var upstreamGuard = getUpstreamGuard(Map.of("permits-per-second", "1", "burst", "1",
+                    "maximum-permit-wait", "1500ms"));
+            var error = new AtomicReference<Throwable>();
+
+            upstreamGuard.guard(TAGS, UpstreamGuardTest.this::succeed).block();
+            upstreamGuard.guard(TAGS, UpstreamGuardTest.this::succeed).subscribe().dispose();
+            upstreamGuard.guard(TAGS, UpstreamGuardTest.this::succeed).subscribe(forecast -> {
+            }, error::set).dispose();
+
+            assertNull(error.get());
+        }
+    }
+
+    @Nested
+    class Breaker {
+
+        /**
+         * Tests that the circuit opens once enough calls failed, and closes again
+         * after successful trial calls.
+         */
+        @Test
+        void opensAndCloses() {
+            var upstreamGuard = getUpstreamGuard(Map.of("minimum-calls", "4", "half-open-calls", "1"));
+
+            for (int i = 0; i < 4; i++) {
+                assertThrows(WebClientResponseException.class,
+                        () -> upstreamGuard.guard(TAGS, () -> fail(503)).block());
+            }
+
+            assertThrows(XMateoClient.class, () -> upstreamGuard.guard(TAGS, UpstreamGuardTest.this::succeed).block());
+            assertEquals(4, attempts.get());
+
+            nanoTime.addAndGet(Duration.ofSeconds(30).toNanos());
+
+            assertEquals("forecast", upstreamGuard.guard(TAGS, UpstreamGuardTest.this::succeed).block());
+            assertEquals("forecast", upstreamGuard.guard(TAGS, UpstreamGuardTest.this::succeed).block());
+        }
+
+        /**
+         * Tests that rejected requests do not open the circuit.
+         */
+        @Test
+        void clientErrors() {
+            var upstreamGuard = getUpstreamGuard(Map.of("minimum-calls", "4"));
+
+            for (int i = 0; i < 4; i++) {
+                assertThrows(WebClientResponseException.class,
+                        () -> upstreamGuard.guard(TAGS, () -> fail(400)).block());
+            }
+
+            assertEquals("forecast", upstreamGuard.guard(TAGS, UpstreamGuardTest.this::succeed).block());
+        }
+    }
+
+    @Nested
+    class Retries {
+
+        /**
+         * Tests that Open-Mateo faults are retried.
+         */
+        @Test
+        void upstreamFault() {
+            var upstreamGuard = getUpstreamGuard(Map.of("maximum-retries", "2"));
+
+            assertThrows(WebClientResponseException.class, () -> upstreamGuard.guard(TAGS, () -> fail(503)).block());
+            assertEquals(3, attempts.get());
+        }
+
+        /**
+         * Tests that rejected requests are not retried.
+         */
+        @Test
+        void clientError() {
+            var upstreamGuard = getUpstreamGuard(Map.of("maximum-retries", "2"));
+
+            assertThrows(WebClientResponseException.class, () -> upstreamGuard.guard(TAGS, () -> fail(404)).block());
+            assertEquals(1, attempts.get());
+        }
+
+        /**
+         * Tests that a slow request is answered by its hedge.
+         */
+        @Test
+        void hedged() {
+            var upstreamGuard = getUpstreamGuard(Map.of("hedge-delay", "10ms"));
+
+            var forecast = upstreamGuard.guard(TAGS, () -> attempts.getAndIncrement() == 0 ? Mono.never() : succeed())
+                    .block(Duration.ofSeconds(5));
+
+            assertEquals("forecast", forecast);
+        }
+
+        /**
+         * Tests that hedges are withdrawn from a budget filled by a share of the
+         * requests, up to a sliding window's worth.
+         */
+        @Test
+        void hedgeBudget() {
+            var hedgeBudget = new HedgeBudget(50, 2);
+
+            assertTrue(hedgeBudget.tryWithdraw());
+            assertFalse(hedgeBudget.tryWithdraw());
+
+            hedgeBudget.deposit();
+            assertFalse(hedgeBudget.tryWithdraw());
+
+            for (int i = 0; i < 5; i++) {
+                hedgeBudget.deposit();
+            }
+
+            assertTrue(hedgeBudget.tryWithdraw());
+            assertFalse(hedgeBudget.tryWithdraw());
+        }
+
+        /**
+         * Tests that slow requests are no longer hedged once the budget is spent.
+         */
+        @Test
+        void hedgesSpent() {
+            var upstreamGuard = getUpstreamGuard(Map.of("hedge-delay", "10ms", "hedge-percentage", "10",
+                    "sliding-window-size", "10"));
+
+            upstreamGuard.guard(TAGS, UpstreamGuardTest.this::slow).block(Duration.ofSeconds(5));
+            assertEquals(2, attempts.get());
+
+            upstreamGuard.guard(TAGS, UpstreamGuardTest.this::slow).block(Duration.ofSeconds(5));
+            assertEquals(3, attempts.get());
+        }
+
+        /**
+         * Tests that slow trial calls of a half open breaker are not hedged.
+         */
+        @Test
+        void hedgesPaused() {
+            var upstreamGuard = getUpstreamGuard(Map.of("hedge-delay", "10ms", "hedge-percentage", "50",
+                    "minimum-calls", "2", "sliding-window-size", "2"));
+
+            for (int i = 0; i < 2; i++) {
+                assertThrows(WebClientResponseException.class, () -> upstreamGuard.guard(TAGS, () -> fail(503))
+                        .block());
+            }
+
+            nanoTime.addAndGet(Duration.ofSeconds(30).toNanos());
+            upstreamGuard.guard(TAGS, UpstreamGuardTest.this::slow).block(Duration.ofSeconds(5));
+
+            assertEquals(3, attempts.get());
+        }
+    }
+
+    @Nested
+    class Observations {
+
+        /**
+         * Tests that every attempt is timed by the caller's tags and its outcome.
+         */
+        @Test
+        void attempts() {
+            var upstreamGuard = getUpstreamGuard(Map.of("maximum-retries", "1"));
+
+            upstreamGuard.guard(TAGS, UpstreamGuardTest.this::succeed).block();
+            assertThrows(WebClientResponseException.class, () -> upstreamGuard.guard(TAGS, () -> fail(503)).block());
+
+            assertEquals(1, requests("success").count());
+            assertEquals(2, requests("server_error").count());
+        }
+
+        /**
+         * Tests that a streamed attempt cancelled after it failed is only counted as
+         * failed.
+         */
+        @Test
+        void cancelledAfterFailure() {
+            var upstreamGuard = getUpstreamGuard(Map.of());
+            var forecasts = Flux.just("key").zipWith(upstreamGuard.guardMany(TAGS, () -> fail(503).flux()));
+
+            assertThrows(WebClientResponseException.class, () -> forecasts.blockLast());
+            assertEquals(1, requests("server_error").count());
+            assertNull(requests("cancelled"));
+        }
+
+        private Timer requests(String outcome) {
+            return meterRegistry.find(SurfSwellConstants.Metrics.OPEN_MATEO_REQUESTS)
+                    .tag(SurfSwellConstants.Metrics.TAG_HOURLY, "wave_height")
+                    .tag(SurfSwellConstants.Metrics.TAG_OUTCOME, outcome)
+                    .timer();
+        }
+    }
+}
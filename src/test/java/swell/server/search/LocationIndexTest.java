@@ -0,0 +1,168 @@
+package swell.server.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import swell.server.model.LocationDTO;
+import swell.server.utils.SwellServerTestUtils;
+
+public class LocationIndexTest {
+
+    private static final LocationDTO JEFFREYS_BAY = new LocationDTO("Jeffreys Bay", "-34.05", "24.92");
+    private static final LocationDTO JERSEY = new LocationDTO("Jersey", "49.21", "-2.13");
+    private static final LocationDTO SAO_TOME = new LocationDTO("São Tomé", "0.34", "6.73");
+
+    private SwellServerTestUtils swellServerTestUtils = new SwellServerTestUtils();
+    private LocationIndex locationIndex;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setup() {
+        locationIndex = new LocationIndex(swellServerTestUtils.getSurfSwellProperties(Map.of()));
+        locationIndex.addAll(List.of(JEFFREYS_BAY, JERSEY, SAO_TOME));
+    }
+
+    @Nested
+    class Search {
+
+        /**
+         * Tests that names are matched by prefix regardless of case and diacritics.
+         */
+        @Test
+        void prefix() {
+            assertEquals(List.of(JERSEY, JEFFREYS_BAY), locationIndex.search("je"));
+            assertEquals(List.of(SAO_TOME), locationIndex.search("sao  TO"));
+            assertEquals(List.of(), locationIndex.search("Durban"));
+        }
+
+        /**
+         * Tests that longer queries tolerate typos.
+         */
+        @Test
+        void fuzzy() {
+            assertEquals(List.of(JEFFREYS_BAY), locationIndex.search("Jefreys Bya"));
+            assertEquals(List.of(), locationIndex.search("jex"));
+        }
+
+        /**
+         * Tests that locations whose forecast is requested more rank higher.
+         */
+        @Test
+        void popularity() {
+            locationIndex.recordRequest(JEFFREYS_BAY);
+
+            assertEquals(List.of(JEFFREYS_BAY, JERSEY), locationIndex.search("je"));
+        }
+
+        /**
+         * Tests that a location requested enough climbs into the few results of a
+         * short query, past the names ranked higher when added.
+         */
+        @Test
+        void popularityBelowPrefix() {
+            var kiel = new LocationDTO("Kiel", "54.32", "10.14");
+            var holtenau = new LocationDTO("Kiel Holtenau", "54.37", "10.15");
+            var friedrichsort = new LocationDTO("Kiel Friedrichsort", "54.41", "10.19");
+
+            locationIndex = new LocationIndex(swellServerTestUtils.getSurfSwellProperties(
+                    Map.of("search.maximum-results", "2")));
+            locationIndex.addAll(List.of(friedrichsort, holtenau, kiel));
+
+            assertEquals(List.of(kiel, holtenau), locationIndex.search("ki"));
+
+            locationIndex.recordRequest(friedrichsort);
+            locationIndex.recordRequest(holtenau);
+            locationIndex.recordRequest(friedrichsort);
+
+            assertEquals(List.of(friedrichsort, holtenau), locationIndex.search("ki"));
+        }
+
+        /**
+         * Tests that the gazetteer is loaded at startup, ranking by population and
+         * skipping comments and incomplete lines.
+         */
+        @Test
+        void gazetteer() throws IOException {
+            var gazetteer = Files.writeString(directory.resolve("gazetteer.tsv"), """
+                    # name\tlatitude\tlongitude\tpopulation
+                    Durban\t-29.86\t31.03\t3000000
+                    Dunedin\t-45.87\t170.5\t130000\r
+                    Incomplete\t1.0
+                    """);
+
+            locationIndex = new LocationIndex(swellServerTestUtils.getSurfSwellProperties(
+                    Map.of("search.gazetteer", gazetteer.toString())));
+
+            assertEquals(List.of(new LocationDTO("Durban", "-29.86", "31.03"),
+                    new LocationDTO("Dunedin", "-45.87", "170.5")), locationIndex.search("du"));
+            assertTrue(locationIndex.search("incomplete").isEmpty());
+        }
+    }
+
+    @Nested
+    class Nearby {
+
+        /**
+         * Tests that the known locations within the radius are found nearest first.
+         */
+        @Test
+        void withinRadius() {
+            var supertubes = new LocationDTO("Supertubes", "-34.03", "24.93");
+            var bruce = new LocationDTO("Bruce's Beauties", "-34.12", "24.98");
+            locationIndex.addAll(List.of(bruce, supertubes, new LocationDTO("Mossel Bay", "-34.18", "22.14")));
+
+            var nearby = locationIndex.nearby(-34.05, 24.92, 50, 10);
+
+            assertEquals(List.of(JEFFREYS_BAY, supertubes, bruce),
+                    nearby.stream().map(NearbyLocation::location).toList());
+            assertEquals(0, nearby.get(0).distance(), 1e-9);
+            assertEquals(2.4, nearby.get(1).distance(), 0.1);
+            assertEquals(List.of(JEFFREYS_BAY), locationIndex.nearby(-34.05, 24.92, 50, 1)
+                    .stream().map(NearbyLocation::location).toList());
+        }
+
+        /**
+         * Tests that locations across the antimeridian and close to a pole are found.
+         */
+        @Test
+        void wraps() {
+            var east = new LocationDTO("Taveuni", "-16.8", "179.95");
+            var west = new LocationDTO("Lau", "-16.8", "-179.95");
+            var pole = new LocationDTO("Pole", "89.9", "100");
+            locationIndex.addAll(List.of(east, west, pole));
+
+            assertEquals(List.of(west, east), locationIndex.nearby(-16.8, -179.99, 20, 10)
+                    .stream().map(NearbyLocation::location).toList());
+            assertEquals(List.of(pole), locationIndex.nearby(89.9, -80, 30, 10)
+                    .stream().map(NearbyLocation::location).toList());
+        }
+
+        /**
+         * Tests that coordinates far out of range end the search instead of looping
+         * over columns past the largest int.
+         */
+        @Test
+        void outOfRange() {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                assertEquals(List.of(), locationIndex.nearby(0, 1e12, 50, 10));
+                assertEquals(List.of(), locationIndex.nearby(1e12, 0, 50, 10));
+                assertEquals(List.of(), locationIndex.nearby(Double.NaN, Double.NaN, 50, 10));
+            });
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package swell.server.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import swell.server.cache.ForecastCache;
+import swell.server.cache.ForecastKey;
+import swell.server.cache.ForecastPopularity;
+import swell.server.config.SurfSwellProperties;
+import swell.server.constant.SurfSwellConstants;
+import swell.server.model.SurfForecast;
+import swell.server.utils.MutableClock;
+import swell.server.utils.SwellServerTestUtils;
+
+public class ForecastPrefetcherTest {
+
+    private static final String FAILING_LATITUDE = "51.5";
+
+    private SwellServerTestUtils swellServerTestUtils = new SwellServerTestUtils();
+    private MutableClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private SurfSwellProperties properties;
+    private ForecastPopularity forecastPopularity;
+    private ForecastCache forecastCache;
+    private SurfSwellService surfSwellService;
+    private ForecastPrefetcher forecastPrefetcher;
+    private List<String> requestedLatitudes;
+
+    @BeforeEach
+    void setup() {
+        clock = new MutableClock(Instant.parse("2024-06-01T10:01:00Z"));
+        meterRegistry = new SimpleMeterRegistry();
+        properties = swellServerTestUtils.getSurfSwellProperties(Map.of("prefetch.top-n", "4",
+                "prefetch.jitter", "0s", "bulk.chunk-size", "2"));
+        forecastPopularity = new ForecastPopularity(properties);
+        forecastCache = swellServerTestUtils.getForecastCache(properties, clock, meterRegistry);
+        requestedLatitudes = new CopyOnWriteArrayList<>();
+        surfSwellService = swellServerTestUtils.getSurfSwellService(getWebClient(), properties, forecastPopularity,
+                forecastCache);
+        forecastPrefetcher = new ForecastPrefetcher(surfSwellService, forecastPopularity, properties);
+    }
+
+    /**
+     * @return a {@link WebClient} answering each request with a forecast per
+     *         latitude asked for, and failing those asking for
+     *         {@link #FAILING_LATITUDE}.
+     */
+    private WebClient getWebClient() {
+        return WebClient.builder()
+                .exchangeFunction(request -> {
+                    var latitudes = UriComponentsBuilder.fromUri(request.url()).build().getQueryParams()
+                            .getFirst(SurfSwellConstants.Parameters.LATITUDE);
+                    requestedLatitudes.add(latitudes);
+
+                    if (latitudes.contains(FAILING_LATITUDE)) {
+                        return Mono.just(ClientResponse.create(HttpStatus.BAD_REQUEST).build());
+                    }
+
+                    var body = Collections.nCopies(latitudes.split(",").length,
+                            swellServerTestUtils.getMarineResponse().strip());
+
+                    return Mono.just(ClientResponse
+                            .create(HttpStatus.OK, swellServerTestUtils.getExchangeStrategies())
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body("[" + String.join(",", body) + "]").build());
+                })
+                .build();
+    }
+
+    private ForecastKey key(String latitude) {
+        return forecastCache.key(latitude, "10.0", SurfSwellConstants.Parameters.FORECAST_VARIABLES);
+    }
+
+    /**
+     * Records the keys as requested, the first the most often.
+     */
+    private List<ForecastKey> requested(String... latitudes) {
+        var keys = Arrays.stream(latitudes).map(ForecastPrefetcherTest.this::key).toList();
+
+        for (int i = 0; i < keys.size(); i++) {
+            for (int count = i; count < keys.size(); count++) {
+                forecastPopularity.record(keys.get(i));
+            }
+        }
+
+        return keys;
+    }
+
+    private Set<String> requestedLatitudes() {
+        return requestedLatitudes.stream().collect(Collectors.toSet());
+    }
+
+    @Nested
+    class Prefetch {
+
+        /**
+         * Tests that only the top N locations are refreshed, with a single
+         * Open-Mateo call per chunk of them.
+         */
+        @Test
+        void topNChunked() {
+            requested("50.1", "50.2", "50.3", "50.4", "50.5");
+
+            assertEquals(4, forecastPrefetcher.prefetchHottest().block());
+            assertEquals(Set.of("50.1,50.2", "50.3,50.4"), requestedLatitudes());
+        }
+
+        /**
+         * Tests that the prefetched forecasts are cached until the next model
+         * update, and served without calling Open-Mateo again.
+         */
+        @Test
+        void cached() {
+            var keys = requested("50.1", "50.2", "50.3", "50.4", "50.5");
+
+            forecastPrefetcher.prefetchHottest().block();
+
+            keys.subList(0, 4).forEach(key -> assertNotNull(forecastCache.getIfFresh(key)));
+            assertNull(forecastCache.getIfFresh(keys.get(4)));
+
+            surfSwellService.fetchForecast("50.1", "10.0").block();
+            assertEquals(2, requestedLatitudes.size());
+
+            clock.advance(Duration.ofHours(1));
+            assertNull(forecastCache.getIfFresh(keys.get(0)));
+        }
+
+        /**
+         * Tests that a chunk failing is skipped, leaving the other chunks
+         * prefetched.
+         */
+        @Test
+        void failedChunk() {
+            var keys = requested("50.1", "50.2", FAILING_LATITUDE, "50.4");
+
+            assertEquals(2, forecastPrefetcher.prefetchHottest().block());
+
+            assertNotNull(forecastCache.getIfFresh(keys.get(0)));
+            assertNotNull(forecastCache.getIfFresh(keys.get(1)));
+            assertNull(forecastCache.getIfFresh(keys.get(2)));
+            assertNull(forecastCache.getIfFresh(keys.get(3)));
+        }
+
+        /**
+         * Tests that nothing is fetched when no location was requested since the
+         * last prefetch.
+         */
+        @Test
+        void nothingRequested() {
+            assertNull(forecastPrefetcher.prefetchHottest().block());
+            assertEquals(0, requestedLatitudes.size());
+        }
+
+        /**
+         * Tests that the hit ratio gauge counts the first lookup of each prefetched
+         * forecast against every lookup.
+         */
+        @Test
+        void hitRatio() {
+            var keys = requested("50.1", "50.2", "50.3", "50.4", "50.5");
+
+            forecastPrefetcher.prefetchHottest().block();
+
+            for (var key : List.of(keys.get(0), keys.get(0), keys.get(1), keys.get(4))) {
+                forecastCache.get(key, missing -> Mono.just(SurfForecast.builder().build())).block();
+            }
+
+            assertEquals(0.5, meterRegistry.get(SurfSwellConstants.Metrics.FORECAST_PREFETCH_HIT_RATIO).gauge()
+                    .value());
+        }
+    }
+
+    @Nested
+    class RefreshForecasts {
+
+        /**
+         * Tests that prefetched refreshes call Open-Mateo even for fresh forecasts,
+         * once per set of variables, and cache them as prefetched.
+         */
+        @Test
+        void prefetched() {
+            var key = key("50.1");
+            var waveHeight = forecastCache.key("50.2", "10.0", "wave_height");
+
+            forecastCache.put(key, SurfForecast.builder().build(), false);
+
+            assertEquals(2, surfSwellService.refreshForecasts(List.of(key, waveHeight), true).count().block());
+            assertEquals(List.of("50.1", "50.2"), requestedLatitudes);
+
+            forecastCache.get(key, missing -> Mono.empty()).block();
+
+            assertEquals(1, meterRegistry.get(SurfSwellConstants.Metrics.FORECAST_PREFETCH_HITS).counter()
+                    .count());
+        }
+    }
+}
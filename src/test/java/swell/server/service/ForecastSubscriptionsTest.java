@@ -0,0 +1,231 @@
+package swell.server.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import swell.server.constant.SurfSwellConstants;
+import swell.server.model.LocationDTO;
+import swell.server.model.LocationForecastDTO;
+import swell.server.utils.SwellServerTestUtils;
+
+public class ForecastSubscriptionsTest {
+
+    private SwellServerTestUtils swellServerTestUtils = new SwellServerTestUtils();
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger upstreamCalls;
+    private LocationDTO location = new LocationDTO("Kiel", "54.5", "10.0");
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        upstreamCalls = new AtomicInteger();
+    }
+
+    private ForecastSubscriptions getForecastSubscriptions(WebClient webClient) {
+        return getForecastSubscriptions(webClient, Map.of("subscription.heartbeat", "50ms",
+                "subscription.idle-timeout", "200ms", "subscription.maximum-locations", "2"));
+    }
+
+    private ForecastSubscriptions getForecastSubscriptions(WebClient webClient, Map<String, String> settings) {
+        var properties = swellServerTestUtils.getSurfSwellProperties(settings);
+
+        return new ForecastSubscriptions(swellServerTestUtils.getSurfSwellService(webClient, settings),
+                swellServerTestUtils.getForecastCache(), properties.subscription(), meterRegistry,
+                Clock.systemUTC());
+    }
+
+    /**
+     * @return the value of the gauge once it reached the expected one, or after a
+     *         second, since subscriptions are released after they complete.
+     */
+    private double gauge(String name, double expected) throws InterruptedException {
+        var gauge = meterRegistry.get(name).gauge();
+
+        for (int i = 0; i < 100 && gauge.value() != expected; i++) {
+            Thread.sleep(10);
+        }
+
+        return gauge.value();
+    }
+
+    @Nested
+    class Subscribe {
+
+        /**
+         * Tests that clients subscribed to the same location share a single
+         * Open-Mateo call, and that the location is released once they leave.
+         */
+        @Test
+        void multicast() throws InterruptedException {
+            var subscriptions = getForecastSubscriptions(swellServerTestUtils
+                    .getDelayedWebClient(swellServerTestUtils.getMarineResponse(), Duration.ofMillis(100),
+                            upstreamCalls));
+            var first = subscriptions.subscribe(List.of(location));
+            var second = subscriptions.subscribe(List.of(location.withName("Kiel Fjord")));
+
+            var events = Flux.merge(forecasts(first).take(1), forecasts(second).take(1))
+                    .collectList()
+                    .block(Duration.ofSeconds(5));
+
+            assertEquals(2, events.size());
+            assertEquals(1, upstreamCalls.get());
+            assertEquals(3, events.get(0).data().forecast().length());
+            assertEquals(0, gauge(SurfSwellConstants.Metrics.FORECAST_SUBSCRIBED_SPOTS, 0));
+            assertEquals(0, gauge(SurfSwellConstants.Metrics.FORECAST_SUBSCRIBERS, 0));
+        }
+
+        /**
+         * Tests that heartbeats keep flowing while no forecast can be fetched.
+         */
+        @Test
+        void heartbeat() {
+            var subscriptions = getForecastSubscriptions(
+                    swellServerTestUtils.getFailingWebClient(HttpStatus.BAD_REQUEST));
+
+            var heartbeat = subscriptions.subscribe(List.of(location))
+                    .filter(event -> event.comment() != null)
+                    .blockFirst(Duration.ofSeconds(5));
+
+            assertEquals("heartbeat", heartbeat.comment());
+        }
+
+        /**
+         * Tests that a client taking no events is unsubscribed after the idle
+         * timeout.
+         */
+        @Test
+        void idleClient() throws InterruptedException {
+            var subscriptions = getForecastSubscriptions(swellServerTestUtils
+                    .getWebClient(swellServerTestUtils.getMarineResponse()));
+            var completed = new CountDownLatch(1);
+
+            subscriptions.subscribe(List.of(location)).subscribe(new BaseSubscriber<>() {
+
+                @Override
+                protected void hookOnSubscribe(Subscription subscription) {
+                    // Never requests any event.
+                }
+
+                @Override
+                protected void hookOnComplete() {
+                    completed.countDown();
+                }
+            });
+
+            assertTrue(completed.await(5, TimeUnit.SECONDS));
+            assertEquals(0, gauge(SurfSwellConstants.Metrics.FORECAST_SUBSCRIBERS, 0));
+        }
+
+        /**
+         * Tests that a client asking for every event stays subscribed past the idle
+         * timeout.
+         */
+        @Test
+        void activeClient() {
+            var subscriptions = getForecastSubscriptions(swellServerTestUtils
+                    .getWebClient(swellServerTestUtils.getMarineResponse()));
+
+            var heartbeats = subscriptions.subscribe(List.of(location))
+                    .take(Duration.ofMillis(500))
+                    .filter(event -> event.comment() != null)
+                    .count()
+                    .block(Duration.ofSeconds(5));
+
+            assertTrue(heartbeats >= 6, heartbeats + " heartbeats");
+        }
+
+        /**
+         * Tests that a client asking for no event while the forecast is updated gets
+         * only the newest one once it asks again, the outdated ones being dropped.
+         */
+        @Test
+        void slowClient() throws InterruptedException {
+            var updates = new AtomicInteger();
+            var marineResponse = swellServerTestUtils.getMarineResponse();
+            var webClient = WebClient.builder()
+                    .exchangeFunction(request -> Mono.just(ClientResponse
+                            .create(HttpStatus.OK, swellServerTestUtils.getExchangeStrategies())
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            // The first wave height counts the Open-Mateo calls.
+                            .body(marineResponse.replace("[1.5,", "[" + updates.incrementAndGet() + ","))
+                            .build()))
+                    .build();
+            // Uncached, since a forecast is fresh until the next hour.
+            var subscriptions = getForecastSubscriptions(webClient, Map.of("cache.enabled", "false",
+                    "subscription.update-interval", "20ms", "subscription.update-delay", "0ms",
+                    "subscription.heartbeat", "1h", "subscription.idle-timeout", "1h"));
+            var received = new LinkedBlockingQueue<LocationForecastDTO>();
+            var client = new BaseSubscriber<ServerSentEvent<LocationForecastDTO>>() {
+
+                @Override
+                protected void hookOnSubscribe(Subscription subscription) {
+                    request(1);
+                }
+
+                @Override
+                protected void hookOnNext(ServerSentEvent<LocationForecastDTO> event) {
+                    received.add(event.data());
+                }
+            };
+
+            subscriptions.subscribe(List.of(location)).subscribe(client);
+
+            assertEquals(1, received.poll(5, TimeUnit.SECONDS).forecast().waveHeight()[0]);
+
+            for (int i = 0; i < 500 && updates.get() < 10; i++) {
+                Thread.sleep(10);
+            }
+
+            var fetched = updates.get();
+            client.request(1);
+            var next = received.poll(5, TimeUnit.SECONDS).forecast().waveHeight()[0];
+            client.dispose();
+
+            assertTrue(fetched >= 10, fetched + " updates");
+            assertTrue(next >= fetched - 1, "Received update " + next + " of " + fetched);
+        }
+
+        /**
+         * Tests that subscribing to more locations than allowed is rejected.
+         */
+        @Test
+        void tooManyLocations() {
+            var subscriptions = getForecastSubscriptions(swellServerTestUtils
+                    .getWebClient(swellServerTestUtils.getMarineResponse()));
+
+            assertThrows(ResponseStatusException.class,
+                    () -> subscriptions.subscribe(List.of(location, location, location)));
+        }
+    }
+
+    private static Flux<ServerSentEvent<LocationForecastDTO>> forecasts(
+            Flux<ServerSentEvent<LocationForecastDTO>> events) {
+        return events.filter(event -> ForecastSubscriptions.FORECAST_EVENT.equals(event.event()));
+    }
+}
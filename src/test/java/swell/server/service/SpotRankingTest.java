@@ -0,0 +1,191 @@
+package swell.server.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import swell.server.cache.ForecastPopularity;
+import swell.server.model.ForecastProjection;
+import swell.server.model.LocationDTO;
+import swell.server.model.SpotScoreDTO;
+import swell.server.search.LocationIndex;
+import swell.server.utils.SwellServerTestUtils;
+
+public class SpotRankingTest {
+
+    private static final LocationDTO KIEL = new LocationDTO("Kiel", "54.32", "10.14");
+    private static final LocationDTO SCHILKSEE = new LocationDTO("Schilksee", "54.43", "10.17");
+    private static final LocationDTO LABOE = new LocationDTO("Laboe", "54.45", "10.25");
+    private static final LocationDTO SYLT = new LocationDTO("Sylt", "54.91", "8.31");
+
+    private SwellServerTestUtils swellServerTestUtils = new SwellServerTestUtils();
+    private AtomicInteger upstreamCalls;
+    private ForecastProjection window;
+    private ForecastPopularity forecastPopularity;
+
+    @BeforeEach
+    void setup() {
+        upstreamCalls = new AtomicInteger();
+        window = ForecastProjection.of(null, LocalDateTime.of(2024, 6, 1, 0, 0), null, 3, null, null,
+                Clock.systemUTC());
+    }
+
+    /**
+     * @return the ranking of the spots around Kiel, Open-Mateo answering with
+     *         smaller waves at Schilksee, the nearest, than at Laboe.
+     */
+    private SpotRanking getSpotRanking(Map<String, String> nearby) {
+        var properties = swellServerTestUtils.getSurfSwellProperties(nearby);
+        var locationIndex = new LocationIndex(properties);
+        var marineResponse = swellServerTestUtils.getMarineResponse().strip();
+        var body = "[" + marineResponse + ","
+                + marineResponse.replace("\"wave_height\":[1.5,1.54,2.0]", "\"wave_height\":[2.5,2.54,3.0]") + "]";
+
+        locationIndex.addAll(List.of(SCHILKSEE, LABOE, SYLT));
+
+        forecastPopularity = new ForecastPopularity(properties);
+
+        return new SpotRanking(swellServerTestUtils.getSurfSwellService(
+                swellServerTestUtils.getDelayedWebClient(body, Duration.ZERO, upstreamCalls), forecastPopularity,
+                locationIndex), locationIndex, properties.nearby(), ForkJoinPool.commonPool());
+    }
+
+    @Nested
+    class Rank {
+
+        /**
+         * Tests that the spots within the radius are fetched at once and ranked by
+         * their average score, with their best hour.
+         */
+        @Test
+        void best() {
+            var spots = getSpotRanking(Map.of()).rank(KIEL, 30.0, window, SpotRanking.Weights.DEFAULT, null)
+                    .block();
+
+            assertEquals(List.of(LABOE, SCHILKSEE), spots.stream().map(SpotScoreDTO::location).toList());
+            assertEquals(new BigDecimal("4.56"), spots.get(0).score());
+            assertEquals(new BigDecimal("3.06"), spots.get(1).score());
+            assertEquals(new BigDecimal("3.85"), spots.get(1).bestScore());
+            assertEquals(LocalDateTime.of(2024, 6, 1, 2, 0), spots.get(1).bestHour());
+            assertEquals(new BigDecimal("12.38"), spots.get(1).distance());
+            assertEquals(1, upstreamCalls.get());
+        }
+
+        /**
+         * Tests that ranking the spots does not count as requests for them, which
+         * would make them more popular to prefetch.
+         */
+        @Test
+        void unrequested() {
+            getSpotRanking(Map.of()).rank(KIEL, 30.0, window, SpotRanking.Weights.DEFAULT, null).block();
+
+            assertEquals(List.of(), forecastPopularity.takeHottest(10));
+        }
+
+        /**
+         * Tests that scoring split across tasks ranks the same, and that fewer
+         * results may be asked for.
+         */
+        @Test
+        void parallel() {
+            var spots = getSpotRanking(Map.of("nearby.parallel-spots", "1"))
+                    .rank(KIEL, 30.0, window, SpotRanking.Weights.DEFAULT, 1)
+                    .block();
+
+            assertEquals(1, spots.size());
+            assertEquals(LABOE, spots.get(0).location());
+            assertEquals(new BigDecimal("4.56"), spots.get(0).score());
+        }
+
+        /**
+         * Tests that weights change the ranking, the swell wave period alone scoring
+         * both spots alike.
+         */
+        @Test
+        void weights() {
+            var spots = getSpotRanking(Map.of())
+                    .rank(KIEL, 30.0, window, SpotRanking.Weights.of(List.of("wave_height:-1", "projectedWaveFace:0")),
+                            null)
+                    .block();
+
+            assertEquals(List.of(SCHILKSEE, LABOE), spots.stream().map(SpotScoreDTO::location).toList());
+        }
+
+        /**
+         * Tests that a window reaching beyond the hours forecast is rejected rather
+         * than scored over fewer hours.
+         */
+        @Test
+        void beyondForecast() {
+            var longer = ForecastProjection.of(null, LocalDateTime.of(2024, 6, 1, 0, 0), null, 24, null, null,
+                    Clock.systemUTC());
+            var rank = getSpotRanking(Map.of()).rank(KIEL, 30.0, longer, SpotRanking.Weights.DEFAULT, null);
+
+            assertEquals(HttpStatus.BAD_REQUEST,
+                    assertThrows(ResponseStatusException.class, rank::block).getStatusCode());
+        }
+
+        /**
+         * Tests that no spot around means no Open-Mateo call.
+         */
+        @Test
+        void noSpots() {
+            assertEquals(List.of(), getSpotRanking(Map.of()).rank(new LocationDTO("Durban", "-29.86", "31.02"), null,
+                    window, SpotRanking.Weights.DEFAULT, null).block());
+            assertEquals(0, upstreamCalls.get());
+        }
+
+        /**
+         * Tests that a location, radius or number of results out of bounds fails the
+         * ranking instead of throwing, and calls no one.
+         */
+        @Test
+        void outOfBounds() {
+            var spotRanking = getSpotRanking(Map.of());
+
+            for (var request : List.of(
+                    spotRanking.rank(KIEL, 0.0, window, SpotRanking.Weights.DEFAULT, null),
+                    spotRanking.rank(KIEL, 1000.0, window, SpotRanking.Weights.DEFAULT, null),
+                    spotRanking.rank(KIEL, null, window, SpotRanking.Weights.DEFAULT, 100),
+                    spotRanking.rank(KIEL.withLongitude("1e12"), null, window, SpotRanking.Weights.DEFAULT, null),
+                    spotRanking.rank(KIEL.withLatitude("-90.5"), null, window, SpotRanking.Weights.DEFAULT, null),
+                    spotRanking.rank(KIEL.withLatitude("NaN"), null, window, SpotRanking.Weights.DEFAULT, null))) {
+                assertEquals(HttpStatus.BAD_REQUEST,
+                        assertThrows(ResponseStatusException.class, request::block).getStatusCode());
+            }
+            assertEquals(0, upstreamCalls.get());
+        }
+    }
+
+    @Nested
+    class Weights {
+
+        /**
+         * Tests that weights override the defaults by name, and that unknown names
+         * or values are rejected.
+         */
+        @Test
+        void of() {
+            assertEquals(SpotRanking.Weights.DEFAULT, SpotRanking.Weights.of(null));
+            assertEquals(new SpotRanking.Weights(2, 0.1, 0),
+                    SpotRanking.Weights.of(List.of("wave_height:2", "projectedWaveFace:0")));
+            assertThrows(ResponseStatusException.class, () -> SpotRanking.Weights.of(List.of("wave_period:1")));
+            assertThrows(ResponseStatusException.class, () -> SpotRanking.Weights.of(List.of("wave_height")));
+            assertThrows(ResponseStatusException.class, () -> SpotRanking.Weights.of(List.of("wave_height:NaN")));
+        }
+    }
+}
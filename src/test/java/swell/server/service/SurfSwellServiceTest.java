@@ -5,15 +5,31 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import swell.server.cache.ForecastPopularity;
+import swell.server.constant.SurfSwellConstants;
 import swell.server.exception.XMateoClient;
 import swell.server.model.LocationDTO;
 import swell.server.model.OpenMateoOceanicWaveDataDTO;
+import swell.server.model.SurfForecast;
+import swell.server.search.LocationIndex;
 import swell.server.utils.SwellServerTestUtils;
 
 public class SurfSwellServiceTest {
@@ -32,6 +48,8 @@ public class SurfSwellServiceTest {
 
         doReturn(openMateoOceanicWaveDataDTO).when(surfSwellService).getSurfData(anyString(), anyString(),
                 anyString());
+        doReturn(Mono.just(SurfForecast.from(openMateoOceanicWaveDataDTO))).when(surfSwellService)
+                .fetchForecast(anyString(), anyString(), anyString());
     }
 
     @Nested
@@ -126,4 +144,190 @@ public class SurfSwellServiceTest {
             assertThrows(XMateoClient.class, () -> surfSwellService.getSwellPeriodData(LocationDTO.builder().build()));
         }
     }
+
+    @Nested
+    class GetOceanicData {
+
+        /**
+         * Tests that every forecast variable is fetched with a single Open-Mateo
+         * request.
+         */
+        @Test
+        void singleUpstreamRequest() {
+            var oceanicData = surfSwellService.getOceanicData(testLocation.latitude(), testLocation.longitude());
+
+            verify(surfSwellService, times(1)).fetchForecast(testLocation.latitude(), testLocation.longitude(),
+                    SurfSwellConstants.Parameters.FORECAST_VARIABLES);
+            assertEquals(openMateoOceanicWaveDataDTO.hourly().time(), oceanicData.time());
+            assertEquals(openMateoOceanicWaveDataDTO.hourly().swell_wave_period().size(),
+                    oceanicData.swell_wave_period().size());
+            assertEquals(oceanicData.time().size(), oceanicData.projectedWaveFace().size());
+        }
+
+        /**
+         * Tests that an {@link XMateoClient} exception is thrown when the response from
+         * OpenMateo is empty.
+         */
+        @Test
+        void errorRetrievingData() {
+            assertThrows(XMateoClient.class, () -> surfSwellService.getOceanicData(null, null));
+        }
+    }
+
+    @Nested
+    class FetchOceanicData {
+
+        /**
+         * Tests that the forecast is decoded from the Open-Mateo response and that the
+         * projected wave face is derived from it.
+         */
+        @Test
+        void oceanicDataPresent() {
+            var service = swellServerTestUtils.getSurfSwellService(
+                    swellServerTestUtils.getWebClient(swellServerTestUtils.getMarineResponse()));
+
+            var oceanicData = service.fetchOceanicData(testLocation.latitude(), testLocation.longitude()).block();
+
+            assertEquals(3, oceanicData.time().size());
+            assertEquals(new BigDecimal("0.3"), oceanicData.projectedWaveFace().get(1));
+            assertEquals(new BigDecimal("1.5"), oceanicData.projectedWaveFace().get(2));
+        }
+
+        /**
+         * Tests that an {@link XMateoClient} exception is signalled when Open-Mateo
+         * responds with an error.
+         */
+        @Test
+        void errorRetrievingData() {
+            var service = swellServerTestUtils.getSurfSwellService(
+                    swellServerTestUtils.getFailingWebClient(HttpStatus.BAD_GATEWAY));
+
+            var oceanicData = service.fetchOceanicData(testLocation.latitude(), testLocation.longitude());
+
+            assertThrows(XMateoClient.class, () -> oceanicData.block());
+        }
+
+        /**
+         * Tests that concurrent requests for the same location share one Open-Mateo
+         * request.
+         */
+        @Test
+        void concurrentRequestsCoalesced() {
+            var requestCount = new AtomicInteger();
+            var service = swellServerTestUtils.getSurfSwellService(swellServerTestUtils.getDelayedWebClient(
+                    swellServerTestUtils.getMarineResponse(), Duration.ofMillis(100), requestCount));
+
+            var forecasts = Flux.range(0, 10)
+                    .flatMap(i -> service.fetchOceanicData(testLocation.latitude(), testLocation.longitude()))
+                    .collectList().block();
+
+            assertEquals(10, forecasts.size());
+            assertEquals(1, requestCount.get());
+        }
+    }
+
+    @Nested
+    class FetchForecasts {
+
+        /**
+         * Tests that all locations are fetched with one Open-Mateo request, and that
+         * duplicate locations share a forecast.
+         */
+        @Test
+        void singleUpstreamRequest() {
+            var requestCount = new AtomicInteger();
+            var service = swellServerTestUtils.getSurfSwellService(swellServerTestUtils.getDelayedWebClient(
+                    swellServerTestUtils.getBulkMarineResponse(), Duration.ZERO, requestCount));
+            var otherLocation = swellServerTestUtils.getLocationDTO().build();
+
+            var forecasts = service.fetchForecasts(List.of(testLocation, otherLocation, testLocation))
+                    .collectList().block();
+
+            assertEquals(3, forecasts.size());
+            assertEquals(1, requestCount.get());
+            assertEquals("-33.9", forecasts.stream().filter(forecast -> forecast.location() == otherLocation)
+                    .findFirst().orElseThrow().forecast().latitude());
+        }
+
+        /**
+         * Tests that cached locations are not requested again.
+         */
+        @Test
+        void cachedLocationsSkipped() {
+            var requestCount = new AtomicInteger();
+            var service = swellServerTestUtils.getSurfSwellService(swellServerTestUtils.getDelayedWebClient(
+                    swellServerTestUtils.getBulkMarineResponse(), Duration.ZERO, requestCount));
+            var otherLocation = swellServerTestUtils.getLocationDTO().build();
+
+            service.fetchForecasts(List.of(testLocation, otherLocation)).blockLast();
+            var forecasts = service.fetchForecasts(List.of(otherLocation, testLocation)).collectList().block();
+
+            assertEquals(2, forecasts.size());
+            assertEquals(1, requestCount.get());
+        }
+
+        /**
+         * Tests that asking for more locations than allowed is rejected without
+         * calling Open-Mateo.
+         */
+        @Test
+        void tooManyLocations() {
+            var requestCount = new AtomicInteger();
+            var service = swellServerTestUtils.getSurfSwellService(swellServerTestUtils.getDelayedWebClient(
+                    swellServerTestUtils.getBulkMarineResponse(), Duration.ZERO, requestCount),
+                    Map.of("bulk.maximum-locations", "2"));
+
+            var rejection = assertThrows(ResponseStatusException.class,
+                    () -> service.fetchForecasts(List.of(testLocation, testLocation, testLocation)).blockLast());
+
+            assertEquals(HttpStatus.BAD_REQUEST, rejection.getStatusCode());
+            assertEquals(0, requestCount.get());
+        }
+    }
+
+    @Nested
+    class FetchLocations {
+
+        private AtomicInteger requestCount;
+        private SurfSwellService service;
+
+        @BeforeEach
+        void setup() {
+            var properties = swellServerTestUtils.getSurfSwellProperties(Map.of());
+            var locationIndex = new LocationIndex(properties);
+
+            locationIndex.addAll(List.of(new LocationDTO("Jersey", "49.21", "-2.13")));
+            requestCount = new AtomicInteger();
+            service = swellServerTestUtils.getSurfSwellService(swellServerTestUtils.getDelayedWebClient("""
+                    [{"name":"Durban","latitude":"-29.86","longitude":"31.03"}]""", Duration.ZERO, requestCount),
+                    new ForecastPopularity(properties), locationIndex);
+        }
+
+        /**
+         * Tests that a name found in the index is answered with the locations found,
+         * without calling the API.
+         */
+        @Test
+        void known() {
+            var known = service.findKnownLocations("jer");
+
+            assertEquals(List.of(new LocationDTO("Jersey", "49.21", "-2.13")), known);
+            assertEquals(known, service.fetchLocations("jer", known).block());
+            assertEquals(0, requestCount.get());
+        }
+
+        /**
+         * Tests that a name unknown to the index is searched with the API, and
+         * learned.
+         */
+        @Test
+        void unknown() {
+            var durban = List.of(new LocationDTO("Durban", "-29.86", "31.03"));
+
+            assertEquals(List.of(), service.findKnownLocations("durban"));
+            assertEquals(durban, service.fetchLocations("durban", List.of()).block());
+            assertEquals(1, requestCount.get());
+            assertEquals(durban, service.findKnownLocations("durban"));
+        }
+    }
 }
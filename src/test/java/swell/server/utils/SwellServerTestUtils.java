@@ -1,17 +1,43 @@
 package swell.server.utils;
 
 import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
 import org.apache.commons.lang3.RandomStringUtils;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
 
 import swell.server.model.LocationDTO;
 import swell.server.model.OceanicDataDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Mono;
+import swell.server.cache.ForecastCache;
+import swell.server.cache.ForecastPopularity;
+import swell.server.cache.ForecastStore;
+import swell.server.codec.SurfForecastDecoder;
+import swell.server.config.SurfSwellProperties;
 import swell.server.model.OpenMateoOceanicWaveDataDTO;
+import swell.server.peer.ForecastPeers;
+import swell.server.resilience.UpstreamGuard;
+import swell.server.search.LocationIndex;
+import swell.server.service.SurfSwellService;
 
 /**
  * Utility methods used for testing.
@@ -53,11 +79,12 @@ public class SwellServerTestUtils {
     }
 
     /**
-     * @return a {@link List} of incrementing {@link LocalDateTime} stamps.
+     * @return a {@link List} of incrementing, hour aligned {@link LocalDateTime}
+     *         stamps.
      */
     public List<LocalDateTime> getLocalDateTimes() {
         var dateList = new ArrayList<LocalDateTime>();
-        var now = LocalDateTime.now();
+        var now = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
 
         IntStream.range(1, 21).forEach(i -> {
             dateList.add(now.plusHours(3 * i));
@@ -73,4 +100,172 @@ public class SwellServerTestUtils {
         return LocationDTO.builder().latitude(randomStringUtils.nextNumeric(8))
                 .longitude(randomStringUtils.nextNumeric(8));
     }
+
+    /**
+     * @param properties overriding the defaults, keyed relative to the
+     *                   {@code swell.server} prefix.
+     * 
+     * @return the {@link SurfSwellProperties} bound the same way Spring does.
+     */
+    public SurfSwellProperties getSurfSwellProperties(Map<String, String> properties) {
+        var source = new MapConfigurationPropertySource();
+        properties.forEach((name, value) -> source.put("swell.server." + name, value));
+
+        return new Binder(source).bindOrCreate("swell.server", SurfSwellProperties.class);
+    }
+
+    /**
+     * @return a {@link ForecastCache} with the default settings.
+     */
+    public ForecastCache getForecastCache() {
+        return getForecastCache(getSurfSwellProperties(Map.of()));
+    }
+
+    private ForecastCache getForecastCache(SurfSwellProperties properties) {
+        return new ForecastCache(properties, new ForecastStore(properties), new SimpleMeterRegistry());
+    }
+
+    /**
+     * @return a {@link ForecastCache} with the given settings, telling the time by
+     *         the clock and registering its metrics in the registry.
+     */
+    public ForecastCache getForecastCache(SurfSwellProperties properties, Clock clock, MeterRegistry meterRegistry) {
+        return new ForecastCache(properties.cache(), new ForecastStore(properties), meterRegistry, clock);
+    }
+
+    /**
+     * @return a {@link SurfSwellService} calling Open-Mateo through the given
+     *         {@link WebClient}, with the default settings.
+     */
+    public SurfSwellService getSurfSwellService(WebClient webClient) {
+        var properties = getSurfSwellProperties(Map.of());
+
+        return getSurfSwellService(webClient,
+                new ForecastPeers(properties, webClient, new SimpleMeterRegistry()));
+    }
+
+    /**
+     * @return a {@link SurfSwellService} calling Open-Mateo through the given
+     *         {@link WebClient}, with the given settings relative to
+     *         {@code swell.server.}.
+     */
+    public SurfSwellService getSurfSwellService(WebClient webClient, Map<String, String> settings) {
+        var properties = getSurfSwellProperties(settings);
+
+        return getSurfSwellService(webClient, new ForecastPeers(properties, webClient, new SimpleMeterRegistry()),
+                new ForecastPopularity(properties), new LocationIndex(properties), getForecastCache(properties),
+                properties);
+    }
+
+    /**
+     * @return a {@link SurfSwellService} calling Open-Mateo through the given
+     *         {@link WebClient} and sharing forecasts with the given
+     *         {@link ForecastPeers}, with the default settings.
+     */
+    public SurfSwellService getSurfSwellService(WebClient webClient, ForecastPeers forecastPeers) {
+        var properties = getSurfSwellProperties(Map.of());
+
+        return getSurfSwellService(webClient, forecastPeers, new ForecastPopularity(properties),
+                new LocationIndex(properties), getForecastCache(properties), properties);
+    }
+
+    /**
+     * @return a {@link SurfSwellService} calling Open-Mateo through the given
+     *         {@link WebClient} and recording requests in the given
+     *         {@link ForecastPopularity} and {@link LocationIndex}, with the default
+     *         settings.
+     */
+    public SurfSwellService getSurfSwellService(WebClient webClient, ForecastPopularity forecastPopularity,
+            LocationIndex locationIndex) {
+        var properties = getSurfSwellProperties(Map.of());
+
+        return getSurfSwellService(webClient, new ForecastPeers(properties, webClient, new SimpleMeterRegistry()),
+                forecastPopularity, locationIndex, getForecastCache(properties), properties);
+    }
+
+    /**
+     * @return a {@link SurfSwellService} calling Open-Mateo through the given
+     *         {@link WebClient}, recording requests in the given
+     *         {@link ForecastPopularity} and caching forecasts in the given
+     *         {@link ForecastCache}, with the given settings.
+     */
+    public SurfSwellService getSurfSwellService(WebClient webClient, SurfSwellProperties properties,
+            ForecastPopularity forecastPopularity, ForecastCache forecastCache) {
+        return getSurfSwellService(webClient, new ForecastPeers(properties, webClient, new SimpleMeterRegistry()),
+                forecastPopularity, new LocationIndex(properties), forecastCache, properties);
+    }
+
+    private SurfSwellService getSurfSwellService(WebClient webClient, ForecastPeers forecastPeers,
+            ForecastPopularity forecastPopularity, LocationIndex locationIndex, ForecastCache forecastCache,
+            SurfSwellProperties properties) {
+        var upstreamGuard = new UpstreamGuard(properties, ObservationRegistry.NOOP, new SimpleMeterRegistry());
+
+        return new SurfSwellService(webClient, forecastCache, forecastPopularity, locationIndex,
+                upstreamGuard, forecastPeers, properties, new SimpleMeterRegistry());
+    }
+
+    /**
+     * @return the {@link ExchangeStrategies} of the Open-Mateo {@link WebClient}.
+     */
+    public ExchangeStrategies getExchangeStrategies() {
+        return ExchangeStrategies.builder()
+                .codecs(configurer -> configurer.customCodecs().register(new SurfForecastDecoder()))
+                .build();
+    }
+
+    /**
+     * @return a {@link WebClient} that answers every request with the given JSON
+     *         body instead of calling Open-Mateo.
+     */
+    public WebClient getWebClient(String responseBody) {
+        return WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK, getExchangeStrategies())
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(responseBody).build()))
+                .build();
+    }
+
+    /**
+     * @return a {@link WebClient} that answers every request with the given JSON
+     *         body after a delay, counting the requests it receives.
+     */
+    public WebClient getDelayedWebClient(String responseBody, Duration delay, AtomicInteger requestCount) {
+        return WebClient.builder()
+                .exchangeFunction(request -> {
+                    requestCount.incrementAndGet();
+                    return Mono.delay(delay).map(tick -> ClientResponse.create(HttpStatus.OK, getExchangeStrategies())
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(responseBody).build());
+                })
+                .build();
+    }
+
+    /**
+     * @return a {@link WebClient} that fails every request with the given status.
+     */
+    public WebClient getFailingWebClient(HttpStatus status) {
+        return WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(status).build()))
+                .build();
+    }
+
+    /**
+     * @return an Open-Mateo marine response body for two locations requested at
+     *         once.
+     */
+    public String getBulkMarineResponse() {
+        return "[" + getMarineResponse().strip() + "," + getMarineResponse().replace("54.5", "-33.9") + "]";
+    }
+
+    /**
+     * @return a three hour Open-Mateo marine response body.
+     */
+    public String getMarineResponse() {
+        return """
+                {"latitude":54.5,"longitude":10.0,"utc_offset_seconds":0,"timezone_abbreviation":"GMT",
+                "elevation":0.0,"hourly":{"time":["2024-06-01T00:00","2024-06-01T01:00","2024-06-01T02:00"],
+                "wave_height":[1.5,1.54,2.0],"wave_period":[6.1,6.25,7.0],
+                "swell_wave_height":[1.2,1.24,0.5],"swell_wave_period":[9.8,10.05,11.0]}}
+                """;
+    }
 }